@@ -2,37 +2,169 @@ package de.m_marvin.gframe;
 
 import java.io.PrintStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
-import org.lwjgl.opengl.GL;
 import org.lwjgl.opengl.GL33;
 
+import de.m_marvin.gframe.backend.IGLBackend;
+import de.m_marvin.gframe.backend.LWJGLBackend;
+
 /**
  * This class contains all used OpenGL methods.
  * Contains the {@link GLStateManager#initialize(PrintStream)} method that must be called before any OpenGL or GLFW methods can be used.
  * 
+ * All calls are passed to the {@link IGLBackend} set using {@link #setBackend(IGLBackend)}, by default the OpenGL functions of LWJGL.
+ * 
+ * The bindings, capabilities, blend and depth state and the viewport are mirrored in a shadow state, calls that would not change the current state are not passed to the driver.
+ * The number of issued and skipped calls can be queried using {@link #issuedStateChanges()} and {@link #elidedStateChanges()}.
+ * The shadow state assumes that all state changes go through this class, if OpenGL is called directly or the context is switched, {@link #invalidateState()} has to be called.
+ * 
  * @author Marvin Koehler
  */
 public class GLStateManager {
 	
+	private static final int UNKNOWN = -1;
+	private static final int MAX_TEXTURE_UNITS = 32;
+	private static final int[] TEXTURE_TARGETS = new int[] {
+			GL33.GL_TEXTURE_1D, GL33.GL_TEXTURE_2D, GL33.GL_TEXTURE_3D, GL33.GL_TEXTURE_1D_ARRAY, GL33.GL_TEXTURE_2D_ARRAY,
+			GL33.GL_TEXTURE_RECTANGLE, GL33.GL_TEXTURE_CUBE_MAP, GL33.GL_TEXTURE_BUFFER, GL33.GL_TEXTURE_2D_MULTISAMPLE, GL33.GL_TEXTURE_2D_MULTISAMPLE_ARRAY
+	};
+	private static final int[] BUFFER_TARGETS = new int[] {
+			GL33.GL_ARRAY_BUFFER, GL33.GL_ELEMENT_ARRAY_BUFFER, GL33.GL_UNIFORM_BUFFER, GL33.GL_COPY_READ_BUFFER, GL33.GL_COPY_WRITE_BUFFER,
+			GL33.GL_PIXEL_PACK_BUFFER, GL33.GL_PIXEL_UNPACK_BUFFER, GL33.GL_TEXTURE_BUFFER, GL33.GL_TRANSFORM_FEEDBACK_BUFFER
+	};
+	private static final int MAX_CAPABILITIES = 32;
+	
+	private static int program;
+	private static int vertexArray;
+	private static int activeTexture;
+	private static int drawFramebuffer;
+	private static int readFramebuffer;
+	private static final int[] bufferBindings = new int[BUFFER_TARGETS.length];
+	private static final int[] textureBindings = new int[MAX_TEXTURE_UNITS * TEXTURE_TARGETS.length];
+	private static final int[] capabilities = new int[MAX_CAPABILITIES];
+	private static final int[] capabilityStates = new int[MAX_CAPABILITIES];
+	private static int capabilityCount;
+	private static int blendSourceFactor;
+	private static int blendDestinationFactor;
+	private static int depthFunc;
+	private static int depthMask;
+	private static long restartIndex;
+	private static final int[] viewport = new int[4];
+	private static long issuedStateChanges;
+	private static long elidedStateChanges;
+	
+	private static IGLBackend backend = new LWJGLBackend();
+	
+	static {
+		invalidateState();
+	}
+	
 	/**
-	 * Returns true if the calling thread has a OpenGL context bound to it and can perform rendering operations.
-	 * @return True if a OpenGL context is bound
+	 * Replaces the backend all OpenGL calls are passed to, the shadow state is invalidated.
+	 * Has to be called before any OpenGL objects are created, objects created with one backend can not be used with another.
+	 * @param backend The new backend
 	 */
-	public static boolean isOnRenderThread() {
-		try {
-			GL.getCapabilities();
-		} catch (IllegalStateException e) {
+	public static void setBackend(IGLBackend backend) {
+		GLStateManager.backend = backend;
+		invalidateState();
+	}
+	
+	/**
+	 * Returns the backend all OpenGL calls are passed to, which is a {@link LWJGLBackend} by default.
+	 * @return The current backend
+	 */
+	public static IGLBackend getBackend() {
+		return backend;
+	}
+	
+	/**
+	 * Marks the complete shadow state as unknown, so that the next call of each state changing method is passed to the driver.
+	 * Has to be called after changing the OpenGL state without this class or when switching to another context.
+	 */
+	public static void invalidateState() {
+		program = UNKNOWN;
+		vertexArray = UNKNOWN;
+		activeTexture = UNKNOWN;
+		drawFramebuffer = UNKNOWN;
+		readFramebuffer = UNKNOWN;
+		Arrays.fill(bufferBindings, UNKNOWN);
+		Arrays.fill(textureBindings, UNKNOWN);
+		capabilityCount = 0;
+		blendSourceFactor = UNKNOWN;
+		blendDestinationFactor = UNKNOWN;
+		depthFunc = UNKNOWN;
+		depthMask = UNKNOWN;
+		restartIndex = UNKNOWN;
+		viewport[0] = UNKNOWN;
+	}
+	
+	/**
+	 * Returns the number of state changes passed to the driver since the last call of {@link #resetStateCounters()}.
+	 * @return The number of issued state changes
+	 */
+	public static long issuedStateChanges() {
+		return issuedStateChanges;
+	}
+	
+	/**
+	 * Returns the number of state changes skipped since the last call of {@link #resetStateCounters()}, because the state was already current.
+	 * @return The number of elided state changes
+	 */
+	public static long elidedStateChanges() {
+		return elidedStateChanges;
+	}
+	
+	public static void resetStateCounters() {
+		issuedStateChanges = 0;
+		elidedStateChanges = 0;
+	}
+	
+	/**
+	 * Updates the counters and returns true if the new state differs from the current one.
+	 */
+	private static boolean changes(int current, int state) {
+		if (current == state) {
+			elidedStateChanges++;
 			return false;
 		}
+		issuedStateChanges++;
 		return true;
 	}
 	
+	private static int bufferSlot(int target) {
+		for (int i = 0; i < BUFFER_TARGETS.length; i++) if (BUFFER_TARGETS[i] == target) return i;
+		return -1;
+	}
+	
+	private static int textureSlot(int unit, int target) {
+		if (unit < 0 || unit >= MAX_TEXTURE_UNITS) return -1;
+		for (int i = 0; i < TEXTURE_TARGETS.length; i++) if (TEXTURE_TARGETS[i] == target) return unit * TEXTURE_TARGETS.length + i;
+		return -1;
+	}
+	
+	private static int capabilitySlot(int target) {
+		for (int i = 0; i < capabilityCount; i++) if (capabilities[i] == target) return i;
+		if (capabilityCount == MAX_CAPABILITIES) return -1;
+		capabilities[capabilityCount] = target;
+		capabilityStates[capabilityCount] = UNKNOWN;
+		return capabilityCount++;
+	}
+	
+	/**
+	 * Returns true if the calling thread has a OpenGL context bound to it and can perform rendering operations.
+	 * @return True if a OpenGL context is bound
+	 */
+	public static boolean isOnRenderThread() {
+		return backend.isContextCurrent();
+	}
+	
 	public static void assertOnRenderThread() {
 		assert isOnRenderThread() : "GL operations have to be performed on the render thread!";
 	}
 	
 	public static void clear(int bufferBitMask) {
-		GL33.glClear(bufferBitMask);
+		backend.clear(bufferBitMask);
 	}
 	
 	public static void clear() {
@@ -40,272 +172,424 @@ public class GLStateManager {
 	}
 	
 	public static void flush() {
-		GL33.glFlush();
+		backend.flush();
 	}
 	
 	public static void drawElements(int mode, int count, int indecieFormat) {
-		GL33.glDrawElements(mode, count, indecieFormat, 0);
+		backend.drawElements(mode, count, indecieFormat, 0);
+	}
+	
+	public static void drawElements(int mode, int count, int indecieFormat, long indexOffset) {
+		backend.drawElements(mode, count, indecieFormat, indexOffset);
+	}
+	
+	public static void drawElementsInstanced(int mode, int count, int indecieFormat, long indexOffset, int instances) {
+		backend.drawElementsInstanced(mode, count, indecieFormat, indexOffset, instances);
+	}
+
+	public static void primitiveRestartIndex(int index) {
+		if (restartIndex == Integer.toUnsignedLong(index)) {
+			elidedStateChanges++;
+			return;
+		}
+		issuedStateChanges++;
+		restartIndex = Integer.toUnsignedLong(index);
+		backend.primitiveRestartIndex(index);
 	}
 
 	public static void enable(int target) {
-		GL33.glEnable(target);
+		int slot = capabilitySlot(target);
+		if (slot >= 0) {
+			if (!changes(capabilityStates[slot], 1)) return;
+			capabilityStates[slot] = 1;
+		}
+		backend.enable(target);
 	}
 
 	public static void disable(int target) {
-		GL33.glDisable(target);
+		int slot = capabilitySlot(target);
+		if (slot >= 0) {
+			if (!changes(capabilityStates[slot], 0)) return;
+			capabilityStates[slot] = 0;
+		}
+		backend.disable(target);
 	}
 	
 	public static void lineWidth(float width) {
-		GL33.glLineWidth(width);
+		backend.lineWidth(width);
 	}
 
 	public static void pointSize(int size) {
-		GL33.glPointSize(size);
+		backend.pointSize(size);
 	}
 	
 	public static void polygonOffset(float factor, float units) {
-		GL33.glPolygonOffset(factor, units);
+		backend.polygonOffset(factor, units);
 	}
 	
 	public static void resizeViewport(int x, int y, int w, int h) {
-		GL33.glViewport(x, y, w, h);
+		if (viewport[0] == x && viewport[1] == y && viewport[2] == w && viewport[3] == h) {
+			elidedStateChanges++;
+			return;
+		}
+		issuedStateChanges++;
+		viewport[0] = x;
+		viewport[1] = y;
+		viewport[2] = w;
+		viewport[3] = h;
+		backend.viewport(x, y, w, h);
 	}
 
 	public static void clearColor(float r, float g, float b, float a) {
-		GL33.glClearColor(r, g, b, a);
+		backend.clearColor(r, g, b, a);
 	}
 	
 	public static void clearDepth(double depth) {
-		GL33.glClearDepth(depth);
+		backend.clearDepth(depth);
 	}
 
 	public static int genVertexArray() {
-		return GL33.glGenVertexArrays();
+		return backend.genVertexArray();
 	}
 	
 	public static int genBufferObject() {
-		return GL33.glGenBuffers();
+		return backend.genBuffer();
 	}
 
 	public static void deleteVertexArray(int vertexArrayId) {
-		GL33.glDeleteVertexArrays(vertexArrayId);
+		backend.deleteVertexArray(vertexArrayId);
+		if (vertexArrayId != 0 && vertexArray == vertexArrayId) {
+			vertexArray = 0;
+			bufferBindings[bufferSlot(GL33.GL_ELEMENT_ARRAY_BUFFER)] = UNKNOWN;
+		}
 	}
 	
 	public static void deleteBufferObject(int bufferObjectId) {
-		GL33.glDeleteBuffers(bufferObjectId);
+		backend.deleteBuffer(bufferObjectId);
+		if (bufferObjectId == 0) return;
+		for (int i = 0; i < bufferBindings.length; i++) if (bufferBindings[i] == bufferObjectId) bufferBindings[i] = 0;
 	}
 
 	public static void bufferData(int target, ByteBuffer data, int usage) {
-		GL33.glBufferData(target, data, usage);
+		backend.bufferData(target, data, usage);
+	}
+	
+	public static void bufferData(int target, long size, int usage) {
+		backend.bufferData(target, size, usage);
+	}
+	
+	public static void bufferSubData(int target, long offset, ByteBuffer data) {
+		backend.bufferSubData(target, offset, data);
+	}
+	
+	public static ByteBuffer mapBufferRange(int target, long offset, long length, int access) {
+		return backend.mapBufferRange(target, offset, length, access);
+	}
+	
+	public static boolean unmapBuffer(int target) {
+		return backend.unmapBuffer(target);
 	}
 
 	public static void bindBufferObject(int target, int vertexBufferId) {
-		GL33.glBindBuffer(target, vertexBufferId);
+		int slot = bufferSlot(target);
+		if (slot >= 0) {
+			if (!changes(bufferBindings[slot], vertexBufferId)) return;
+			bufferBindings[slot] = vertexBufferId;
+		}
+		backend.bindBuffer(target, vertexBufferId);
 	}
 
 	public static void bindVertexArray(int arrayObjectId) {
-		GL33.glBindVertexArray(arrayObjectId);
+		if (!changes(vertexArray, arrayObjectId)) return;
+		vertexArray = arrayObjectId;
+		// The element array binding is part of the VAO state
+		bufferBindings[bufferSlot(GL33.GL_ELEMENT_ARRAY_BUFFER)] = UNKNOWN;
+		backend.bindVertexArray(arrayObjectId);
 	}
 	
 	public static int genTexture() {
-		return GL33.glGenTextures();
+		return backend.genTexture();
 	}
 	
 	public static void deleteTexture(int textureId) {
-		GL33.glDeleteTextures(textureId);
+		backend.deleteTexture(textureId);
+		if (textureId == 0) return;
+		for (int i = 0; i < textureBindings.length; i++) if (textureBindings[i] == textureId) textureBindings[i] = 0;
 	}
 
-	public static void bindTexture(int target, int textureId) {
-		GL33.glBindTexture(target, textureId);
+	/**
+	 * Binds the texture to the target of the active texture unit.
+	 * @return True if the binding changed and the call was passed to the backend, false if the texture was already bound
+	 */
+	public static boolean bindTexture(int target, int textureId) {
+		int slot = textureSlot(activeTexture, target);
+		if (slot >= 0) {
+			if (!changes(textureBindings[slot], textureId)) return false;
+			textureBindings[slot] = textureId;
+		}
+		backend.bindTexture(target, textureId);
+		return true;
 	}
 
 	public static void textureParameter(int target, int parameter, int value) {
-		GL33.glTexParameteri(target, parameter, value);
+		backend.texParameteri(target, parameter, value);
 	}
 
 	public static void uploadTexture(int target, int level, int internalformat, int format, int width, int height, int border, int type, int[] pixels) {
-		GL33.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+		backend.texImage2D(target, level, internalformat, width, height, border, format, type, pixels);
 	}
 	
 	public static void downloadTexture(int target, int level, int format, int type, int[] pixelBuffer) {
-		GL33.glGetTexImage(target, level, format, type, pixelBuffer);
+		backend.getTexImage(target, level, format, type, pixelBuffer);
 	}
 
 	public static void activeTexture(int textureId) {
-		GL33.glActiveTexture(GL33.GL_TEXTURE0 + textureId);
+		if (!changes(activeTexture, textureId)) return;
+		activeTexture = textureId;
+		backend.activeTexture(textureId);
 	}
 
 	public static int createShader(int type) {
-		return GL33.glCreateShader(type);
+		return backend.createShader(type);
 	}
 	
 	public static void deleteShader(int shader) {
-		GL33.glDeleteShader(shader);
+		backend.deleteShader(shader);
 	}
 	
 	public static void shaderSource(int shader, String shaderCode) {
-		GL33.glShaderSource(shader, shaderCode);
+		backend.shaderSource(shader, shaderCode);
 	}
 	
 	public static void attributePointer(int attributeId, int size, int format, boolean normalize, int stride, long bufferOffset) {
 		if (format != GL33.GL_INT && format != GL33.GL_UNSIGNED_INT) {
-			GL33.glVertexAttribPointer(attributeId, size, format, normalize, stride, bufferOffset);
+			backend.vertexAttribPointer(attributeId, size, format, normalize, stride, bufferOffset);
 		} else {
-			GL33.glVertexAttribIPointer(attributeId, size, format, stride, bufferOffset);
+			backend.vertexAttribIPointer(attributeId, size, format, stride, bufferOffset);
 		}		
 	}
 
 	public static void compileShader(int shader) {
-		GL33.glCompileShader(shader);
+		backend.compileShader(shader);
 	}
 	
 	public static boolean checkShaderCompile(int shader) {
-		int[] intBuffer = new int[1];
-		GL33.glGetShaderiv(shader, GL33.GL_COMPILE_STATUS, intBuffer);
-		return intBuffer[0] == GL33.GL_TRUE;
+		return backend.getShaderi(shader, GL33.GL_COMPILE_STATUS) == GL33.GL_TRUE;
 	}
 	
 	public static String shaderInfoLog(int shader) {
-		return GL33.glGetShaderInfoLog(shader);
+		return backend.getShaderInfoLog(shader);
 	}
 	
 	public static int createProgram() {
-		return GL33.glCreateProgram();
+		return backend.createProgram();
 	}
 	
 	public static void deleteProgram(int program) {
-		GL33.glDeleteProgram(program);
+		backend.deleteProgram(program);
 	}
 	
 	public static void attachShader(int program, int shader) {
-		GL33.glAttachShader(program, shader);
+		backend.attachShader(program, shader);
 	}
 	
 	public static void linkProgram(int program) {
-		GL33.glLinkProgram(program);
+		backend.linkProgram(program);
 	}
 	
 	public static void validateProgram(int program) {
-		GL33.glValidateProgram(program);
+		backend.validateProgram(program);
 	}
 	
 	public static boolean checkProgramValidation(int program) {
-		int[] intBuffer = new int[1];
-		GL33.glGetProgramiv(program, GL33.GL_VALIDATE_STATUS, intBuffer);
-		return intBuffer[0] == GL33.GL_TRUE;
+		return backend.getProgrami(program, GL33.GL_VALIDATE_STATUS) == GL33.GL_TRUE;
 	}
 
 	public static boolean checkProgramLink(int program) {
-		int[] intBuffer = new int[1];
-		GL33.glGetProgramiv(program, GL33.GL_LINK_STATUS, intBuffer);
-		return intBuffer[0] == GL33.GL_TRUE;
+		return backend.getProgrami(program, GL33.GL_LINK_STATUS) == GL33.GL_TRUE;
 	}
 	
 	public static String programInfoLog(int program) {
-		return GL33.glGetProgramInfoLog(program);
+		return backend.getProgramInfoLog(program);
 	}
 	
 	public static void bindVertexAttributeLocation(int program, int index, String name) {
-		GL33.glBindAttribLocation(program, index, name);
+		backend.bindAttribLocation(program, index, name);
 	}
 	
 	public static int getVertexAttributeLocation(int programm, String name) {
-		return GL33.glGetAttribLocation(programm, name);
+		return backend.getAttribLocation(programm, name);
 	}
 	
-	public static void useShader(int program) {
-		GL33.glUseProgram(program);
+	/**
+	 * Makes the program current.
+	 * @return True if the program changed and the call was passed to the backend, false if the program was already in use
+	 */
+	public static boolean useShader(int program) {
+		if (!changes(GLStateManager.program, program)) return false;
+		GLStateManager.program = program;
+		backend.useProgram(program);
+		return true;
 	}
 
 	public static void enableClientState(int state) {
-		GL33.glEnableClientState(state);
+		backend.enableClientState(state);
 	}
 
 	public static void disableClientState(int state) {
-		GL33.glDisableClientState(state);
+		backend.disableClientState(state);
 	}
 	
 	public static void enableAttributeArray(int index) {
-		GL33.glEnableVertexAttribArray(index);
+		backend.enableVertexAttribArray(index);
 	}
 
 	public static void disableAttributeArray(int index) {
-		GL33.glDisableVertexAttribArray(index);
+		backend.disableVertexAttribArray(index);
+	}
+	
+	public static void attributeDivisor(int index, int divisor) {
+		backend.vertexAttribDivisor(index, divisor);
 	}
 	
 	public static int getUniformLocation(int program, String name) {
-		return GL33.glGetUniformLocation(program, name);
+		return backend.getUniformLocation(program, name);
 	}
 
 	public static void setUniformInt(int location, int value) {
-		GL33.glUniform1i(location, value);
+		backend.uniform1i(location, value);
 	}
 	public static void setUniformIntVec2(int location, float valueX, float valueY) {
-		GL33.glUniform2f(location, valueX, valueY);
+		backend.uniform2f(location, valueX, valueY);
 	}
 	public static void setUniformIntVec3(int location, float valueX, float valueY, float valueZ) {
-		GL33.glUniform3f(location, valueX, valueY, valueZ);
+		backend.uniform3f(location, valueX, valueY, valueZ);
 	}
 	public static void setUniformIntVec4(int location, float valueX, float valueY, float valueZ, float valueW) {
-		GL33.glUniform4f(location, valueX, valueY, valueZ, valueW);
+		backend.uniform4f(location, valueX, valueY, valueZ, valueW);
 	}
 
 	public static void setUniformUnsignedInt(int location, int value) {
-		GL33.glUniform1ui(location, value);
+		backend.uniform1ui(location, value);
 	}
 	public static void setUniformUnsignedIntVec2(int location, int valueX, int valueY) {
-		GL33.glUniform2ui(location, valueX, valueY);
+		backend.uniform2ui(location, valueX, valueY);
 	}
 	public static void setUniformUnsignedIntVec3(int location, int valueX, int valueY, int valueZ) {
-		GL33.glUniform3ui(location, valueX, valueY, valueZ);
+		backend.uniform3ui(location, valueX, valueY, valueZ);
 	}
 	public static void setUniformUnsignedIntVec4(int location, int valueX, int valueY, int valueZ, int valueW) {
-		GL33.glUniform4ui(location, valueX, valueY, valueZ, valueW);
+		backend.uniform4ui(location, valueX, valueY, valueZ, valueW);
 	}
 
 	public static void setUniformFloat(int location, float value) {
-		GL33.glUniform1f(location, value);
+		backend.uniform1f(location, value);
 	}
 	public static void setUniformFloatVec2(int location, float valueX, float valueY) {
-		GL33.glUniform2f(location, valueX, valueY);
+		backend.uniform2f(location, valueX, valueY);
 	}
 	public static void setUniformFloatVec3(int location, float valueX, float valueY, float valueZ) {
-		GL33.glUniform3f(location, valueX, valueY, valueZ);
+		backend.uniform3f(location, valueX, valueY, valueZ);
 	}
 	public static void setUniformFloatVec4(int location, float valueX, float valueY, float valueZ, float valueW) {
-		GL33.glUniform4f(location, valueX, valueY, valueZ, valueW);
+		backend.uniform4f(location, valueX, valueY, valueZ, valueW);
 	}
 
 	public static void setUniformMatrix3(int location, boolean transpose, float[] value) {
-		GL33.glUniformMatrix3fv(location, transpose, value);
+		backend.uniformMatrix3fv(location, transpose, value);
 	}
 
 	public static void setUniformMatrix4(int location, boolean transpose, float[] value) {
-		GL33.glUniformMatrix4fv(location, transpose, value);
+		backend.uniformMatrix4fv(location, transpose, value);
 	}
 
 	public static void blendFunc(int sfactor, int dfactor) {
-		GL33.glBlendFunc(sfactor, dfactor);
+		if (blendSourceFactor == sfactor && blendDestinationFactor == dfactor) {
+			elidedStateChanges++;
+			return;
+		}
+		issuedStateChanges++;
+		blendSourceFactor = sfactor;
+		blendDestinationFactor = dfactor;
+		backend.blendFunc(sfactor, dfactor);
+	}
+	
+	public static void depthFunc(int func) {
+		if (!changes(depthFunc, func)) return;
+		depthFunc = func;
+		backend.depthFunc(func);
+	}
+	
+	public static void depthMask(boolean write) {
+		if (!changes(depthMask, write ? 1 : 0)) return;
+		depthMask = write ? 1 : 0;
+		backend.depthMask(write);
 	}
 	
 	public static void bindFramebuffer(int target, int framebuffer) {
-		GL33.glBindFramebuffer(target, framebuffer);
+		boolean draw = target == GL33.GL_FRAMEBUFFER || target == GL33.GL_DRAW_FRAMEBUFFER;
+		boolean read = target == GL33.GL_FRAMEBUFFER || target == GL33.GL_READ_FRAMEBUFFER;
+		if ((!draw || drawFramebuffer == framebuffer) && (!read || readFramebuffer == framebuffer)) {
+			elidedStateChanges++;
+			return;
+		}
+		issuedStateChanges++;
+		if (draw) drawFramebuffer = framebuffer;
+		if (read) readFramebuffer = framebuffer;
+		backend.bindFramebuffer(target, framebuffer);
 	}
 	
 	public static void framebufferTexture2D(int target, int attachment, int textureTarget, int texture, int level) {
-		GL33.glFramebufferTexture2D(target, attachment, textureTarget, texture, level);
+		backend.framebufferTexture2D(target, attachment, textureTarget, texture, level);
 	}
 	
 	public static int checkFramebufferStatus(int target) {
-		return GL33.glCheckFramebufferStatus(target);
+		return backend.checkFramebufferStatus(target);
 	}
 	
 	public static void deleteFramebuffer(int framebuffer) {
-		GL33.glDeleteFramebuffers(framebuffer);
+		backend.deleteFramebuffer(framebuffer);
+		if (framebuffer == 0) return;
+		if (drawFramebuffer == framebuffer) drawFramebuffer = 0;
+		if (readFramebuffer == framebuffer) readFramebuffer = 0;
 	}
 	
 	public static int genFramebuffer() {
-		return GL33.glGenFramebuffers();
+		return backend.genFramebuffer();
+	}
+	
+	public static int genQuery() {
+		return backend.genQuery();
+	}
+	
+	public static void deleteQuery(int query) {
+		backend.deleteQuery(query);
+	}
+	
+	/**
+	 * Records the GPU time into the query object once all previous commands have been completed.
+	 * @param query The query object
+	 */
+	public static void queryTimestamp(int query) {
+		backend.queryCounter(query, GL33.GL_TIMESTAMP);
+	}
+	
+	/**
+	 * Returns true if the result of the query is available, does not wait for the GPU.
+	 * @param query The query object
+	 * @return True if {@link #queryResult(int)} will not block
+	 */
+	public static boolean isQueryResultAvailable(int query) {
+		return backend.getQueryObjecti(query, GL33.GL_QUERY_RESULT_AVAILABLE) != GL33.GL_FALSE;
+	}
+	
+	/**
+	 * Returns the result of the query, blocks until the GPU has reached the query if the result is not available yet.
+	 * @param query The query object
+	 * @return The result of the query, in nanoseconds for timer queries
+	 */
+	public static long queryResult(int query) {
+		return backend.getQueryObjecti64(query, GL33.GL_QUERY_RESULT);
 	}
 	
 }
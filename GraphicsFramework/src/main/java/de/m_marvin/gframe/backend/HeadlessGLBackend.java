@@ -0,0 +1,643 @@
+package de.m_marvin.gframe.backend;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.lwjgl.opengl.GL33;
+
+/**
+ * A backend without an OpenGL context, which allows running the framework on machines without a GPU.
+ * Every call is recorded into a command log together with its arguments and the number of bytes transferred, which can be inspected to benchmark the submission path or to count the calls per frame.
+ *
+ * Object ids are simulated, they are unique across all object types.
+ * Buffer storage and texture pixels are kept in memory, so data written to buffers or textures can be read back using {@link #getBufferStorage(int)} and {@link #getTexImage(int, int, int, int, int[])}.
+ * Shaders always compile and link successfully and every requested uniform gets its own location.
+ * Timestamp queries report the system time when they are issued and are available immediately.
+ * Nothing is drawn.
+ *
+ * Buffer operations without a bound buffer throw an {@link IllegalStateException} instead of generating an OpenGL error.
+ */
+public class HeadlessGLBackend implements IGLBackend {
+
+	/**
+	 * One recorded call.
+	 * Data arguments like buffers and arrays are not recorded, their size is reported as bytes instead.
+	 */
+	public static record Command(String function, List<Object> arguments, long bytes) {
+
+		@Override
+		public String toString() {
+			return this.function + this.arguments + (this.bytes > 0 ? " " + this.bytes + " bytes" : "");
+		}
+
+	}
+
+	protected final List<Command> commands = new ArrayList<>();
+	protected final Map<String, Long> callCounts = new HashMap<>();
+	protected boolean recording = true;
+	protected long calls;
+	protected long transferredBytes;
+
+	protected int nextId = 1;
+	protected final Map<Integer, ByteBuffer> buffers = new HashMap<>();
+	protected final Map<Integer, Integer> bufferBindings = new HashMap<>();
+	protected final Map<Integer, Integer> elementBufferBindings = new HashMap<>();
+	protected final Set<Integer> vertexArrays = new HashSet<>();
+	protected int vertexArray;
+	protected final Map<Integer, int[]> textures = new HashMap<>();
+	protected final Map<Long, Integer> textureBindings = new HashMap<>();
+	protected int activeTexture;
+	protected final Set<Integer> shaders = new HashSet<>();
+	protected final Map<Integer, Map<String, Integer>> uniformLocations = new HashMap<>();
+	protected final Map<Integer, Map<String, Integer>> attributeLocations = new HashMap<>();
+	protected final Set<Integer> framebuffers = new HashSet<>();
+	protected final Map<Integer, Long> queries = new HashMap<>();
+
+	/**
+	 * Enables or disables the command log.
+	 * If disabled, only the number of calls and transferred bytes are counted, which keeps the overhead of the backend low for benchmarks.
+	 * @param recording True if the calls should be recorded
+	 */
+	public void setRecording(boolean recording) {
+		this.recording = recording;
+	}
+
+	/**
+	 * Returns the recorded calls since the last call of {@link #clearLog()}.
+	 * @return An unmodifiable view of the command log
+	 */
+	public List<Command> getCommands() {
+		return Collections.unmodifiableList(this.commands);
+	}
+
+	/**
+	 * Returns how often the function was called since the last call of {@link #clearLog()}, counted even if recording is disabled.
+	 * @param function The name of the function as declared in {@link IGLBackend}
+	 * @return The number of calls
+	 */
+	public long count(String function) {
+		return this.callCounts.getOrDefault(function, 0L);
+	}
+
+	/**
+	 * Returns the total number of calls since the last call of {@link #clearLog()}.
+	 * @return The number of calls
+	 */
+	public long getCallCount() {
+		return calls;
+	}
+
+	/**
+	 * Returns the number of bytes transferred from or to the simulated GPU since the last call of {@link #clearLog()}.
+	 * @return The number of transferred bytes
+	 */
+	public long getTransferredBytes() {
+		return transferredBytes;
+	}
+
+	/**
+	 * Clears the command log and resets all counters, the simulated objects are kept.
+	 */
+	public void clearLog() {
+		this.commands.clear();
+		this.callCounts.clear();
+		this.calls = 0;
+		this.transferredBytes = 0;
+	}
+
+	/**
+	 * Returns the storage of the buffer object.
+	 * @param buffer The id of the buffer
+	 * @return A read only view of the buffer storage or null if no buffer with this id exists
+	 */
+	public ByteBuffer getBufferStorage(int buffer) {
+		ByteBuffer storage = this.buffers.get(buffer);
+		return storage == null ? null : storage.asReadOnlyBuffer().order(storage.order());
+	}
+
+	/**
+	 * Returns the id of the buffer bound to the target, for the element array target this is the binding of the current vertex array.
+	 * @param target The buffer target
+	 * @return The id of the bound buffer or zero
+	 */
+	public int getBoundBuffer(int target) {
+		if (target == GL33.GL_ELEMENT_ARRAY_BUFFER) return this.elementBufferBindings.getOrDefault(this.vertexArray, 0);
+		return this.bufferBindings.getOrDefault(target, 0);
+	}
+
+	public int getBoundVertexArray() {
+		return vertexArray;
+	}
+
+	protected void record(String function, long bytes, Object... arguments) {
+		this.calls++;
+		this.transferredBytes += bytes;
+		this.callCounts.merge(function, 1L, Long::sum);
+		if (this.recording) this.commands.add(new Command(function, Arrays.asList(arguments), bytes));
+	}
+
+	protected int newId() {
+		return this.nextId++;
+	}
+
+	protected ByteBuffer boundStorage(int target) {
+		int buffer = getBoundBuffer(target);
+		if (buffer == 0) throw new IllegalStateException("No buffer bound to target " + target + "!");
+		return this.buffers.get(buffer);
+	}
+
+	protected long textureKey(int target) {
+		return ((long) this.activeTexture << 32) | (target & 0xFFFFFFFFL);
+	}
+
+	@Override
+	public boolean isContextCurrent() {
+		return true;
+	}
+
+	@Override
+	public void clear(int mask) {
+		record("clear", 0, mask);
+	}
+
+	@Override
+	public void flush() {
+		record("flush", 0);
+	}
+
+	@Override
+	public void drawElements(int mode, int count, int type, long indexOffset) {
+		record("drawElements", 0, mode, count, type, indexOffset);
+	}
+
+	@Override
+	public void drawElementsInstanced(int mode, int count, int type, long indexOffset, int instances) {
+		record("drawElementsInstanced", 0, mode, count, type, indexOffset, instances);
+	}
+
+	@Override
+	public void primitiveRestartIndex(int index) {
+		record("primitiveRestartIndex", 0, index);
+	}
+
+	@Override
+	public void enable(int target) {
+		record("enable", 0, target);
+	}
+
+	@Override
+	public void disable(int target) {
+		record("disable", 0, target);
+	}
+
+	@Override
+	public void lineWidth(float width) {
+		record("lineWidth", 0, width);
+	}
+
+	@Override
+	public void pointSize(float size) {
+		record("pointSize", 0, size);
+	}
+
+	@Override
+	public void polygonOffset(float factor, float units) {
+		record("polygonOffset", 0, factor, units);
+	}
+
+	@Override
+	public void viewport(int x, int y, int w, int h) {
+		record("viewport", 0, x, y, w, h);
+	}
+
+	@Override
+	public void clearColor(float r, float g, float b, float a) {
+		record("clearColor", 0, r, g, b, a);
+	}
+
+	@Override
+	public void clearDepth(double depth) {
+		record("clearDepth", 0, depth);
+	}
+
+	@Override
+	public void blendFunc(int sfactor, int dfactor) {
+		record("blendFunc", 0, sfactor, dfactor);
+	}
+
+	@Override
+	public void depthFunc(int func) {
+		record("depthFunc", 0, func);
+	}
+
+	@Override
+	public void depthMask(boolean flag) {
+		record("depthMask", 0, flag);
+	}
+
+	@Override
+	public int genVertexArray() {
+		int id = newId();
+		this.vertexArrays.add(id);
+		record("genVertexArray", 0, id);
+		return id;
+	}
+
+	@Override
+	public void deleteVertexArray(int array) {
+		record("deleteVertexArray", 0, array);
+		if (array == 0) return;
+		this.vertexArrays.remove(array);
+		this.elementBufferBindings.remove(array);
+		if (this.vertexArray == array) this.vertexArray = 0;
+	}
+
+	@Override
+	public void bindVertexArray(int array) {
+		record("bindVertexArray", 0, array);
+		this.vertexArray = array;
+	}
+
+	@Override
+	public int genBuffer() {
+		int id = newId();
+		this.buffers.put(id, ByteBuffer.allocateDirect(0).order(ByteOrder.nativeOrder()));
+		record("genBuffer", 0, id);
+		return id;
+	}
+
+	@Override
+	public void deleteBuffer(int buffer) {
+		record("deleteBuffer", 0, buffer);
+		if (buffer == 0) return;
+		this.buffers.remove(buffer);
+		this.bufferBindings.values().removeIf(b -> b == buffer);
+		if (this.elementBufferBindings.getOrDefault(this.vertexArray, 0) == buffer) this.elementBufferBindings.remove(this.vertexArray);
+	}
+
+	@Override
+	public void bindBuffer(int target, int buffer) {
+		record("bindBuffer", 0, target, buffer);
+		if (buffer != 0 && !this.buffers.containsKey(buffer)) throw new IllegalStateException("Buffer " + buffer + " does not exist!");
+		if (target == GL33.GL_ELEMENT_ARRAY_BUFFER) {
+			this.elementBufferBindings.put(this.vertexArray, buffer);
+		} else {
+			this.bufferBindings.put(target, buffer);
+		}
+	}
+
+	@Override
+	public void bufferData(int target, ByteBuffer data, int usage) {
+		record("bufferData", data.remaining(), target, usage);
+		boundStorage(target);
+		ByteBuffer storage = ByteBuffer.allocateDirect(data.remaining()).order(ByteOrder.nativeOrder());
+		storage.put(0, data, data.position(), data.remaining());
+		this.buffers.put(getBoundBuffer(target), storage);
+	}
+
+	@Override
+	public void bufferData(int target, long size, int usage) {
+		record("bufferData", 0, target, size, usage);
+		boundStorage(target);
+		this.buffers.put(getBoundBuffer(target), ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder()));
+	}
+
+	@Override
+	public void bufferSubData(int target, long offset, ByteBuffer data) {
+		record("bufferSubData", data.remaining(), target, offset);
+		ByteBuffer storage = boundStorage(target);
+		if (offset < 0 || offset + data.remaining() > storage.capacity()) throw new IllegalArgumentException("The data exceeds the buffer storage!");
+		storage.put((int) offset, data, data.position(), data.remaining());
+	}
+
+	@Override
+	public ByteBuffer mapBufferRange(int target, long offset, long length, int access) {
+		record("mapBufferRange", length, target, offset, length, access);
+		ByteBuffer storage = boundStorage(target);
+		if (offset < 0 || offset + length > storage.capacity()) throw new IllegalArgumentException("The mapped range exceeds the buffer storage!");
+		return storage.slice((int) offset, (int) length).order(storage.order());
+	}
+
+	@Override
+	public boolean unmapBuffer(int target) {
+		record("unmapBuffer", 0, target);
+		boundStorage(target);
+		return true;
+	}
+
+	@Override
+	public int genTexture() {
+		int id = newId();
+		this.textures.put(id, new int[0]);
+		record("genTexture", 0, id);
+		return id;
+	}
+
+	@Override
+	public void deleteTexture(int texture) {
+		record("deleteTexture", 0, texture);
+		if (texture == 0) return;
+		this.textures.remove(texture);
+		this.textureBindings.values().removeIf(t -> t == texture);
+	}
+
+	@Override
+	public void bindTexture(int target, int texture) {
+		record("bindTexture", 0, target, texture);
+		this.textureBindings.put(textureKey(target), texture);
+	}
+
+	@Override
+	public void activeTexture(int unit) {
+		record("activeTexture", 0, unit);
+		this.activeTexture = unit;
+	}
+
+	@Override
+	public void texParameteri(int target, int parameter, int value) {
+		record("texParameteri", 0, target, parameter, value);
+	}
+
+	@Override
+	public void texImage2D(int target, int level, int internalformat, int width, int height, int border, int format, int type, int[] pixels) {
+		record("texImage2D", pixels == null ? 0 : pixels.length * 4L, target, level, internalformat, width, height, border, format, type);
+		int texture = this.textureBindings.getOrDefault(textureKey(target), 0);
+		if (texture != 0 && level == 0) this.textures.put(texture, pixels == null ? new int[width * height] : pixels.clone());
+	}
+
+	@Override
+	public void getTexImage(int target, int level, int format, int type, int[] pixels) {
+		record("getTexImage", pixels.length * 4L, target, level, format, type);
+		int[] stored = this.textures.get(this.textureBindings.getOrDefault(textureKey(target), 0));
+		if (stored != null) System.arraycopy(stored, 0, pixels, 0, Math.min(stored.length, pixels.length));
+	}
+
+	@Override
+	public int createShader(int type) {
+		int id = newId();
+		this.shaders.add(id);
+		record("createShader", 0, type, id);
+		return id;
+	}
+
+	@Override
+	public void deleteShader(int shader) {
+		record("deleteShader", 0, shader);
+		this.shaders.remove(shader);
+	}
+
+	@Override
+	public void shaderSource(int shader, String source) {
+		record("shaderSource", source.length(), shader);
+	}
+
+	@Override
+	public void compileShader(int shader) {
+		record("compileShader", 0, shader);
+	}
+
+	@Override
+	public int getShaderi(int shader, int parameter) {
+		record("getShaderi", 0, shader, parameter);
+		return parameter == GL33.GL_COMPILE_STATUS ? GL33.GL_TRUE : 0;
+	}
+
+	@Override
+	public String getShaderInfoLog(int shader) {
+		record("getShaderInfoLog", 0, shader);
+		return "";
+	}
+
+	@Override
+	public int createProgram() {
+		int id = newId();
+		this.uniformLocations.put(id, new HashMap<>());
+		this.attributeLocations.put(id, new HashMap<>());
+		record("createProgram", 0, id);
+		return id;
+	}
+
+	@Override
+	public void deleteProgram(int program) {
+		record("deleteProgram", 0, program);
+		this.uniformLocations.remove(program);
+		this.attributeLocations.remove(program);
+	}
+
+	@Override
+	public void attachShader(int program, int shader) {
+		record("attachShader", 0, program, shader);
+	}
+
+	@Override
+	public void linkProgram(int program) {
+		record("linkProgram", 0, program);
+	}
+
+	@Override
+	public void validateProgram(int program) {
+		record("validateProgram", 0, program);
+	}
+
+	@Override
+	public int getProgrami(int program, int parameter) {
+		record("getProgrami", 0, program, parameter);
+		return parameter == GL33.GL_LINK_STATUS || parameter == GL33.GL_VALIDATE_STATUS ? GL33.GL_TRUE : 0;
+	}
+
+	@Override
+	public String getProgramInfoLog(int program) {
+		record("getProgramInfoLog", 0, program);
+		return "";
+	}
+
+	@Override
+	public void useProgram(int program) {
+		record("useProgram", 0, program);
+	}
+
+	@Override
+	public void bindAttribLocation(int program, int index, String name) {
+		record("bindAttribLocation", 0, program, index, name);
+		Map<String, Integer> locations = this.attributeLocations.get(program);
+		if (locations != null) locations.put(name, index);
+	}
+
+	@Override
+	public int getAttribLocation(int program, String name) {
+		record("getAttribLocation", 0, program, name);
+		Map<String, Integer> locations = this.attributeLocations.get(program);
+		return locations == null ? -1 : locations.getOrDefault(name, -1);
+	}
+
+	@Override
+	public int getUniformLocation(int program, String name) {
+		record("getUniformLocation", 0, program, name);
+		Map<String, Integer> locations = this.uniformLocations.get(program);
+		if (locations == null) return -1;
+		return locations.computeIfAbsent(name, n -> locations.size());
+	}
+
+	@Override
+	public void enableClientState(int state) {
+		record("enableClientState", 0, state);
+	}
+
+	@Override
+	public void disableClientState(int state) {
+		record("disableClientState", 0, state);
+	}
+
+	@Override
+	public void enableVertexAttribArray(int index) {
+		record("enableVertexAttribArray", 0, index);
+	}
+
+	@Override
+	public void disableVertexAttribArray(int index) {
+		record("disableVertexAttribArray", 0, index);
+	}
+
+	@Override
+	public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset) {
+		record("vertexAttribPointer", 0, index, size, type, normalized, stride, offset);
+	}
+
+	@Override
+	public void vertexAttribIPointer(int index, int size, int type, int stride, long offset) {
+		record("vertexAttribIPointer", 0, index, size, type, stride, offset);
+	}
+
+	@Override
+	public void vertexAttribDivisor(int index, int divisor) {
+		record("vertexAttribDivisor", 0, index, divisor);
+	}
+
+	@Override
+	public void uniform1i(int location, int x) {
+		record("uniform1i", 4, location, x);
+	}
+
+	@Override
+	public void uniform1ui(int location, int x) {
+		record("uniform1ui", 4, location, x);
+	}
+
+	@Override
+	public void uniform2ui(int location, int x, int y) {
+		record("uniform2ui", 8, location, x, y);
+	}
+
+	@Override
+	public void uniform3ui(int location, int x, int y, int z) {
+		record("uniform3ui", 12, location, x, y, z);
+	}
+
+	@Override
+	public void uniform4ui(int location, int x, int y, int z, int w) {
+		record("uniform4ui", 16, location, x, y, z, w);
+	}
+
+	@Override
+	public void uniform1f(int location, float x) {
+		record("uniform1f", 4, location, x);
+	}
+
+	@Override
+	public void uniform2f(int location, float x, float y) {
+		record("uniform2f", 8, location, x, y);
+	}
+
+	@Override
+	public void uniform3f(int location, float x, float y, float z) {
+		record("uniform3f", 12, location, x, y, z);
+	}
+
+	@Override
+	public void uniform4f(int location, float x, float y, float z, float w) {
+		record("uniform4f", 16, location, x, y, z, w);
+	}
+
+	@Override
+	public void uniformMatrix3fv(int location, boolean transpose, float[] value) {
+		record("uniformMatrix3fv", value.length * 4L, location, transpose);
+	}
+
+	@Override
+	public void uniformMatrix4fv(int location, boolean transpose, float[] value) {
+		record("uniformMatrix4fv", value.length * 4L, location, transpose);
+	}
+
+	@Override
+	public int genFramebuffer() {
+		int id = newId();
+		this.framebuffers.add(id);
+		record("genFramebuffer", 0, id);
+		return id;
+	}
+
+	@Override
+	public void deleteFramebuffer(int framebuffer) {
+		record("deleteFramebuffer", 0, framebuffer);
+		this.framebuffers.remove(framebuffer);
+	}
+
+	@Override
+	public void bindFramebuffer(int target, int framebuffer) {
+		record("bindFramebuffer", 0, target, framebuffer);
+	}
+
+	@Override
+	public void framebufferTexture2D(int target, int attachment, int textureTarget, int texture, int level) {
+		record("framebufferTexture2D", 0, target, attachment, textureTarget, texture, level);
+	}
+
+	@Override
+	public int checkFramebufferStatus(int target) {
+		record("checkFramebufferStatus", 0, target);
+		return GL33.GL_FRAMEBUFFER_COMPLETE;
+	}
+
+	@Override
+	public int genQuery() {
+		int id = newId();
+		this.queries.put(id, 0L);
+		record("genQuery", 0, id);
+		return id;
+	}
+
+	@Override
+	public void deleteQuery(int query) {
+		record("deleteQuery", 0, query);
+		this.queries.remove(query);
+	}
+
+	@Override
+	public void queryCounter(int query, int target) {
+		record("queryCounter", 0, query, target);
+		if (!this.queries.containsKey(query)) throw new IllegalStateException("No query object with id " + query);
+		this.queries.put(query, System.nanoTime());
+	}
+
+	@Override
+	public int getQueryObjecti(int query, int parameter) {
+		return (int) getQueryObjecti64(query, parameter);
+	}
+
+	@Override
+	public long getQueryObjecti64(int query, int parameter) {
+		record("getQueryObject", 0, query, parameter);
+		Long result = this.queries.get(query);
+		if (result == null) throw new IllegalStateException("No query object with id " + query);
+		return parameter == GL33.GL_QUERY_RESULT_AVAILABLE ? GL33.GL_TRUE : result;
+	}
+
+}
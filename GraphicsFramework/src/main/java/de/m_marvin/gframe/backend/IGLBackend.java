@@ -0,0 +1,110 @@
+package de.m_marvin.gframe.backend;
+
+import java.nio.ByteBuffer;
+
+import de.m_marvin.gframe.GLStateManager;
+
+/**
+ * The OpenGL functions used by the {@link GLStateManager}, which dispatches all calls through the backend set by {@link GLStateManager#setBackend(IGLBackend)}.
+ * The methods correspond to the OpenGL 3.3 functions with the same name, the arguments are passed unchanged.
+ * The default backend is the {@link LWJGLBackend}, the {@link HeadlessGLBackend} allows using the framework without a GPU.
+ */
+public interface IGLBackend {
+
+	/**
+	 * Returns true if the calling thread has a context bound to it and can perform rendering operations.
+	 * @return True if a context is bound
+	 */
+	public boolean isContextCurrent();
+
+	public void clear(int mask);
+	public void flush();
+	public void drawElements(int mode, int count, int type, long indexOffset);
+	public void drawElementsInstanced(int mode, int count, int type, long indexOffset, int instances);
+	public void primitiveRestartIndex(int index);
+
+	public void enable(int target);
+	public void disable(int target);
+	public void lineWidth(float width);
+	public void pointSize(float size);
+	public void polygonOffset(float factor, float units);
+	public void viewport(int x, int y, int w, int h);
+	public void clearColor(float r, float g, float b, float a);
+	public void clearDepth(double depth);
+	public void blendFunc(int sfactor, int dfactor);
+	public void depthFunc(int func);
+	public void depthMask(boolean flag);
+
+	public int genVertexArray();
+	public void deleteVertexArray(int array);
+	public void bindVertexArray(int array);
+
+	public int genBuffer();
+	public void deleteBuffer(int buffer);
+	public void bindBuffer(int target, int buffer);
+	public void bufferData(int target, ByteBuffer data, int usage);
+	public void bufferData(int target, long size, int usage);
+	public void bufferSubData(int target, long offset, ByteBuffer data);
+	public ByteBuffer mapBufferRange(int target, long offset, long length, int access);
+	public boolean unmapBuffer(int target);
+
+	public int genTexture();
+	public void deleteTexture(int texture);
+	public void bindTexture(int target, int texture);
+	public void activeTexture(int unit);
+	public void texParameteri(int target, int parameter, int value);
+	public void texImage2D(int target, int level, int internalformat, int width, int height, int border, int format, int type, int[] pixels);
+	public void getTexImage(int target, int level, int format, int type, int[] pixels);
+
+	public int createShader(int type);
+	public void deleteShader(int shader);
+	public void shaderSource(int shader, String source);
+	public void compileShader(int shader);
+	public int getShaderi(int shader, int parameter);
+	public String getShaderInfoLog(int shader);
+
+	public int createProgram();
+	public void deleteProgram(int program);
+	public void attachShader(int program, int shader);
+	public void linkProgram(int program);
+	public void validateProgram(int program);
+	public int getProgrami(int program, int parameter);
+	public String getProgramInfoLog(int program);
+	public void useProgram(int program);
+	public void bindAttribLocation(int program, int index, String name);
+	public int getAttribLocation(int program, String name);
+	public int getUniformLocation(int program, String name);
+
+	public void enableClientState(int state);
+	public void disableClientState(int state);
+	public void enableVertexAttribArray(int index);
+	public void disableVertexAttribArray(int index);
+	public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset);
+	public void vertexAttribIPointer(int index, int size, int type, int stride, long offset);
+	public void vertexAttribDivisor(int index, int divisor);
+
+	public void uniform1i(int location, int x);
+	public void uniform1ui(int location, int x);
+	public void uniform2ui(int location, int x, int y);
+	public void uniform3ui(int location, int x, int y, int z);
+	public void uniform4ui(int location, int x, int y, int z, int w);
+	public void uniform1f(int location, float x);
+	public void uniform2f(int location, float x, float y);
+	public void uniform3f(int location, float x, float y, float z);
+	public void uniform4f(int location, float x, float y, float z, float w);
+	public void uniformMatrix3fv(int location, boolean transpose, float[] value);
+	public void uniformMatrix4fv(int location, boolean transpose, float[] value);
+
+	public int genFramebuffer();
+	public void deleteFramebuffer(int framebuffer);
+	public void bindFramebuffer(int target, int framebuffer);
+	public void framebufferTexture2D(int target, int attachment, int textureTarget, int texture, int level);
+	public int checkFramebufferStatus(int target);
+
+	public int genQuery();
+	public void deleteQuery(int query);
+	public void queryCounter(int query, int target);
+	public int getQueryObjecti(int query, int parameter);
+	public long getQueryObjecti64(int query, int parameter);
+
+}
@@ -0,0 +1,418 @@
+package de.m_marvin.gframe.backend;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GL33;
+
+/**
+ * The default backend, passing all calls to the OpenGL 3.3 functions of LWJGL.
+ */
+public class LWJGLBackend implements IGLBackend {
+
+	@Override
+	public boolean isContextCurrent() {
+		try {
+			GL.getCapabilities();
+		} catch (IllegalStateException e) {
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void clear(int mask) {
+		GL33.glClear(mask);
+	}
+
+	@Override
+	public void flush() {
+		GL33.glFlush();
+	}
+
+	@Override
+	public void drawElements(int mode, int count, int type, long indexOffset) {
+		GL33.glDrawElements(mode, count, type, indexOffset);
+	}
+
+	@Override
+	public void drawElementsInstanced(int mode, int count, int type, long indexOffset, int instances) {
+		GL33.glDrawElementsInstanced(mode, count, type, indexOffset, instances);
+	}
+
+	@Override
+	public void primitiveRestartIndex(int index) {
+		GL33.glPrimitiveRestartIndex(index);
+	}
+
+	@Override
+	public void enable(int target) {
+		GL33.glEnable(target);
+	}
+
+	@Override
+	public void disable(int target) {
+		GL33.glDisable(target);
+	}
+
+	@Override
+	public void lineWidth(float width) {
+		GL33.glLineWidth(width);
+	}
+
+	@Override
+	public void pointSize(float size) {
+		GL33.glPointSize(size);
+	}
+
+	@Override
+	public void polygonOffset(float factor, float units) {
+		GL33.glPolygonOffset(factor, units);
+	}
+
+	@Override
+	public void viewport(int x, int y, int w, int h) {
+		GL33.glViewport(x, y, w, h);
+	}
+
+	@Override
+	public void clearColor(float r, float g, float b, float a) {
+		GL33.glClearColor(r, g, b, a);
+	}
+
+	@Override
+	public void clearDepth(double depth) {
+		GL33.glClearDepth(depth);
+	}
+
+	@Override
+	public void blendFunc(int sfactor, int dfactor) {
+		GL33.glBlendFunc(sfactor, dfactor);
+	}
+
+	@Override
+	public void depthFunc(int func) {
+		GL33.glDepthFunc(func);
+	}
+
+	@Override
+	public void depthMask(boolean flag) {
+		GL33.glDepthMask(flag);
+	}
+
+	@Override
+	public int genVertexArray() {
+		return GL33.glGenVertexArrays();
+	}
+
+	@Override
+	public void deleteVertexArray(int array) {
+		GL33.glDeleteVertexArrays(array);
+	}
+
+	@Override
+	public void bindVertexArray(int array) {
+		GL33.glBindVertexArray(array);
+	}
+
+	@Override
+	public int genBuffer() {
+		return GL33.glGenBuffers();
+	}
+
+	@Override
+	public void deleteBuffer(int buffer) {
+		GL33.glDeleteBuffers(buffer);
+	}
+
+	@Override
+	public void bindBuffer(int target, int buffer) {
+		GL33.glBindBuffer(target, buffer);
+	}
+
+	@Override
+	public void bufferData(int target, ByteBuffer data, int usage) {
+		GL33.glBufferData(target, data, usage);
+	}
+
+	@Override
+	public void bufferData(int target, long size, int usage) {
+		GL33.glBufferData(target, size, usage);
+	}
+
+	@Override
+	public void bufferSubData(int target, long offset, ByteBuffer data) {
+		GL33.glBufferSubData(target, offset, data);
+	}
+
+	@Override
+	public ByteBuffer mapBufferRange(int target, long offset, long length, int access) {
+		return GL33.glMapBufferRange(target, offset, length, access);
+	}
+
+	@Override
+	public boolean unmapBuffer(int target) {
+		return GL33.glUnmapBuffer(target);
+	}
+
+	@Override
+	public int genTexture() {
+		return GL33.glGenTextures();
+	}
+
+	@Override
+	public void deleteTexture(int texture) {
+		GL33.glDeleteTextures(texture);
+	}
+
+	@Override
+	public void bindTexture(int target, int texture) {
+		GL33.glBindTexture(target, texture);
+	}
+
+	@Override
+	public void activeTexture(int unit) {
+		GL33.glActiveTexture(GL33.GL_TEXTURE0 + unit);
+	}
+
+	@Override
+	public void texParameteri(int target, int parameter, int value) {
+		GL33.glTexParameteri(target, parameter, value);
+	}
+
+	@Override
+	public void texImage2D(int target, int level, int internalformat, int width, int height, int border, int format, int type, int[] pixels) {
+		GL33.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+	}
+
+	@Override
+	public void getTexImage(int target, int level, int format, int type, int[] pixels) {
+		GL33.glGetTexImage(target, level, format, type, pixels);
+	}
+
+	@Override
+	public int createShader(int type) {
+		return GL33.glCreateShader(type);
+	}
+
+	@Override
+	public void deleteShader(int shader) {
+		GL33.glDeleteShader(shader);
+	}
+
+	@Override
+	public void shaderSource(int shader, String source) {
+		GL33.glShaderSource(shader, source);
+	}
+
+	@Override
+	public void compileShader(int shader) {
+		GL33.glCompileShader(shader);
+	}
+
+	@Override
+	public int getShaderi(int shader, int parameter) {
+		return GL33.glGetShaderi(shader, parameter);
+	}
+
+	@Override
+	public String getShaderInfoLog(int shader) {
+		return GL33.glGetShaderInfoLog(shader);
+	}
+
+	@Override
+	public int createProgram() {
+		return GL33.glCreateProgram();
+	}
+
+	@Override
+	public void deleteProgram(int program) {
+		GL33.glDeleteProgram(program);
+	}
+
+	@Override
+	public void attachShader(int program, int shader) {
+		GL33.glAttachShader(program, shader);
+	}
+
+	@Override
+	public void linkProgram(int program) {
+		GL33.glLinkProgram(program);
+	}
+
+	@Override
+	public void validateProgram(int program) {
+		GL33.glValidateProgram(program);
+	}
+
+	@Override
+	public int getProgrami(int program, int parameter) {
+		return GL33.glGetProgrami(program, parameter);
+	}
+
+	@Override
+	public String getProgramInfoLog(int program) {
+		return GL33.glGetProgramInfoLog(program);
+	}
+
+	@Override
+	public void useProgram(int program) {
+		GL33.glUseProgram(program);
+	}
+
+	@Override
+	public void bindAttribLocation(int program, int index, String name) {
+		GL33.glBindAttribLocation(program, index, name);
+	}
+
+	@Override
+	public int getAttribLocation(int program, String name) {
+		return GL33.glGetAttribLocation(program, name);
+	}
+
+	@Override
+	public int getUniformLocation(int program, String name) {
+		return GL33.glGetUniformLocation(program, name);
+	}
+
+	@Override
+	public void enableClientState(int state) {
+		GL33.glEnableClientState(state);
+	}
+
+	@Override
+	public void disableClientState(int state) {
+		GL33.glDisableClientState(state);
+	}
+
+	@Override
+	public void enableVertexAttribArray(int index) {
+		GL33.glEnableVertexAttribArray(index);
+	}
+
+	@Override
+	public void disableVertexAttribArray(int index) {
+		GL33.glDisableVertexAttribArray(index);
+	}
+
+	@Override
+	public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset) {
+		GL33.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+	}
+
+	@Override
+	public void vertexAttribIPointer(int index, int size, int type, int stride, long offset) {
+		GL33.glVertexAttribIPointer(index, size, type, stride, offset);
+	}
+
+	@Override
+	public void vertexAttribDivisor(int index, int divisor) {
+		GL33.glVertexAttribDivisor(index, divisor);
+	}
+
+	@Override
+	public void uniform1i(int location, int x) {
+		GL33.glUniform1i(location, x);
+	}
+
+	@Override
+	public void uniform1ui(int location, int x) {
+		GL33.glUniform1ui(location, x);
+	}
+
+	@Override
+	public void uniform2ui(int location, int x, int y) {
+		GL33.glUniform2ui(location, x, y);
+	}
+
+	@Override
+	public void uniform3ui(int location, int x, int y, int z) {
+		GL33.glUniform3ui(location, x, y, z);
+	}
+
+	@Override
+	public void uniform4ui(int location, int x, int y, int z, int w) {
+		GL33.glUniform4ui(location, x, y, z, w);
+	}
+
+	@Override
+	public void uniform1f(int location, float x) {
+		GL33.glUniform1f(location, x);
+	}
+
+	@Override
+	public void uniform2f(int location, float x, float y) {
+		GL33.glUniform2f(location, x, y);
+	}
+
+	@Override
+	public void uniform3f(int location, float x, float y, float z) {
+		GL33.glUniform3f(location, x, y, z);
+	}
+
+	@Override
+	public void uniform4f(int location, float x, float y, float z, float w) {
+		GL33.glUniform4f(location, x, y, z, w);
+	}
+
+	@Override
+	public void uniformMatrix3fv(int location, boolean transpose, float[] value) {
+		GL33.glUniformMatrix3fv(location, transpose, value);
+	}
+
+	@Override
+	public void uniformMatrix4fv(int location, boolean transpose, float[] value) {
+		GL33.glUniformMatrix4fv(location, transpose, value);
+	}
+
+	@Override
+	public int genFramebuffer() {
+		return GL33.glGenFramebuffers();
+	}
+
+	@Override
+	public void deleteFramebuffer(int framebuffer) {
+		GL33.glDeleteFramebuffers(framebuffer);
+	}
+
+	@Override
+	public void bindFramebuffer(int target, int framebuffer) {
+		GL33.glBindFramebuffer(target, framebuffer);
+	}
+
+	@Override
+	public void framebufferTexture2D(int target, int attachment, int textureTarget, int texture, int level) {
+		GL33.glFramebufferTexture2D(target, attachment, textureTarget, texture, level);
+	}
+
+	@Override
+	public int checkFramebufferStatus(int target) {
+		return GL33.glCheckFramebufferStatus(target);
+	}
+
+	@Override
+	public int genQuery() {
+		return GL33.glGenQueries();
+	}
+
+	@Override
+	public void deleteQuery(int query) {
+		GL33.glDeleteQueries(query);
+	}
+
+	@Override
+	public void queryCounter(int query, int target) {
+		GL33.glQueryCounter(query, target);
+	}
+
+	@Override
+	public int getQueryObjecti(int query, int parameter) {
+		return GL33.glGetQueryObjecti(query, parameter);
+	}
+
+	@Override
+	public long getQueryObjecti64(int query, int parameter) {
+		return GL33.glGetQueryObjecti64(query, parameter);
+	}
+
+}
@@ -1,40 +1,56 @@
 package de.m_marvin.gframe.buffers;
 
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.util.LinkedList;
 import java.util.Queue;
 
 import org.lwjgl.system.MemoryUtil;
 
+import de.m_marvin.gframe.profiler.RenderStatistics;
+import de.m_marvin.gframe.translation.PoseStack;
 import de.m_marvin.gframe.utility.NumberFormat;
+import de.m_marvin.gframe.utility.VertexPacking;
+import de.m_marvin.gframe.vertices.IFastVertexConsumer;
 import de.m_marvin.gframe.vertices.IVertexConsumer;
 import de.m_marvin.gframe.vertices.RenderPrimitive;
 import de.m_marvin.gframe.vertices.VertexFormat;
 import de.m_marvin.gframe.vertices.VertexFormat.VertexElement;
+import de.m_marvin.gframe.vertices.VertexWriter;
 
 /**
  * The BufferBuilder is used to create {@link VertexBuffers} by calling necessary draw methods like {@link #vertex(float, float, float)}.
  * 
  * It can store multiple data-streams for multiple VertexBuffers at the same time.
  * It can be reused after building all VertexBuffers via {@link #popNext()} or by calling {@link #discardStored()}.
+ * Besides the checked {@link IVertexConsumer} methods, whole vertices can be written without checks trough the {@link IFastVertexConsumer} methods.
+ * The {@link #normal(float, float, float)}, {@link #color(float, float, float, float)} and {@link #uv(float, float)} methods pack their values automatically if the element declares a packed or normalized integer format.
+ * If created with a {@link MemoryArena}, the memory is borrowed from the arena and handed back once all completed draws have been popped.
+ * The popped draws stay valid until the next {@link MemoryArena#tick()}, the arena does not reuse or free the memory before that.
  * @author Marvin Koehler
  *
  */
-public class BufferBuilder implements IBufferBuilder, IVertexConsumer {
+public class BufferBuilder implements IBufferBuilder, IVertexConsumer, IFastVertexConsumer {
 	
+	protected final MemoryArena arena;
+	protected final int initialBufferSize;
 	protected ByteBuffer buffer;
 	protected Queue<DrawState> drawStates;
 	protected int uploadedBytes;
 	protected int writtenBytes;
 
 	protected VertexFormat format;
+	protected VertexWriter writer;
 	protected RenderPrimitive type;
 	protected boolean building;
 	protected boolean buildingIndecies;
+	protected NumberFormat indexFormat;
+	protected boolean sharedIndecies = true;
 	protected int vertexCount;
 	protected int indexCount;
 	protected int currentElementIndex;
 	protected VertexElement currentElement;
+	protected final float[] octahedral = new float[2];
 	
 	/**
 	 * Allocates a new empty BufferBuilder with the given size in bytes.
@@ -42,18 +58,78 @@ public class BufferBuilder implements IBufferBuilder, IVertexConsumer {
 	 * @param bufferSize The size of the buffer in bytes
 	 **/
 	public BufferBuilder(int bufferSize) {
+		this.arena = null;
+		this.initialBufferSize = bufferSize;
 		this.buffer = MemoryUtil.memAlloc(bufferSize);
 		this.drawStates = new LinkedList<>();
 	}
 	
+	/**
+	 * Creates a new empty BufferBuilder that borrows its memory from the given arena.
+	 * No memory is borrowed until the first call to {@link #begin(RenderPrimitive, VertexFormat)}.
+	 * 
+	 * @param arena The arena to borrow the memory from
+	 * @param bufferSize The minimum size of the borrowed memory in bytes
+	 */
+	public BufferBuilder(MemoryArena arena, int bufferSize) {
+		this.arena = arena;
+		this.initialBufferSize = bufferSize;
+		this.drawStates = new LinkedList<>();
+	}
+	
+	/**
+	 * Returns the arena this builder borrows its memory from.
+	 * @return The arena or null if the builder owns its memory
+	 */
+	public MemoryArena getArena() {
+		return arena;
+	}
+	
+	/**
+	 * Sets whether draws without explicit indecies should use the {@link SharedIndexBuffers} instead of generating their default indecies into the buffer.
+	 * Enabled by default, consumers of the completed draws that can not handle shared indecies can disable it.
+	 * 
+	 * @param sharedIndecies true if shared indecies should be used
+	 */
+	public void setSharedIndecies(boolean sharedIndecies) {
+		this.sharedIndecies = sharedIndecies;
+	}
+	
+	/**
+	 * Returns whether draws without explicit indecies use the {@link SharedIndexBuffers}.
+	 * @return true if shared indecies are used
+	 */
+	public boolean usesSharedIndecies() {
+		return sharedIndecies;
+	}
+	
 	private void ensureCapacity(int size) {
 		if (buffer.position() + size > buffer.capacity()) {
+			if (this.arena != null) {
+				this.buffer = this.arena.grow(this.buffer, Math.max(buffer.position() + size, buffer.capacity() * 2));
+				return;
+			}
 			int currentSize = this.buffer.capacity();
 			int addedSize = roundUp(size);
 			this.buffer = MemoryUtil.memRealloc(buffer, currentSize + addedSize);
 		}
 	}
 	
+	private static int alignIndexData(int size) {
+		return (size + 3) & ~3;
+	}
+	
+	/**
+	 * Returns the smallest index format that can address all vertices of a draw with the given number of vertices.
+	 * @param vertexCount The number of vertices of the draw
+	 * @return The index format of the draw
+	 */
+	public static NumberFormat indexFormatFor(int vertexCount) {
+		if (vertexCount <= 0x100) return NumberFormat.UBYTE;
+		if (vertexCount <= 0x10000) return NumberFormat.USHORT;
+		return NumberFormat.UINT;
+	}
+	
 	private static int roundUp(int size) {
 		int i = 2097152;
 		if (size == 0) {
@@ -78,35 +154,50 @@ public class BufferBuilder implements IBufferBuilder, IVertexConsumer {
 		if (this.drawStates.isEmpty()) throw new IllegalStateException("Nothing has been drawn to the buffer!");
 		DrawState drawState = this.drawStates.poll();
 		this.buffer.position(uploadedBytes);
-		this.uploadedBytes += drawState.format().getSize() * drawState.vertices() + drawState.indecies() * NumberFormat.UINT.size();
-		this.buffer.limit(uploadedBytes);
+		this.buffer.limit(uploadedBytes + drawState.vertexBytes() + drawState.indexBytes());
+		this.uploadedBytes = alignIndexData(this.buffer.limit());
 		ByteBuffer drawBuffer = this.buffer.slice();
 		drawBuffer.order(this.buffer.order());
 		this.buffer.clear();
 		if (this.drawStates.isEmpty()) {
 			this.writtenBytes = 0;
 			this.uploadedBytes = 0;
+			if (!this.building) releaseMemory();
 		}
 		return new BufferPair(drawBuffer, drawState);	
 	}
 	
 	@Override
 	public void discardStored() {
-		this.buffer.clear();
+		if (this.buffer != null) this.buffer.clear();
 		this.uploadedBytes = 0;
+		this.writtenBytes = 0;
 		this.drawStates.clear();
 		this.vertexCount = 0;
 		this.indexCount = 0;
 		this.building = false;
+		this.buildingIndecies = false;
 		this.currentElementIndex = -1;
+		releaseMemory();
 	}
-
+	
+	/**
+	 * Returns the borrowed memory to the arena, does nothing if the builder owns its memory.
+	 */
+	protected void releaseMemory() {
+		if (this.arena != null && this.buffer != null) {
+			this.arena.release(this.buffer);
+			this.buffer = null;
+		}
+	}
+	
 	/**
 	 * Destroys this BufferBuilder and frees its allocated memory.
+	 * If the memory was borrowed from an arena, it is returned to the arena instead.
 	 */
 	public void freeMemory() {
 		discardStored();
-		MemoryUtil.memFree(buffer);
+		if (this.arena == null) MemoryUtil.memFree(buffer);
 	}
 	
 	@Override
@@ -116,10 +207,13 @@ public class BufferBuilder implements IBufferBuilder, IVertexConsumer {
 		} else {
 			this.building = true;
 			this.format = format;
+			this.writer = format.compileWriter();
 			this.type = type;
 			this.vertexCount = 0;
 			this.indexCount = 0;
+			this.indexFormat = null;
 			this.currentElementIndex = -1;
+			if (this.buffer == null) this.buffer = this.arena.allocate(this.initialBufferSize);
 			this.buffer.position(this.writtenBytes);
 		}
 	}
@@ -127,15 +221,22 @@ public class BufferBuilder implements IBufferBuilder, IVertexConsumer {
 	@Override
 	public void end() {
 		if (this.building) {
-			if (!this.buildingIndecies) {
+			boolean shared = !this.buildingIndecies && this.sharedIndecies;
+			if (shared) {
+				this.indexCount = this.type.defaultIndexCount(this.vertexCount);
+			} else if (!this.buildingIndecies) {
 				this.type.buildDefaultIndecies(this.vertexCount, this::index);
 			}
-			this.drawStates.add(new DrawState(this.vertexCount, this.indexCount, this.format, this.type));
+			if (this.indexFormat == null) this.indexFormat = indexFormatFor(this.vertexCount);
+			this.drawStates.add(new DrawState(this.vertexCount, this.indexCount, this.format, this.type, this.indexFormat, shared));
+			RenderStatistics.builtDraw(this.vertexCount);
 			this.vertexCount = 0;
 			this.indexCount = 0;
 			this.building = false;
 			this.buildingIndecies = false;
-			this.writtenBytes = buffer.position();
+			// Keep the next draw aligned after narrow index data
+			ensureCapacity(3);
+			this.writtenBytes = alignIndexData(buffer.position());
 		}
 	}
 	
@@ -282,6 +383,80 @@ public class BufferBuilder implements IBufferBuilder, IVertexConsumer {
 		return this;
 	}
 
+	/**
+	 * Writes the position transformed by the current pose of the stack directly into the buffer memory.
+	 */
+	@Override
+	public IVertexConsumer vertex(PoseStack poseStack, float x, float y, float z) {
+		nextElement();
+		if (getCurrentElement().format() != NumberFormat.FLOAT) throw new IllegalStateException("VertexFormat requires different number format!");
+		if (getCurrentElement().count() != 3) throw new IllegalStateException("VertexFormat requires different number of values!");
+		ensureCapacity(12);
+		float[] m = poseStack.getStorage();
+		int p = poseStack.poseOffset();
+		long address = MemoryUtil.memAddress(this.buffer);
+		MemoryUtil.memPutFloat(address, m[p + 0] * x + m[p + 1] * y + m[p + 2] * z + m[p + 3]);
+		MemoryUtil.memPutFloat(address + 4, m[p + 4] * x + m[p + 5] * y + m[p + 6] * z + m[p + 7]);
+		MemoryUtil.memPutFloat(address + 8, m[p + 8] * x + m[p + 9] * y + m[p + 10] * z + m[p + 11]);
+		this.buffer.position(this.buffer.position() + 12);
+		return this;
+	}
+	
+	/**
+	 * Writes up to four float components into the current element, converted to the number format of the element.
+	 * Missing components are filled with the value of w, additional components are dropped.
+	 */
+	protected void putComponents(float x, float y, float z, float w) {
+		VertexElement element = getCurrentElement();
+		switch (element.format()) {
+		case INT_2_10_10_10_REV: putInt(VertexPacking.packSnorm2101010(x, y, z, w)); return;
+		case UINT_2_10_10_10_REV: putInt(VertexPacking.packUnorm2101010(x, y, z, w)); return;
+		default:
+		}
+		for (int i = 0; i < element.count(); i++) {
+			float value = i == 0 ? x : i == 1 ? y : i == 2 ? z : w;
+			switch (element.format()) {
+			case FLOAT: this.buffer.putFloat(value); break;
+			case HALF_FLOAT: this.buffer.putShort(VertexPacking.toHalfFloat(value)); break;
+			case UBYTE: this.buffer.put(VertexPacking.unorm8(value)); break;
+			case BYTE: this.buffer.put(VertexPacking.snorm8(value)); break;
+			case USHORT: this.buffer.putShort(VertexPacking.unorm16(value)); break;
+			case SHORT: this.buffer.putShort(VertexPacking.snorm16(value)); break;
+			default: throw new IllegalStateException("VertexFormat requires different number format!");
+			}
+		}
+	}
+	
+	/**
+	 * Writes the normal in the format of the current element.
+	 * Elements with two components receive the octahedral encoding of the normal, see {@link VertexPacking#octahedralEncode(float, float, float, float[])}.
+	 */
+	@Override
+	public IVertexConsumer normal(float x, float y, float z) {
+		nextElement();
+		if (getCurrentElement().count() == 2) {
+			VertexPacking.octahedralEncode(x, y, z, this.octahedral);
+			putComponents(this.octahedral[0], this.octahedral[1], 0, 0);
+		} else {
+			putComponents(x, y, z, 0);
+		}
+		return this;
+	}
+	
+	@Override
+	public IVertexConsumer color(float r, float g, float b, float a) {
+		nextElement();
+		putComponents(r, g, b, a);
+		return this;
+	}
+	
+	@Override
+	public IVertexConsumer uv(float u, float v) {
+		nextElement();
+		putComponents(u, v, 0, 0);
+		return this;
+	}
+	
 	@Override
 	public void endVertex() {
 		if (this.currentElementIndex != this.format.getElementCount() - 1) {
@@ -295,15 +470,59 @@ public class BufferBuilder implements IBufferBuilder, IVertexConsumer {
 		ensureCapacity(this.format.getSize());
 	}
 
+	@Override
+	public VertexWriter writer() {
+		return this.writer;
+	}
+	
+	@Override
+	public long nextVertices(int count) {
+		if (!this.building) throw new IllegalStateException("Buffer not building!");
+		if (this.currentElementIndex != -1) {
+			throw new IllegalStateException("Not all elements filled!");
+		} else if (this.buildingIndecies) {
+			throw new IllegalStateException("Cant put vertices after indecies!");
+		}
+		int size = this.writer.stride() * count;
+		ensureCapacity(size);
+		long address = MemoryUtil.memAddress(this.buffer);
+		this.buffer.position(this.buffer.position() + size);
+		this.vertexCount += count;
+		return address;
+	}
+	
+	/**
+	 * Switches the builder to index mode and selects the index format based on the number of vertices written.
+	 */
+	protected void beginIndecies() {
+		if (!this.buildingIndecies) {
+			this.buildingIndecies = true;
+			this.indexFormat = indexFormatFor(this.vertexCount);
+		}
+	}
+	
+	/**
+	 * Writes an index in the current index format.
+	 * @param i The index value
+	 */
+	protected void putIndex(int i) {
+		if (i < 0 || i >= this.vertexCount) throw new IndexOutOfBoundsException("Index " + i + " out of bounds for " + this.vertexCount + " vertices!");
+		switch (this.indexFormat) {
+		case UBYTE: this.buffer.put((byte) i); break;
+		case USHORT: this.buffer.putShort((short) i); break;
+		default: this.buffer.putInt(i);
+		}
+	}
+	
 	@Override
 	public IVertexConsumer index(int i) {
 		if (!this.building) throw new IllegalStateException("Buffer not building!");
 		if (this.currentElementIndex != -1) {
 			throw new IllegalStateException("Not all elements filled!");
 		} else {
-			this.buildingIndecies = true;
-			ensureCapacity(NumberFormat.UINT.size());
-			putInt(i);
+			beginIndecies();
+			ensureCapacity(this.indexFormat.size());
+			putIndex(i);
 			this.indexCount++;
 		}
 		return this;
@@ -315,9 +534,58 @@ public class BufferBuilder implements IBufferBuilder, IVertexConsumer {
 		if (this.currentElementIndex != -1) {
 			throw new IllegalStateException("Not all elements filled!");
 		} else {
-			this.buildingIndecies = true;
-			ensureCapacity(NumberFormat.UINT.size() * i.length);
-			putIntArr(i);
+			beginIndecies();
+			ensureCapacity(this.indexFormat.size() * i.length);
+			for (int index : i) putIndex(index);
+			this.indexCount += i.length;
+		}
+		return this;
+	}
+	
+	@Override
+	public IVertexConsumer vertices(ByteBuffer vertexData) {
+		int count = vertexCountOf(vertexData.remaining());
+		long address = nextVertices(count);
+		MemoryUtil.memByteBuffer(address, vertexData.remaining()).put(vertexData.duplicate());
+		return this;
+	}
+	
+	@Override
+	public IVertexConsumer vertices(FloatBuffer vertexData) {
+		int count = vertexCountOf(vertexData.remaining() * Float.BYTES);
+		long address = nextVertices(count);
+		MemoryUtil.memFloatBuffer(address, vertexData.remaining()).put(vertexData.duplicate());
+		return this;
+	}
+	
+	@Override
+	public IVertexConsumer vertices(float[] vertexData, int offset, int length) {
+		int count = vertexCountOf(length * Float.BYTES);
+		long address = nextVertices(count);
+		MemoryUtil.memFloatBuffer(address, length).put(vertexData, offset, length);
+		return this;
+	}
+	
+	@Override
+	public VertexFormat vertexFormat() {
+		return this.building ? this.format : null;
+	}
+	
+	private int vertexCountOf(int size) {
+		if (!this.building) throw new IllegalStateException("Buffer not building!");
+		if (size % this.format.getSize() != 0) throw new IllegalArgumentException("Vertex data of " + size + " bytes does not match the vertex size of " + this.format.getSize() + " bytes!");
+		return size / this.format.getSize();
+	}
+	
+	@Override
+	public IVertexConsumer indecies(int baseVertex, int[] i) {
+		if (!this.building) throw new IllegalStateException("Buffer not building!");
+		if (this.currentElementIndex != -1) {
+			throw new IllegalStateException("Not all elements filled!");
+		} else {
+			beginIndecies();
+			ensureCapacity(this.indexFormat.size() * i.length);
+			for (int index : i) putIndex(baseVertex + index);
 			this.indexCount += i.length;
 		}
 		return this;
@@ -2,6 +2,7 @@ package de.m_marvin.gframe.buffers;
 
 import java.nio.ByteBuffer;
 
+import de.m_marvin.gframe.utility.NumberFormat;
 import de.m_marvin.gframe.vertices.RenderPrimitive;
 import de.m_marvin.gframe.vertices.VertexFormat;
 
@@ -16,14 +17,58 @@ public interface IBufferBuilder {
 	
 	/**
 	 * Represents a call to {@link IBufferBuilder#begin()} and {@link IBufferBuilder#end()} and stores the amount of vertices, indices and the format and primitive type provided to the begin-call.
+	 * The index format is the smallest format able to address all vertices of the draw, see {@link BufferBuilder#indexFormatFor(int)}.
+	 * If the draw uses shared indecies, no index data is stored in the buffer and the default indecies of the primitive are taken from the {@link SharedIndexBuffers} instead.
 	 * @author Marvin Köhler
 	 */
-	public static record DrawState(int vertices, int indecies, VertexFormat format, RenderPrimitive type) {}
+	public static record DrawState(int vertices, int indecies, VertexFormat format, RenderPrimitive type, NumberFormat indexFormat, boolean sharedIndecies) {
+		
+		public DrawState(int vertices, int indecies, VertexFormat format, RenderPrimitive type, NumberFormat indexFormat) {
+			this(vertices, indecies, format, type, indexFormat, false);
+		}
+		
+		/**
+		 * Returns the number of bytes of the vertex data.
+		 * The index data starts directly behind the vertex data.
+		 * @return The size of the vertex data in bytes
+		 */
+		public int vertexBytes() {
+			return this.vertices * this.format.getSize();
+		}
+		
+		/**
+		 * Returns the number of bytes of the index data.
+		 * @return The size of the index data in bytes, zero if the draw uses shared indecies
+		 */
+		public int indexBytes() {
+			if (this.sharedIndecies) return 0;
+			return this.indecies * this.indexFormat.size();
+		}
+		
+	}
 	/**
 	 * Packs the ByteBuffer and the DrawState returned by the {@link IBufferBuilder#popNext()} method into one item.
 	 * @author Marvin Köhler
 	 */
-	public static record BufferPair(ByteBuffer buffer, DrawState drawState) {}
+	public static record BufferPair(ByteBuffer buffer, DrawState drawState) {
+		
+		/**
+		 * Reads the index with the given number from the index data of the buffer.
+		 * For draws with shared indecies, the index is calculated from the default index pattern of the primitive.
+		 * @param n The number of the index
+		 * @return The index value
+		 */
+		public int index(int n) {
+			if (this.drawState.sharedIndecies()) return this.drawState.type().defaultIndexPattern().index(n);
+			int offset = this.drawState.vertexBytes();
+			switch (this.drawState.indexFormat()) {
+			case UBYTE: return Byte.toUnsignedInt(this.buffer.get(offset + n));
+			case USHORT: return Short.toUnsignedInt(this.buffer.getShort(offset + n * 2));
+			default: return this.buffer.getInt(offset + n * 4);
+			}
+		}
+		
+	}
 
 	/**
 	 * Starts a new vertex data-buffer to draw to.
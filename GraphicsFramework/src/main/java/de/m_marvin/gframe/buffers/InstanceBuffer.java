@@ -0,0 +1,134 @@
+package de.m_marvin.gframe.buffers;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.opengl.GL33;
+
+import de.m_marvin.gframe.GLStateManager;
+import de.m_marvin.gframe.profiler.RenderStatistics;
+import de.m_marvin.gframe.vertices.VertexFormat;
+
+/**
+ * Represents a VBO on the GPUs memory containing per-instance attributes.
+ * The attributes are described by their own {@link VertexFormat} and advance once every {@link #getDivisor()} instances instead of once per vertex.
+ *
+ * The buffer is attached to a {@link VertexBuffer} when drawing it using {@link VertexBuffer#drawInstanced(de.m_marvin.gframe.vertices.RenderPrimitive, InstanceBuffer)}.
+ * The instance attributes are bound to the attribute locations directly behind the attributes of the vertex format, see {@link de.m_marvin.gframe.shaders.ShaderInstance}.
+ * Attributes larger than four values, like matrices, have to be split up into multiple elements directly behind each other.
+ */
+public class InstanceBuffer {
+
+	protected final VertexFormat format;
+	protected final int divisor;
+	protected int bufferId;
+	protected int instances;
+	protected int capacity;
+	protected BufferUsage usage;
+
+	/**
+	 * Creates a new instance buffer with a divisor of one.
+	 * @param format The format of the per-instance attributes
+	 */
+	public InstanceBuffer(VertexFormat format) {
+		this(format, 1);
+	}
+
+	/**
+	 * Creates a new instance buffer.
+	 * @param format The format of the per-instance attributes
+	 * @param divisor The number of instances drawn before the attributes advance to the next entry
+	 */
+	public InstanceBuffer(VertexFormat format, int divisor) {
+		if (divisor < 1) throw new IllegalArgumentException("The attribute divisor has to be at least one!");
+		this.format = format;
+		this.divisor = divisor;
+	}
+
+	/**
+	 * Returns true if the VBO is initialized on the GPU.
+	 * @return True if the VBO is initialized
+	 */
+	public boolean initialized() {
+		return bufferId > 0;
+	}
+
+	/**
+	 * Discards the VBO from the GPU.
+	 * Reinitialization with {@link #upload(ByteBuffer, BufferUsage)} is possible.
+	 */
+	public void discard() {
+		GLStateManager.assertOnRenderThread();
+		GLStateManager.deleteBufferObject(this.bufferId);
+		this.bufferId = 0;
+		this.instances = 0;
+		this.capacity = 0;
+		this.usage = null;
+	}
+
+	/**
+	 * Loads the remaining content of the buffer up into the GPU.
+	 * The storage is reused and orphaned before writing if the data fits into it, since instance data usually changes every frame.
+	 *
+	 * @param data The per-instance attributes, tightly packed in the format of this buffer
+	 * @param usage The usage of the data, passed to the OpenGL functions
+	 * @throws IllegalArgumentException If the size of the data is not a multiple of the format size
+	 */
+	public void upload(ByteBuffer data, BufferUsage usage) {
+		GLStateManager.assertOnRenderThread();
+
+		int size = data.remaining();
+		if (size % this.format.getSize() != 0) throw new IllegalArgumentException("The instance data does not match the format size!");
+		if (!initialized()) this.bufferId = GLStateManager.genBufferObject();
+		this.instances = size / this.format.getSize();
+
+		GLStateManager.bindBufferObject(GL33.GL_ARRAY_BUFFER, this.bufferId);
+		if (size > this.capacity || this.usage != usage) {
+			GLStateManager.bufferData(GL33.GL_ARRAY_BUFFER, data, usage.gltype());
+			this.capacity = size;
+			this.usage = usage;
+		} else {
+			GLStateManager.bufferData(GL33.GL_ARRAY_BUFFER, this.capacity, usage.gltype());
+			if (size > 0) GLStateManager.bufferSubData(GL33.GL_ARRAY_BUFFER, 0, data);
+		}
+		GLStateManager.bindBufferObject(GL33.GL_ARRAY_BUFFER, 0);
+		RenderStatistics.upload(size);
+	}
+
+	/**
+	 * Pulls the vertex data of the next completed draw from the provided {@link IBufferBuilder} and loads it up as instance data.
+	 * The index data and the primitive of the draw are ignored, the vertex format has to match the format of this buffer.
+	 *
+	 * @param bufferBuilder The source of the instance data
+	 * @param usage The usage of the data, passed to the OpenGL functions
+	 * @throws IllegalArgumentException If the format of the draw does not match the format of this buffer
+	 */
+	public void upload(IBufferBuilder bufferBuilder, BufferUsage usage) {
+		IBufferBuilder.BufferPair pair = bufferBuilder.popNext();
+		if (!pair.drawState().format().equals(this.format)) throw new IllegalArgumentException("The draw does not match the instance format!");
+		ByteBuffer buffer = pair.buffer();
+		buffer.clear();
+		buffer.limit(pair.drawState().vertexBytes());
+		upload(buffer, usage);
+	}
+
+	public int getBufferId() {
+		return bufferId;
+	}
+
+	public VertexFormat getFormat() {
+		return format;
+	}
+
+	public int getDivisor() {
+		return divisor;
+	}
+
+	/**
+	 * Returns the number of instances the last uploaded data contains.
+	 * @return The number of instances
+	 */
+	public int getInstanceCount() {
+		return instances;
+	}
+
+}
@@ -0,0 +1,181 @@
+package de.m_marvin.gframe.buffers;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.lwjgl.system.MemoryUtil;
+
+/**
+ * A pool of native memory blocks that can be shared between multiple {@link BufferBuilder}s.
+ * The blocks are organized in power of two size classes, a builder borrows a block of the smallest class fitting its data and returns it when it has been drained.
+ *
+ * Returned blocks are neither reused nor freed immediately, since the {@link IBufferBuilder.BufferPair}s popped from a builder still reference the memory.
+ * They become available again, or are freed if the arena holds more than its high water mark, on the next call to {@link #tick()}, which should be called once per frame after all draws have been uploaded.
+ * The tick also frees blocks of size classes that have not been requested for a configurable number of ticks.
+ *
+ * All methods are thread safe.
+ */
+public class MemoryArena {
+
+	/**
+	 * The size of the smallest block class in bytes, as power of two.
+	 */
+	public static final int MIN_BLOCK_SHIFT = 12;
+	public static final int MAX_BLOCK_SHIFT = 30;
+
+	protected final long highWaterMark;
+	protected final int idleTicks;
+	protected final List<ArrayDeque<ByteBuffer>> freeBlocks;
+	protected final List<ByteBuffer> pendingBlocks;
+	protected final long[] lastRequested;
+	protected long tick;
+	protected long reservedBytes;
+	protected long usedBytes;
+	protected long peakUsedBytes;
+
+	/**
+	 * Creates a new empty arena.
+	 *
+	 * @param highWaterMark The maximum number of reserved bytes up to which returned blocks are kept for reuse, blocks returned above this limit are freed on the next tick
+	 * @param idleTicks The number of ticks after which unused blocks of a size class that was not requested are freed, zero to never free idle blocks
+	 */
+	public MemoryArena(long highWaterMark, int idleTicks) {
+		this.highWaterMark = highWaterMark;
+		this.idleTicks = idleTicks;
+		this.freeBlocks = new ArrayList<>();
+		for (int i = MIN_BLOCK_SHIFT; i <= MAX_BLOCK_SHIFT; i++) this.freeBlocks.add(new ArrayDeque<>());
+		this.pendingBlocks = new ArrayList<>();
+		this.lastRequested = new long[this.freeBlocks.size()];
+	}
+
+	/**
+	 * Returns the size class able to hold the given number of bytes.
+	 * @param size The number of bytes
+	 * @return The index of the size class
+	 */
+	protected static int sizeClass(int size) {
+		int shift = Math.max(MIN_BLOCK_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(size, 1) - 1));
+		if (shift > MAX_BLOCK_SHIFT) throw new IllegalArgumentException("Block size " + size + " exceeds the maximum block size!");
+		return shift - MIN_BLOCK_SHIFT;
+	}
+
+	/**
+	 * Borrows a block with at least the given size from the arena.
+	 * The block has to be returned using {@link #release(ByteBuffer)}, it must not be freed directly.
+	 *
+	 * @param size The minimum size of the block in bytes
+	 * @return A cleared block of native memory
+	 */
+	public synchronized ByteBuffer allocate(int size) {
+		int sizeClass = sizeClass(size);
+		this.lastRequested[sizeClass] = this.tick;
+		ByteBuffer block = this.freeBlocks.get(sizeClass).poll();
+		if (block == null) {
+			block = MemoryUtil.memAlloc(1 << (sizeClass + MIN_BLOCK_SHIFT));
+			this.reservedBytes += block.capacity();
+		}
+		this.usedBytes += block.capacity();
+		this.peakUsedBytes = Math.max(this.peakUsedBytes, this.usedBytes);
+		return block.clear();
+	}
+
+	/**
+	 * Borrows a larger block and copies the content up to the position of the given block into it.
+	 * The old block is returned to the arena.
+	 *
+	 * @param block The block to grow
+	 * @param size The minimum size of the new block
+	 * @return The new block with the same position as the old one
+	 */
+	public synchronized ByteBuffer grow(ByteBuffer block, int size) {
+		ByteBuffer newBlock = allocate(size);
+		MemoryUtil.memCopy(MemoryUtil.memAddress0(block), MemoryUtil.memAddress0(newBlock), block.position());
+		newBlock.position(block.position());
+		release(block);
+		return newBlock;
+	}
+
+	/**
+	 * Returns a block to the arena.
+	 * The block is never reused or freed immediately, since popped draws may still reference it.
+	 * It becomes available for reuse on the next {@link #tick()}, or gets freed there if the arena holds more than the high water mark.
+	 *
+	 * @param block The block previously borrowed from this arena
+	 */
+	public synchronized void release(ByteBuffer block) {
+		this.usedBytes -= block.capacity();
+		this.pendingBlocks.add(block);
+	}
+
+	/**
+	 * Makes the blocks returned since the last tick available for reuse and frees the blocks of size classes that have been idle for to long.
+	 * Returned blocks are freed instead of kept for reuse as long as the arena holds more than the high water mark.
+	 * Should be called once per frame after all draws have been uploaded, the draws popped before the tick must not be used afterwards.
+	 */
+	public synchronized void tick() {
+		this.tick++;
+		for (ByteBuffer block : this.pendingBlocks) {
+			if (this.reservedBytes > this.highWaterMark) {
+				this.reservedBytes -= block.capacity();
+				MemoryUtil.memFree(block);
+			} else {
+				this.freeBlocks.get(sizeClass(block.capacity())).add(block);
+			}
+		}
+		this.pendingBlocks.clear();
+		if (this.idleTicks > 0) {
+			for (int i = 0; i < this.freeBlocks.size(); i++) {
+				if (this.tick - this.lastRequested[i] > this.idleTicks) freeAll(this.freeBlocks.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Frees all blocks that are currently not borrowed.
+	 * Blocks returned since the last tick are freed too, so this must not be called while popped draws are still in use.
+	 */
+	public synchronized void trim() {
+		this.freeBlocks.forEach(this::freeAll);
+		freeAll(this.pendingBlocks);
+	}
+
+	protected void freeAll(Collection<ByteBuffer> blocks) {
+		for (ByteBuffer block : blocks) {
+			this.reservedBytes -= block.capacity();
+			MemoryUtil.memFree(block);
+		}
+		blocks.clear();
+	}
+
+	/**
+	 * Returns the number of bytes allocated by this arena, including the blocks waiting for reuse.
+	 * @return The reserved native memory in bytes
+	 */
+	public synchronized long getReservedBytes() {
+		return reservedBytes;
+	}
+
+	/**
+	 * Returns the number of bytes currently borrowed by builders.
+	 * @return The used native memory in bytes
+	 */
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+
+	/**
+	 * Returns the highest number of bytes borrowed at the same time since the creation of the arena.
+	 * @return The peak of the used native memory in bytes
+	 */
+	public synchronized long getPeakUsedBytes() {
+		return peakUsedBytes;
+	}
+
+	public long getHighWaterMark() {
+		return highWaterMark;
+	}
+
+}
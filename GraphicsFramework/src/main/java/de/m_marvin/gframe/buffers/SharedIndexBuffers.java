@@ -0,0 +1,87 @@
+package de.m_marvin.gframe.buffers;
+
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.lwjgl.opengl.GL33;
+import org.lwjgl.system.MemoryUtil;
+
+import de.m_marvin.gframe.GLStateManager;
+import de.m_marvin.gframe.utility.NumberFormat;
+import de.m_marvin.gframe.vertices.IndexPattern;
+
+/**
+ * Holds the index buffers on the GPU that are shared between all {@link VertexBuffer}s drawing with default indecies.
+ * There is one buffer per {@link IndexPattern} and index format, which is grown on demand if a draw requires more vertices than the buffer currently covers.
+ * Since the buffers are only regrown and never replaced, VAOs referencing them stay valid.
+ *
+ * The buffers belong to the OpenGL context they were created in, {@link #discard()} has to be called before destroying the context.
+ */
+public class SharedIndexBuffers {
+
+	protected static final Map<IndexPattern, Map<NumberFormat, SharedIndexBuffer>> BUFFERS = new EnumMap<>(IndexPattern.class);
+
+	protected static class SharedIndexBuffer {
+
+		protected int bufferId;
+		protected int vertexCapacity;
+
+	}
+
+	private SharedIndexBuffers() {}
+
+	/**
+	 * Binds the shared index buffer of the given pattern and format as element array buffer.
+	 * If the buffer does not yet cover the given number of vertices, it is grown first.
+	 * When called with a VAO bound, the buffer gets attached to the VAO.
+	 *
+	 * @param pattern The pattern of the indecies
+	 * @param format The index format
+	 * @param vertexCount The number of vertices that have to be addressable by the buffer
+	 * @return The id of the shared buffer
+	 */
+	public static int bind(IndexPattern pattern, NumberFormat format, int vertexCount) {
+		GLStateManager.assertOnRenderThread();
+		SharedIndexBuffer buffer = BUFFERS.computeIfAbsent(pattern, p -> new EnumMap<>(NumberFormat.class)).computeIfAbsent(format, f -> new SharedIndexBuffer());
+		if (buffer.bufferId == 0) buffer.bufferId = GLStateManager.genBufferObject();
+		GLStateManager.bindBufferObject(GL33.GL_ELEMENT_ARRAY_BUFFER, buffer.bufferId);
+		if (buffer.vertexCapacity < vertexCount) {
+			int capacity = Math.max(vertexCount, Math.min(Math.max(buffer.vertexCapacity * 2, 1024), maxVertices(format)));
+			capacity += (pattern.vertexGroup() - capacity % pattern.vertexGroup()) % pattern.vertexGroup();
+			int indecies = pattern.indexCount(capacity);
+			ByteBuffer data = MemoryUtil.memAlloc(indecies * format.size());
+			for (int i = 0; i < indecies; i++) {
+				switch (format) {
+				case UBYTE: data.put((byte) pattern.index(i)); break;
+				case USHORT: data.putShort((short) pattern.index(i)); break;
+				default: data.putInt(pattern.index(i));
+				}
+			}
+			data.flip();
+			GLStateManager.bufferData(GL33.GL_ELEMENT_ARRAY_BUFFER, data, BufferUsage.STATIC.gltype());
+			MemoryUtil.memFree(data);
+			buffer.vertexCapacity = capacity;
+		}
+		return buffer.bufferId;
+	}
+
+	private static int maxVertices(NumberFormat format) {
+		switch (format) {
+		case UBYTE: return 0x100;
+		case USHORT: return 0x10000;
+		default: return Integer.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * Deletes all shared index buffers from the GPU.
+	 * VertexBuffers using them have to be re-uploaded after this call.
+	 */
+	public static void discard() {
+		GLStateManager.assertOnRenderThread();
+		BUFFERS.values().forEach(buffers -> buffers.values().forEach(buffer -> GLStateManager.deleteBufferObject(buffer.bufferId)));
+		BUFFERS.clear();
+	}
+
+}
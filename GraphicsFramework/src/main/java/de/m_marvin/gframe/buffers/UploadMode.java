@@ -0,0 +1,27 @@
+package de.m_marvin.gframe.buffers;
+
+/**
+ * Enum representing the strategies a {@link VertexBuffer} can use to transfer new data into its buffers on the GPU.
+ */
+public enum UploadMode {
+
+	/**
+	 * Reallocates the storage of the buffers on every upload.
+	 */
+	REALLOCATE,
+	/**
+	 * Keeps the storage of the buffers and overwrites it if the new data fits into it, the storage is only reallocated if it is to small.
+	 */
+	SUB_DATA,
+	/**
+	 * Like {@link #SUB_DATA}, but orphans the previous storage before writing the new data.
+	 * The driver can provide fresh memory instead of waiting until the GPU finished reading the old data, recommended for {@link BufferUsage#STREAM} data.
+	 */
+	ORPHAN,
+	/**
+	 * Appends the new data behind the previously uploaded data by mapping the free range of the buffers without synchronization.
+	 * The storage is only orphaned when the end of the buffer is reached, recommended for geometry that is rebuild every frame.
+	 */
+	RING;
+
+}
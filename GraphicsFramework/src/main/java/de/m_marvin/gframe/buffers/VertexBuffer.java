@@ -3,10 +3,14 @@ package de.m_marvin.gframe.buffers;
 import java.nio.ByteBuffer;
 
 import org.lwjgl.opengl.GL33;
+import org.lwjgl.system.MemoryUtil;
 
 import de.m_marvin.gframe.GLStateManager;
+import de.m_marvin.gframe.profiler.RenderStatistics;
 import de.m_marvin.gframe.utility.NumberFormat;
 import de.m_marvin.gframe.vertices.RenderPrimitive;
+import de.m_marvin.gframe.vertices.VertexFormat;
+import de.m_marvin.gframe.vertices.VertexFormat.VertexElement;
 
 /**
  * Represents a VAO on the GPUs memory.
@@ -14,6 +18,8 @@ import de.m_marvin.gframe.vertices.RenderPrimitive;
  * 
  * Can be used multiple times after its creation.
  * Can also be rewritten with new vertex and index data using {@link #upload(IBufferBuilder, BufferUsage)}.
+ * Draws without explicit indecies reference the {@link SharedIndexBuffers} instead of uploading own index data.
+ * How the data is transferred to the GPU is controlled by the {@link UploadMode}, see {@link #setUploadMode(UploadMode)}.
  * 
  * @author Marvin Köhler
  *
@@ -25,6 +31,58 @@ public class VertexBuffer {
 	protected int indexBufferId;
 	protected int indecies;
 	protected int vertices;
+	protected NumberFormat indexFormat = NumberFormat.UINT;
+	protected long indexOffset;
+	protected UploadMode uploadMode = UploadMode.SUB_DATA;
+	protected BufferStorage vertexStorage = new BufferStorage();
+	protected BufferStorage indexStorage = new BufferStorage();
+	protected VertexFormat boundFormat;
+	protected long boundVertexOffset;
+	protected InstanceBuffer boundInstances;
+	protected int boundInstanceBufferId;
+	protected boolean primitiveRestart;
+	
+	/**
+	 * The number of uploads of the largest size seen so far a ring buffer is able to hold before it wraps around.
+	 */
+	public static final int RING_SEGMENTS = 3;
+	
+	/**
+	 * Keeps track of the storage allocated for one of the buffers on the GPU.
+	 */
+	protected static class BufferStorage {
+		
+		protected int capacity;
+		protected int head;
+		protected BufferUsage usage;
+		
+		protected void reset() {
+			this.capacity = 0;
+			this.head = 0;
+			this.usage = null;
+		}
+		
+	}
+	
+	/**
+	 * Sets the strategy used to transfer the data to the GPU on the following uploads.
+	 * The already allocated storage is kept if possible.
+	 * 
+	 * @param uploadMode The upload mode
+	 */
+	public void setUploadMode(UploadMode uploadMode) {
+		this.uploadMode = uploadMode;
+		this.vertexStorage.head = this.vertexStorage.capacity;
+		this.indexStorage.head = this.indexStorage.capacity;
+	}
+	
+	/**
+	 * Returns the strategy used to transfer the data to the GPU.
+	 * @return The upload mode
+	 */
+	public UploadMode getUploadMode() {
+		return uploadMode;
+	}
 	
 	/**
 	 * Returns true if the VAO is initialized (VAO and VBOs created on GPU).
@@ -50,6 +108,12 @@ public class VertexBuffer {
 		this.vertexBufferId = 0;
 		this.arrayObjectId = 0;
 		this.indexBufferId = 0;
+		this.vertexStorage.reset();
+		this.indexStorage.reset();
+		this.boundFormat = null;
+		this.boundVertexOffset = 0;
+		this.boundInstances = null;
+		this.primitiveRestart = false;
 	}
 	
 	/**
@@ -72,35 +136,172 @@ public class VertexBuffer {
 	 * @param usage The usage of the data, passed to the OpenGL functions
 	 */
 	public void upload(IBufferBuilder bufferBuilder, BufferUsage usage) {
+		upload(bufferBuilder.popNext(), usage);
+	}
+	
+	/**
+	 * Loads the vertex data of an already popped draw up into the GPU.
+	 * The usage parameter is passed to the OpenGL functions to decide where on the GPU the best place to store the data is.
+	 * The VAO and vertex buffer stay bound after the upload, so that a following {@link #bind()} does not cause another state change.
+	 * 
+	 * @param pair The vertex and index data and its draw state
+	 * @param usage The usage of the data, passed to the OpenGL functions
+	 */
+	public void upload(IBufferBuilder.BufferPair pair, BufferUsage usage) {
 		GLStateManager.assertOnRenderThread();
 		
 		if (!initialized()) initialize();
-		IBufferBuilder.BufferPair pair = bufferBuilder.popNext();
 		IBufferBuilder.DrawState drawState = pair.drawState();
 		this.indecies = drawState.indecies();
 		this.vertices = drawState.vertices();
+		this.indexFormat = drawState.indexFormat();
+		this.primitiveRestart = !drawState.sharedIndecies() && drawState.type().isStrip() && Integer.compareUnsigned(this.vertices, this.indexFormat.restartIndex()) <= 0;
 		
 		bind();
 		
 		ByteBuffer buffer = pair.buffer();
 		buffer.clear();
-		buffer.limit(this.vertices * drawState.format().getSize());
+		buffer.limit(drawState.vertexBytes());
 		GLStateManager.bindBufferObject(GL33.GL_ARRAY_BUFFER, vertexBufferId);
-		GLStateManager.bufferData(GL33.GL_ARRAY_BUFFER, buffer, usage.gltype());
-		drawState.format().getElements().forEach((element) -> {
-			GLStateManager.attributePointer(element.index(), element.count(), element.format().gltype(), element.normalize(), drawState.format().getSize(), element.offset());
-			GLStateManager.enableAttributeArray(element.index());
-		});
+		long vertexOffset = writeData(GL33.GL_ARRAY_BUFFER, this.vertexStorage, buffer, usage);
+		setupAttributes(drawState.format(), vertexOffset);
 		
-		buffer.position(buffer.limit());
-		buffer.limit(buffer.limit() + drawState.indecies() * indecieFormat().size());
-		GLStateManager.bindBufferObject(GL33.GL_ELEMENT_ARRAY_BUFFER, indexBufferId);
-		GLStateManager.bufferData(GL33.GL_ELEMENT_ARRAY_BUFFER, buffer, usage.gltype());
+		if (drawState.sharedIndecies()) {
+			SharedIndexBuffers.bind(drawState.type().defaultIndexPattern(), this.indexFormat, this.vertices);
+			this.indexOffset = 0;
+		} else {
+			buffer.position(buffer.limit());
+			buffer.limit(buffer.limit() + drawState.indexBytes());
+			GLStateManager.bindBufferObject(GL33.GL_ELEMENT_ARRAY_BUFFER, indexBufferId);
+			this.indexOffset = writeData(GL33.GL_ELEMENT_ARRAY_BUFFER, this.indexStorage, buffer, usage);
+		}
+		RenderStatistics.upload(drawState.vertexBytes() + (drawState.sharedIndecies() ? 0 : drawState.indexBytes()));
 		
+	}
+	
+	/**
+	 * Configures the attribute pointers of the VAO for the format, the VAO and the vertex buffer have to be bound.
+	 * Since {@link VertexFormat}s are interned, the setup is skipped if the VAO is already configured for the same format at the same offset.
+	 * 
+	 * @param format The format of the vertex data
+	 * @param vertexOffset The byte offset of the vertex data in the buffer
+	 */
+	protected void setupAttributes(VertexFormat format, long vertexOffset) {
+		if (format == this.boundFormat && vertexOffset == this.boundVertexOffset) return;
+		detachInstances();
+		if (this.boundFormat != null) {
+			for (int i = format.getElementCount(); i < this.boundFormat.getElementCount(); i++) GLStateManager.disableAttributeArray(i);
+		}
+		for (VertexElement element : format.getElements()) {
+			GLStateManager.attributePointer(element.index(), element.count(), element.format().gltype(), element.normalize(), format.getSize(), vertexOffset + element.offset());
+			if (this.boundFormat == null || element.index() >= this.boundFormat.getElementCount()) GLStateManager.enableAttributeArray(element.index());
+		}
+		this.boundFormat = format;
+		this.boundVertexOffset = vertexOffset;
+	}
+	
+	/**
+	 * Configures the VAO to read the per-instance attributes from the instance buffer, the VAO has to be bound.
+	 * The instance attributes are placed at the attribute locations directly behind the vertex attributes.
+	 * The setup is skipped if the instance buffer is already attached.
+	 * 
+	 * @param instances The instance buffer to attach
+	 * @throws IllegalStateException If no vertex data was uploaded yet
+	 */
+	protected void attachInstances(InstanceBuffer instances) {
+		if (instances == this.boundInstances && instances.getBufferId() == this.boundInstanceBufferId) return;
+		if (this.boundFormat == null) throw new IllegalStateException("Can't attach instances to a VertexBuffer without vertex data!");
+		detachInstances();
+		int baseLocation = this.boundFormat.getElementCount();
+		VertexFormat format = instances.getFormat();
+		GLStateManager.bindBufferObject(GL33.GL_ARRAY_BUFFER, instances.getBufferId());
+		for (VertexElement element : format.getElements()) {
+			GLStateManager.attributePointer(baseLocation + element.index(), element.count(), element.format().gltype(), element.normalize(), format.getSize(), element.offset());
+			GLStateManager.attributeDivisor(baseLocation + element.index(), instances.getDivisor());
+			GLStateManager.enableAttributeArray(baseLocation + element.index());
+		}
 		GLStateManager.bindBufferObject(GL33.GL_ARRAY_BUFFER, 0);
-		
-		unbind();
-		
+		this.boundInstances = instances;
+		this.boundInstanceBufferId = instances.getBufferId();
+	}
+	
+	/**
+	 * Removes the per-instance attributes of the currently attached instance buffer from the VAO, the VAO has to be bound.
+	 */
+	protected void detachInstances() {
+		if (this.boundInstances == null) return;
+		int baseLocation = this.boundFormat.getElementCount();
+		for (int i = 0; i < this.boundInstances.getFormat().getElementCount(); i++) {
+			GLStateManager.attributeDivisor(baseLocation + i, 0);
+			GLStateManager.disableAttributeArray(baseLocation + i);
+		}
+		this.boundInstances = null;
+	}
+	
+	/**
+	 * Returns the vertex format the VAO is currently configured for.
+	 * @return The format of the last uploaded data or null if nothing was uploaded yet
+	 */
+	public VertexFormat getFormat() {
+		return boundFormat;
+	}
+	
+	/**
+	 * Transfers the remaining content of the data buffer into the buffer currently bound to the target, using the current {@link UploadMode}.
+	 * 
+	 * @param target The target the GPU buffer is bound to
+	 * @param storage The storage information of the GPU buffer
+	 * @param data The data to transfer
+	 * @param usage The usage of the data, passed to the OpenGL functions
+	 * @return The byte offset of the data in the GPU buffer
+	 */
+	protected long writeData(int target, BufferStorage storage, ByteBuffer data, BufferUsage usage) {
+		int size = data.remaining();
+		switch (this.uploadMode) {
+		case REALLOCATE:
+			GLStateManager.bufferData(target, data, usage.gltype());
+			storage.capacity = size;
+			storage.usage = usage;
+			return 0;
+		case SUB_DATA:
+		case ORPHAN:
+			if (size > storage.capacity || storage.usage != usage) {
+				GLStateManager.bufferData(target, data, usage.gltype());
+				storage.capacity = size;
+				storage.usage = usage;
+			} else {
+				if (this.uploadMode == UploadMode.ORPHAN) GLStateManager.bufferData(target, storage.capacity, usage.gltype());
+				if (size > 0) GLStateManager.bufferSubData(target, 0, data);
+			}
+			return 0;
+		case RING:
+			if (size == 0) return 0;
+			int access = GL33.GL_MAP_WRITE_BIT | GL33.GL_MAP_UNSYNCHRONIZED_BIT | GL33.GL_MAP_INVALIDATE_RANGE_BIT;
+			if (size * RING_SEGMENTS > storage.capacity || storage.usage != usage) {
+				storage.capacity = Math.max(size * RING_SEGMENTS, storage.capacity);
+				storage.usage = usage;
+				storage.head = 0;
+				GLStateManager.bufferData(target, storage.capacity, usage.gltype());
+			} else if (storage.head + size > storage.capacity) {
+				// Orphan the whole storage when wrapping around, the GPU may still read the old data
+				storage.head = 0;
+				access |= GL33.GL_MAP_INVALIDATE_BUFFER_BIT;
+			}
+			int offset = storage.head;
+			ByteBuffer mapped = GLStateManager.mapBufferRange(target, offset, size, access);
+			if (mapped == null) throw new IllegalStateException("Failed to map GPU buffer for upload!");
+			MemoryUtil.memCopy(MemoryUtil.memAddress(data), MemoryUtil.memAddress(mapped), size);
+			if (!GLStateManager.unmapBuffer(target)) {
+				// The content of the storage got lost, rewrite the data and start over on the next upload
+				GLStateManager.bufferSubData(target, offset, data);
+				storage.head = storage.capacity;
+				return offset;
+			}
+			storage.head = (offset + size + 15) & ~15;
+			return offset;
+		default:
+			throw new IllegalStateException("Unknown upload mode " + this.uploadMode);
+		}
 	}
 	
 	/**
@@ -119,11 +320,11 @@ public class VertexBuffer {
 	}
 	
 	/**
-	 * Returns the supported index-data format.
-	 * The format of this implementation is {@link NumberFormat.UINT}.
+	 * Returns the index-data format of the last uploaded data.
+	 * The format is selected by the {@link BufferBuilder} based on the number of vertices, see {@link BufferBuilder#indexFormatFor(int)}.
 	 **/
 	public NumberFormat indecieFormat() {
-		return NumberFormat.UINT;
+		return this.indexFormat;
 	}
 	
 	/**
@@ -132,7 +333,53 @@ public class VertexBuffer {
 	 * @param mode The geometry primitive drawn using the data in the currently bound VAO.
 	 */
 	public void drawAll(RenderPrimitive mode) {
-		GLStateManager.drawElements(mode.getgltype(), indecies, indecieFormat().gltype());
+		if (this.primitiveRestart) beginPrimitiveRestart();
+		GLStateManager.drawElements(mode.getgltype(), indecies, indecieFormat().gltype(), indexOffset);
+		RenderStatistics.draw(this.vertices, this.indecies, 1);
+		if (this.primitiveRestart) GLStateManager.disable(GL33.GL_PRIMITIVE_RESTART);
+	}
+	
+	/**
+	 * Returns true if the last uploaded data is drawn with primitive restart enabled.
+	 * This is the case for strip primitives with explicit indecies, if the restart index of the index format can not be the index of a vertex, see {@link NumberFormat#restartIndex()}.
+	 * @return True if the restart index splits the index data into multiple strips
+	 */
+	public boolean usesPrimitiveRestart() {
+		return primitiveRestart;
+	}
+	
+	protected void beginPrimitiveRestart() {
+		GLStateManager.enable(GL33.GL_PRIMITIVE_RESTART);
+		GLStateManager.primitiveRestartIndex(this.indexFormat.restartIndex());
+	}
+	
+	/**
+	 * Draws the content of this VertexBuffer multiple times using a single draw call.
+	 * The per-instance attributes are read from the instance buffer, which gets attached to the VAO if it is not already.
+	 * This VertexBuffer has to be bound.
+	 * 
+	 * @param mode The geometry primitive drawn using the data in the VAO
+	 * @param instances The buffer containing the per-instance attributes, all of its instances are drawn
+	 */
+	public void drawInstanced(RenderPrimitive mode, InstanceBuffer instances) {
+		attachInstances(instances);
+		drawInstanced(mode, instances.getInstanceCount() * instances.getDivisor());
+	}
+	
+	/**
+	 * Draws the content of the currently bound VertexBuffer multiple times using a single draw call.
+	 * Per-instance attributes are taken from the instance buffer last attached to the VAO, if any.
+	 * @implNote It does not matter on which VertexBuffer instance the method is called, only the buffer currently bound will be drawn.
+	 * 
+	 * @param mode The geometry primitive drawn using the data in the currently bound VAO
+	 * @param count The number of instances to draw
+	 */
+	public void drawInstanced(RenderPrimitive mode, int count) {
+		if (count <= 0) return;
+		if (this.primitiveRestart) beginPrimitiveRestart();
+		GLStateManager.drawElementsInstanced(mode.getgltype(), indecies, indecieFormat().gltype(), indexOffset, count);
+		RenderStatistics.draw(this.vertices, this.indecies, count);
+		if (this.primitiveRestart) GLStateManager.disable(GL33.GL_PRIMITIVE_RESTART);
 	}
 	
 }
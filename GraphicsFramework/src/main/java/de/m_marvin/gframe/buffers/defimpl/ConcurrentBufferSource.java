@@ -0,0 +1,253 @@
+package de.m_marvin.gframe.buffers.defimpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.m_marvin.gframe.buffers.BufferBuilder;
+import de.m_marvin.gframe.buffers.IBufferBuilder;
+import de.m_marvin.gframe.buffers.IBufferSource;
+import de.m_marvin.gframe.buffers.MemoryArena;
+import de.m_marvin.gframe.buffers.VertexBuffer;
+import de.m_marvin.gframe.vertices.RenderPrimitive;
+import de.m_marvin.gframe.vertices.VertexFormat;
+
+/**
+ * A {@link IBufferSource} that can be used from multiple threads at the same time.
+ * Each worker gets its own {@link BufferBuilder} for every render mode, so geometry can be generated in parallel without any synchronization on the builders.
+ *
+ * After all workers have finished their draws, the outputs of the workers can be consumed as one stream via {@link #chain(IRenderMode)} or combined into a single draw via {@link #merge(IRenderMode, BufferBuilder)}.
+ * The outputs are always ordered by the worker index, so the result does not depend on the thread scheduling if the workers are bound to fixed indices using {@link #bindWorker(int)}.
+ * Threads that are not bound to an index get one assigned in the order of their first access.
+ */
+public class ConcurrentBufferSource<RM extends IRenderMode> implements IBufferSource<RM> {
+
+	protected final int initialBufferSize;
+	protected final MemoryArena arena;
+	protected final ConcurrentSkipListMap<Integer, Map<RM, BufferBuilder>> workerBuffers;
+	protected final ThreadLocal<Integer> workerIndex;
+	protected final Set<Integer> reservedIndecies;
+	protected final AtomicInteger nextWorkerIndex;
+
+	public ConcurrentBufferSource(int initialBufferSize) {
+		this(null, initialBufferSize);
+	}
+
+	/**
+	 * Creates a buffer source whose worker buffers borrow their memory from the given arena.
+	 * @param arena The arena shared by the buffers, or null if each buffer should own its memory
+	 * @param initialBufferSize The initial size of the buffers in bytes
+	 */
+	public ConcurrentBufferSource(MemoryArena arena, int initialBufferSize) {
+		this.initialBufferSize = initialBufferSize;
+		this.arena = arena;
+		this.workerBuffers = new ConcurrentSkipListMap<>();
+		this.nextWorkerIndex = new AtomicInteger(0);
+		this.workerIndex = new ThreadLocal<>();
+		this.reservedIndecies = ConcurrentHashMap.newKeySet();
+	}
+
+	/**
+	 * Binds the calling thread to the worker with the given index.
+	 * All following calls to {@link #getBuffer(IRenderMode)} and {@link #startBuffer(IRenderMode)} of this thread return the buffers of this worker.
+	 * The index determines the position of the workers output in {@link #chain(IRenderMode)} and {@link #merge(IRenderMode, BufferBuilder)}.
+	 * The index stays reserved for the thread until it calls {@link #unbindWorker()} or binds to an other index, this includes indices assigned automatically on the first access.
+	 *
+	 * @param index The worker index
+	 * @throws IllegalStateException If the index is already reserved by an other thread
+	 */
+	public void bindWorker(int index) {
+		Integer current = this.workerIndex.get();
+		if (current != null && current == index) return;
+		if (!this.reservedIndecies.add(index))
+			throw new IllegalStateException("The worker index " + index + " is already bound to an other thread!");
+		if (current != null) this.reservedIndecies.remove(current);
+		this.workerIndex.set(index);
+	}
+
+	/**
+	 * Unbinds the calling thread from its worker index and releases the index.
+	 * The buffers of the worker are kept, so the output of the worker is still included in {@link #chain(IRenderMode)} and {@link #merge(IRenderMode, BufferBuilder)}.
+	 */
+	public void unbindWorker() {
+		Integer current = this.workerIndex.get();
+		if (current == null) return;
+		this.reservedIndecies.remove(current);
+		this.workerIndex.remove();
+	}
+
+	protected Map<RM, BufferBuilder> getWorkerBuffers() {
+		Integer index = this.workerIndex.get();
+		if (index == null) {
+			index = this.nextWorkerIndex.getAndIncrement();
+			while (!this.reservedIndecies.add(index)) index = this.nextWorkerIndex.getAndIncrement();
+			this.workerIndex.set(index);
+		}
+		return this.workerBuffers.computeIfAbsent(index, i -> new HashMap<>());
+	}
+
+	@Override
+	public BufferBuilder getBuffer(RM renderLayer) {
+		Map<RM, BufferBuilder> buffers = getWorkerBuffers();
+		BufferBuilder buffer = buffers.get(renderLayer);
+		if (buffer == null) {
+			buffer = this.arena != null ? new BufferBuilder(this.arena, initialBufferSize) : new BufferBuilder(initialBufferSize);
+			buffers.put(renderLayer, buffer);
+		}
+		return buffer;
+	}
+
+	@Override
+	public BufferBuilder startBuffer(RM renderLayer) {
+		BufferBuilder buffer = getBuffer(renderLayer);
+		if (!buffer.isBuilding())
+			buffer.begin(renderLayer.primitive(), renderLayer.vertexFormat());
+		return buffer;
+	}
+
+	/**
+	 * Returns the buffers of all workers for the given render mode ordered by the worker index.
+	 * @param renderLayer The render mode
+	 * @return A list of the buffers of all workers that used the render mode
+	 */
+	public List<BufferBuilder> getWorkerBuffers(RM renderLayer) {
+		List<BufferBuilder> buffers = new ArrayList<>();
+		for (Map<RM, BufferBuilder> worker : this.workerBuffers.values()) {
+			BufferBuilder buffer = worker.get(renderLayer);
+			if (buffer != null) buffers.add(buffer);
+		}
+		return buffers;
+	}
+
+	/**
+	 * Returns an {@link IBufferBuilder} that provides the completed draws of all workers for the given render mode ordered by the worker index.
+	 * The draws are not copied, they are popped from the buffers of the workers when calling {@link IBufferBuilder#popNext()} on the returned builder.
+	 * The returned builder can directly be passed to {@link VertexBuffer#upload(IBufferBuilder, de.m_marvin.gframe.buffers.BufferUsage)}.
+	 * Must only be called after all workers have finished drawing.
+	 *
+	 * @param renderLayer The render mode
+	 * @return A read only builder chaining the outputs of all workers
+	 */
+	public IBufferBuilder chain(RM renderLayer) {
+		return new ChainedBufferBuilder(getWorkerBuffers(renderLayer));
+	}
+
+	/**
+	 * Combines the completed draws of all workers for the given render mode into one single draw in the target builder.
+	 * The vertices are copied in the order of the worker index, the indices are offset accordingly.
+	 * If all draws use shared indecies, no indecies are written and the merged draw uses shared indecies as well if the target has {@link BufferBuilder#usesSharedIndecies()} enabled.
+	 * Only list primitives can be merged since strips, fans and loops would connect the separate draws.
+	 * Must only be called after all workers have finished drawing.
+	 *
+	 * @param renderLayer The render mode
+	 * @param target The builder to write the merged draw to, must not be building and not be one of the worker buffers
+	 * @return The target builder, if no worker completed a draw, nothing is written to it
+	 * @throws IllegalStateException If the primitive of the render mode can not be merged
+	 */
+	public BufferBuilder merge(RM renderLayer, BufferBuilder target) {
+		RenderPrimitive primitive = renderLayer.primitive();
+		if (primitive.isStrip())
+			throw new IllegalStateException("Draws of the primitive " + primitive + " can not be merged!");
+
+		List<IBufferBuilder.BufferPair> pairs = new ArrayList<>();
+		IBufferBuilder chain = chain(renderLayer);
+		while (chain.completedBuffers() > 0) pairs.add(chain.popNext());
+		if (pairs.isEmpty()) return target;
+
+		VertexFormat format = renderLayer.vertexFormat();
+		boolean shared = true;
+		for (IBufferBuilder.BufferPair pair : pairs) shared &= pair.drawState().sharedIndecies();
+		target.begin(primitive, format);
+		int[] baseVertices = new int[pairs.size()];
+		int vertexCount = 0;
+		for (int i = 0; i < pairs.size(); i++) {
+			IBufferBuilder.BufferPair pair = pairs.get(i);
+			baseVertices[i] = vertexCount;
+			target.vertices(pair.buffer().slice(0, pair.drawState().vertexBytes()));
+			vertexCount += pair.drawState().vertices();
+		}
+		// The default indecies of the concatenated vertices are the same as the offset default indecies of the draws
+		for (int i = 0; !shared && i < pairs.size(); i++) {
+			IBufferBuilder.BufferPair pair = pairs.get(i);
+			for (int i2 = 0; i2 < pair.drawState().indecies(); i2++) {
+				target.index(baseVertices[i] + pair.index(i2));
+			}
+		}
+		target.end();
+		return target;
+	}
+
+	@Override
+	public Set<RM> getBufferTypes() {
+		Set<RM> types = new LinkedHashSet<>();
+		this.workerBuffers.values().forEach(worker -> types.addAll(worker.keySet()));
+		return types;
+	}
+
+	@Override
+	public void freeAllMemory() {
+		this.workerBuffers.values().forEach(worker -> worker.values().forEach(BufferBuilder::freeMemory));
+		this.workerBuffers.clear();
+	}
+
+	@Override
+	public void discardAll() {
+		this.workerBuffers.values().forEach(worker -> worker.values().forEach(BufferBuilder::discardStored));
+	}
+
+	/**
+	 * Read only {@link IBufferBuilder} view on the completed draws of multiple builders.
+	 */
+	protected static class ChainedBufferBuilder implements IBufferBuilder {
+
+		protected final Collection<BufferBuilder> buffers;
+
+		public ChainedBufferBuilder(Collection<BufferBuilder> buffers) {
+			this.buffers = buffers;
+		}
+
+		@Override
+		public void begin(RenderPrimitive type, VertexFormat format) {
+			throw new UnsupportedOperationException("Can't draw to a chained buffer!");
+		}
+
+		@Override
+		public void end() {
+			throw new UnsupportedOperationException("Can't draw to a chained buffer!");
+		}
+
+		@Override
+		public boolean isBuilding() {
+			return false;
+		}
+
+		@Override
+		public int completedBuffers() {
+			int completed = 0;
+			for (BufferBuilder buffer : this.buffers) completed += buffer.completedBuffers();
+			return completed;
+		}
+
+		@Override
+		public BufferPair popNext() {
+			for (BufferBuilder buffer : this.buffers) {
+				if (buffer.completedBuffers() > 0) return buffer.popNext();
+			}
+			throw new IllegalStateException("Nothing has been drawn to the buffer!");
+		}
+
+		@Override
+		public void discardStored() {
+			this.buffers.forEach(BufferBuilder::discardStored);
+		}
+
+	}
+
+}
@@ -0,0 +1,211 @@
+package de.m_marvin.gframe.buffers.defimpl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import de.m_marvin.gframe.GLStateManager;
+import de.m_marvin.gframe.buffers.BufferBuilder;
+import de.m_marvin.gframe.buffers.BufferUsage;
+import de.m_marvin.gframe.buffers.VertexBuffer;
+import de.m_marvin.gframe.shaders.ShaderInstance;
+import de.m_marvin.unimat.impl.Matrix4f;
+
+/**
+ * Keeps uploaded geometry of objects that do not change between frames on the GPU.
+ * The geometry is registered under a key together with a version, it is only rebuild and uploaded again if the version changes.
+ * Transformations of the objects are not baked into the vertices, they are passed to the shader trough a uniform when drawing.
+ *
+ * <pre>
+ * cache.update(stone, RenderTypes.stone(), stone.version, buffer -> stone.drawGeometry(buffer));
+ * cache.setTransform(stone, stoneTransform);
+ * cache.draw(RenderTypes.stone(), shader.getUniform("ModelMat"));
+ * </pre>
+ *
+ * @param <K> The type of the keys identifying the objects
+ * @param <RM> The render mode type
+ */
+public class GeometryCache<K, RM extends IRenderMode> {
+
+	protected final BufferBuilder bufferBuilder;
+	protected final BufferUsage usage;
+	protected final Map<K, CachedGeometry<RM>> entries;
+
+	/**
+	 * Holds the uploaded geometry of one object.
+	 */
+	public static class CachedGeometry<RM extends IRenderMode> {
+
+		protected RM renderMode;
+		protected long version;
+		protected boolean dirty;
+		protected Matrix4f transform;
+		protected final VertexBuffer vertexBuffer = new VertexBuffer();
+
+		public RM getRenderMode() {
+			return renderMode;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		public Matrix4f getTransform() {
+			return transform;
+		}
+
+		public VertexBuffer getVertexBuffer() {
+			return vertexBuffer;
+		}
+
+	}
+
+	/**
+	 * Creates a new empty cache.
+	 * @param initialBufferSize The initial size of the builder used to rebuild the geometry
+	 * @param usage The usage passed to the OpenGL functions when uploading the geometry
+	 */
+	public GeometryCache(int initialBufferSize, BufferUsage usage) {
+		this.bufferBuilder = new BufferBuilder(initialBufferSize);
+		this.usage = usage;
+		this.entries = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Ensures that the geometry of the object is uploaded in the given version.
+	 * If the object is not yet registered, was registered with a different version or render mode or was marked dirty, the geometry is rebuild using the supplied consumer.
+	 * The consumer receives a buffer builder on which {@link BufferBuilder#begin(de.m_marvin.gframe.vertices.RenderPrimitive, de.m_marvin.gframe.vertices.VertexFormat)} has already been called.
+	 *
+	 * @param key The key of the object
+	 * @param renderMode The render mode of the geometry
+	 * @param version The current version of the geometry
+	 * @param geometry The consumer that draws the geometry of the object in its local space
+	 * @return true if the geometry had to be rebuild
+	 */
+	public boolean update(K key, RM renderMode, long version, Consumer<BufferBuilder> geometry) {
+		CachedGeometry<RM> entry = this.entries.get(key);
+		if (entry != null && !entry.dirty && entry.version == version && entry.renderMode.equals(renderMode)) return false;
+		GLStateManager.assertOnRenderThread();
+		boolean created = entry == null;
+		if (created) entry = new CachedGeometry<>();
+		boolean uploaded = false;
+		try {
+			this.bufferBuilder.begin(renderMode.primitive(), renderMode.vertexFormat());
+			geometry.accept(this.bufferBuilder);
+			this.bufferBuilder.end();
+			entry.vertexBuffer.upload(this.bufferBuilder, this.usage);
+			uploaded = true;
+		} finally {
+			if (!uploaded) {
+				// Leave the shared builder ready for the next update and retry the build on the next update of an existing entry
+				this.bufferBuilder.end();
+				this.bufferBuilder.discardStored();
+				if (created) {
+					entry.vertexBuffer.discard();
+				} else {
+					entry.dirty = true;
+				}
+			}
+		}
+		entry.renderMode = renderMode;
+		entry.version = version;
+		entry.dirty = false;
+		if (created) this.entries.put(key, entry);
+		return true;
+	}
+
+	/**
+	 * Marks the geometry of the object to be rebuild on the next call to {@link #update(Object, IRenderMode, long, Consumer)}, regardless of the version.
+	 * @param key The key of the object
+	 */
+	public void markDirty(K key) {
+		CachedGeometry<RM> entry = this.entries.get(key);
+		if (entry != null) entry.dirty = true;
+	}
+
+	/**
+	 * Sets the transformation passed to the shader when drawing the object.
+	 * The matrix is not copied, changes to it are applied on the next draw.
+	 *
+	 * @param key The key of the object
+	 * @param transform The transformation or null for no transformation
+	 * @throws IllegalStateException If the object is not registered
+	 */
+	public void setTransform(K key, Matrix4f transform) {
+		CachedGeometry<RM> entry = this.entries.get(key);
+		if (entry == null) throw new IllegalStateException("No geometry registered for " + key + "!");
+		entry.transform = transform;
+	}
+
+	/**
+	 * Returns the cached geometry of the object.
+	 * @param key The key of the object
+	 * @return The cached geometry or null if the object is not registered
+	 */
+	public CachedGeometry<RM> get(K key) {
+		return this.entries.get(key);
+	}
+
+	public Set<K> getKeys() {
+		return this.entries.keySet();
+	}
+
+	/**
+	 * Draws all objects of the given render mode.
+	 * The shader has to be bound already, the transformation of each object is set to the given uniform before drawing it.
+	 *
+	 * @param renderMode The render mode to draw
+	 * @param transformUniform The mat4 uniform receiving the transformations, or null if the transformations should not be applied
+	 */
+	public void draw(RM renderMode, ShaderInstance.Uniform<?> transformUniform) {
+		GLStateManager.assertOnRenderThread();
+		for (CachedGeometry<RM> entry : this.entries.values()) {
+			if (!entry.renderMode.equals(renderMode)) continue;
+			if (transformUniform != null) {
+				if (entry.transform != null) {
+					transformUniform.setMatrix4f(entry.transform);
+				} else {
+					transformUniform.setDefault();
+				}
+			}
+			entry.vertexBuffer.bind();
+			entry.vertexBuffer.drawAll(renderMode.primitive());
+		}
+	}
+
+	/**
+	 * Removes the object and deletes its geometry from the GPU.
+	 * @param key The key of the object
+	 */
+	public void remove(K key) {
+		CachedGeometry<RM> entry = this.entries.remove(key);
+		if (entry != null) entry.vertexBuffer.discard();
+	}
+
+	/**
+	 * Removes all objects whose keys are not contained in the given set.
+	 * @param keys The keys of the objects to keep
+	 */
+	public void retainAll(Set<K> keys) {
+		Iterator<Map.Entry<K, CachedGeometry<RM>>> iterator = this.entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<K, CachedGeometry<RM>> entry = iterator.next();
+			if (!keys.contains(entry.getKey())) {
+				entry.getValue().vertexBuffer.discard();
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Deletes all geometry from the GPU and frees the memory of the builder.
+	 */
+	public void freeAllMemory() {
+		this.entries.values().forEach(entry -> entry.vertexBuffer.discard());
+		this.entries.clear();
+		this.bufferBuilder.freeMemory();
+	}
+
+}
@@ -6,14 +6,26 @@ import java.util.Set;
 
 import de.m_marvin.gframe.buffers.BufferBuilder;
 import de.m_marvin.gframe.buffers.IBufferSource;
+import de.m_marvin.gframe.buffers.MemoryArena;
 
 public class SimpleBufferSource<RM extends IRenderMode> implements IBufferSource<RM> {
 	
 	protected final int initialBufferSize;
+	protected final MemoryArena arena;
 	protected Map<RM, BufferBuilder> buffers;
 	
 	public SimpleBufferSource(int initialBufferSize) {
+		this(null, initialBufferSize);
+	}
+	
+	/**
+	 * Creates a buffer source whose buffers borrow their memory from the given arena.
+	 * @param arena The arena shared by the buffers, or null if each buffer should own its memory
+	 * @param initialBufferSize The initial size of the buffers in bytes
+	 */
+	public SimpleBufferSource(MemoryArena arena, int initialBufferSize) {
 		this.initialBufferSize = initialBufferSize;
+		this.arena = arena;
 		this.buffers = new HashMap<>();
 	}
 	
@@ -21,7 +33,7 @@ public class SimpleBufferSource<RM extends IRenderMode> implements IBufferSource
 	public BufferBuilder getBuffer(RM renderLayer) {
 		BufferBuilder buffer = buffers.get(renderLayer);
 		if (buffer == null) {
-			buffer = new BufferBuilder(initialBufferSize);
+			buffer = this.arena != null ? new BufferBuilder(this.arena, initialBufferSize) : new BufferBuilder(initialBufferSize);
 			buffers.put(renderLayer, buffer);
 		}
 		return buffer;
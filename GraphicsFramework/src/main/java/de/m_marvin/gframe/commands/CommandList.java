@@ -0,0 +1,509 @@
+package de.m_marvin.gframe.commands;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import de.m_marvin.gframe.GLStateManager;
+import de.m_marvin.gframe.buffers.BufferUsage;
+import de.m_marvin.gframe.buffers.IBufferBuilder;
+import de.m_marvin.gframe.buffers.IBufferBuilder.BufferPair;
+import de.m_marvin.gframe.buffers.IBufferBuilder.DrawState;
+import de.m_marvin.gframe.buffers.InstanceBuffer;
+import de.m_marvin.gframe.buffers.VertexBuffer;
+import de.m_marvin.gframe.shaders.ShaderInstance;
+import de.m_marvin.gframe.shaders.ShaderInstance.Uniform;
+import de.m_marvin.gframe.textures.texture.ITextureSampler;
+import de.m_marvin.gframe.translation.PoseStack;
+import de.m_marvin.gframe.vertices.RenderPrimitive;
+import de.m_marvin.unimat.impl.Matrix3f;
+import de.m_marvin.unimat.impl.Matrix4f;
+
+/**
+ * A list of render commands that can be recorded on any thread and is executed later on the render thread using {@link #replay()}.
+ * The commands are encoded into reused primitive arrays and a reused data storage, once they have grown to the size of a frame, recording does not allocate any objects.
+ *
+ * All values are copied when recording, including the data of uploaded draws, which is copied into native memory owned by the list.
+ * Draws popped from a builder can therefore be recorded even if the builder or its {@link de.m_marvin.gframe.buffers.MemoryArena} reuses the memory before the list is replayed.
+ * The referenced objects (shaders, buffers and textures) have to stay valid until the list is replayed.
+ * A command list is not thread safe, it should only be recorded by one thread at a time, usually lists are obtained from and submitted to a {@link CommandQueue}.
+ */
+public class CommandList {
+
+	protected static final int USE_SHADER = 0;
+	protected static final int UNBIND_SHADER = 1;
+	protected static final int UNIFORM_INT = 2;
+	protected static final int UNIFORM_INT_VEC = 3;
+	protected static final int UNIFORM_UINT_VEC = 4;
+	protected static final int UNIFORM_FLOAT_VEC = 5;
+	protected static final int UNIFORM_MATRIX_3 = 6;
+	protected static final int UNIFORM_MATRIX_4 = 7;
+	protected static final int UNIFORM_SAMPLER = 8;
+	protected static final int UPLOAD = 9;
+	protected static final int UPLOAD_INSTANCES = 10;
+	protected static final int DRAW = 11;
+	protected static final int DRAW_INSTANCED = 12;
+	protected static final int ENABLE = 13;
+	protected static final int DISABLE = 14;
+	protected static final int BLEND_FUNC = 15;
+	protected static final int DEPTH_FUNC = 16;
+	protected static final int DEPTH_MASK = 17;
+	protected static final int VIEWPORT = 18;
+	protected static final int RUN = 19;
+
+	protected static final RenderPrimitive[] PRIMITIVES = RenderPrimitive.values();
+	protected static final BufferUsage[] USAGES = BufferUsage.values();
+
+	protected int[] ints = new int[256];
+	protected float[] floats = new float[256];
+	protected Object[] objects = new Object[64];
+	protected int intCount;
+	protected int floatCount;
+	protected int objectCount;
+	protected int commandCount;
+	protected final float[] matrix3 = new float[9];
+	protected final float[] matrix4 = new float[16];
+	protected ByteBuffer data;
+	protected int dataSize;
+
+	/**
+	 * Returns the number of commands recorded since the last reset.
+	 * @return The number of commands
+	 */
+	public int size() {
+		return commandCount;
+	}
+
+	public boolean isEmpty() {
+		return commandCount == 0;
+	}
+
+	/**
+	 * Removes all commands, the storage is kept for the next recording.
+	 */
+	public void reset() {
+		Arrays.fill(this.objects, 0, this.objectCount, null);
+		this.intCount = 0;
+		this.floatCount = 0;
+		this.objectCount = 0;
+		this.commandCount = 0;
+		this.dataSize = 0;
+	}
+
+	protected void command(int opcode) {
+		this.commandCount++;
+		putInt(opcode);
+	}
+
+	protected void putInt(int value) {
+		if (this.intCount == this.ints.length) this.ints = Arrays.copyOf(this.ints, this.ints.length * 2);
+		this.ints[this.intCount++] = value;
+	}
+
+	protected void putFloat(float value) {
+		if (this.floatCount == this.floats.length) this.floats = Arrays.copyOf(this.floats, this.floats.length * 2);
+		this.floats[this.floatCount++] = value;
+	}
+
+	protected void putObject(Object value) {
+		if (this.objectCount == this.objects.length) this.objects = Arrays.copyOf(this.objects, this.objects.length * 2);
+		this.objects[this.objectCount++] = value;
+	}
+
+	/**
+	 * Copies the first bytes of the source into the data storage of the list.
+	 * If the storage is full, a larger one is allocated, the commands recorded before keep referencing the previous storage until the list is reset.
+	 *
+	 * @param source The data to copy, read from index zero
+	 * @param length The number of bytes to copy
+	 * @return The offset of the copy in the current {@link #data} storage
+	 */
+	protected int copyData(ByteBuffer source, int length) {
+		int offset = (this.dataSize + 7) & ~7;
+		if (this.data == null || offset + length > this.data.capacity()) {
+			int capacity = this.data == null ? 1 << 16 : this.data.capacity() * 2;
+			this.data = ByteBuffer.allocateDirect(Math.max(capacity, length)).order(ByteOrder.nativeOrder());
+			offset = 0;
+		}
+		this.data.put(offset, source, 0, length);
+		this.dataSize = offset + length;
+		return offset;
+	}
+
+	/**
+	 * Binds the shader and resets its uniforms to their default values, see {@link ShaderInstance#useShader()}.
+	 */
+	public CommandList useShader(ShaderInstance shader) {
+		command(USE_SHADER);
+		putObject(shader);
+		return this;
+	}
+
+	public CommandList unbindShader(ShaderInstance shader) {
+		command(UNBIND_SHADER);
+		putObject(shader);
+		return this;
+	}
+
+	public CommandList uniformInt(Uniform<?> uniform, int value) {
+		command(UNIFORM_INT);
+		putInt(uniform.getLocation());
+		putInt(value);
+		return this;
+	}
+
+	/**
+	 * Sets an integer vector uniform, the number of values has to match the uniform type.
+	 */
+	public CommandList uniformIntVec(Uniform<?> uniform, int... values) {
+		command(UNIFORM_INT_VEC);
+		putInt(uniform.getLocation());
+		putInt(values.length);
+		for (int value : values) putInt(value);
+		return this;
+	}
+
+	/**
+	 * Sets an unsigned integer (vector) uniform, the number of values has to match the uniform type.
+	 */
+	public CommandList uniformUnsignedInt(Uniform<?> uniform, int... values) {
+		command(UNIFORM_UINT_VEC);
+		putInt(uniform.getLocation());
+		putInt(values.length);
+		for (int value : values) putInt(value);
+		return this;
+	}
+
+	public CommandList uniformFloat(Uniform<?> uniform, float x) {
+		command(UNIFORM_FLOAT_VEC);
+		putInt(uniform.getLocation());
+		putInt(1);
+		putFloat(x);
+		return this;
+	}
+
+	public CommandList uniformVec2f(Uniform<?> uniform, float x, float y) {
+		command(UNIFORM_FLOAT_VEC);
+		putInt(uniform.getLocation());
+		putInt(2);
+		putFloat(x);
+		putFloat(y);
+		return this;
+	}
+
+	public CommandList uniformVec3f(Uniform<?> uniform, float x, float y, float z) {
+		command(UNIFORM_FLOAT_VEC);
+		putInt(uniform.getLocation());
+		putInt(3);
+		putFloat(x);
+		putFloat(y);
+		putFloat(z);
+		return this;
+	}
+
+	public CommandList uniformVec4f(Uniform<?> uniform, float x, float y, float z, float w) {
+		command(UNIFORM_FLOAT_VEC);
+		putInt(uniform.getLocation());
+		putInt(4);
+		putFloat(x);
+		putFloat(y);
+		putFloat(z);
+		putFloat(w);
+		return this;
+	}
+
+	/**
+	 * Sets a 4x4 matrix uniform, the matrix is copied when recording.
+	 */
+	public CommandList uniformMatrix4f(Uniform<?> uniform, Matrix4f matrix) {
+		command(UNIFORM_MATRIX_4);
+		putInt(uniform.getLocation());
+		for (float value : matrix.getArray()) putFloat(value);
+		return this;
+	}
+
+	/**
+	 * Sets a 3x3 matrix uniform, the matrix is copied when recording.
+	 */
+	public CommandList uniformMatrix3f(Uniform<?> uniform, Matrix3f matrix) {
+		command(UNIFORM_MATRIX_3);
+		putInt(uniform.getLocation());
+		for (float value : matrix.getArray()) putFloat(value);
+		return this;
+	}
+
+	/**
+	 * Sets a 4x4 matrix uniform to the current pose of the stack, the pose is copied when recording.
+	 */
+	public CommandList uniformPose(Uniform<?> uniform, PoseStack poseStack) {
+		command(UNIFORM_MATRIX_4);
+		putInt(uniform.getLocation());
+		float[] storage = poseStack.getStorage();
+		int offset = poseStack.poseOffset();
+		for (int i = 0; i < 16; i++) putFloat(storage[offset + i]);
+		return this;
+	}
+
+	/**
+	 * Sets a 3x3 matrix uniform to the current normal matrix of the stack, the matrix is copied when recording.
+	 */
+	public CommandList uniformNormal(Uniform<?> uniform, PoseStack poseStack) {
+		command(UNIFORM_MATRIX_3);
+		putInt(uniform.getLocation());
+		float[] storage = poseStack.getStorage();
+		int offset = poseStack.normalOffset();
+		for (int i = 0; i < 9; i++) putFloat(storage[offset + i]);
+		return this;
+	}
+
+	public CommandList uniformTexture(Uniform<?> uniform, ITextureSampler texture) {
+		command(UNIFORM_SAMPLER);
+		putObject(uniform);
+		putObject(texture);
+		return this;
+	}
+
+	/**
+	 * Uploads the draw to the vertex buffer, the data of the draw is copied when recording.
+	 */
+	public CommandList upload(VertexBuffer vertexBuffer, BufferPair pair, BufferUsage usage) {
+		DrawState drawState = pair.drawState();
+		int offset = copyData(pair.buffer(), drawState.vertexBytes() + drawState.indexBytes());
+		command(UPLOAD);
+		putObject(vertexBuffer);
+		putObject(drawState);
+		putObject(this.data);
+		putInt(offset);
+		putInt(usage.ordinal());
+		return this;
+	}
+
+	/**
+	 * Pops the next completed draw of the builder and copies its data when recording, and uploads it to the vertex buffer when replaying.
+	 * The builder can be reused immediately.
+	 */
+	public CommandList upload(VertexBuffer vertexBuffer, IBufferBuilder bufferBuilder, BufferUsage usage) {
+		return upload(vertexBuffer, bufferBuilder.popNext(), usage);
+	}
+
+	/**
+	 * Pops the next completed draw of the builder and copies its vertex data when recording, and uploads it as instance data when replaying.
+	 * The builder can be reused immediately.
+	 */
+	public CommandList upload(InstanceBuffer instanceBuffer, IBufferBuilder bufferBuilder, BufferUsage usage) {
+		BufferPair pair = bufferBuilder.popNext();
+		if (!pair.drawState().format().equals(instanceBuffer.getFormat())) throw new IllegalArgumentException("The draw does not match the instance format!");
+		int length = pair.drawState().vertexBytes();
+		int offset = copyData(pair.buffer(), length);
+		command(UPLOAD_INSTANCES);
+		putObject(instanceBuffer);
+		putObject(this.data);
+		putInt(offset);
+		putInt(length);
+		putInt(usage.ordinal());
+		return this;
+	}
+
+	/**
+	 * Binds the vertex buffer and draws its content.
+	 */
+	public CommandList draw(VertexBuffer vertexBuffer, RenderPrimitive mode) {
+		command(DRAW);
+		putObject(vertexBuffer);
+		putInt(mode.ordinal());
+		return this;
+	}
+
+	/**
+	 * Binds the vertex buffer and draws its content once for each instance of the instance buffer.
+	 */
+	public CommandList drawInstanced(VertexBuffer vertexBuffer, RenderPrimitive mode, InstanceBuffer instances) {
+		command(DRAW_INSTANCED);
+		putObject(vertexBuffer);
+		putObject(instances);
+		putInt(mode.ordinal());
+		return this;
+	}
+
+	public CommandList enable(int target) {
+		command(ENABLE);
+		putInt(target);
+		return this;
+	}
+
+	public CommandList disable(int target) {
+		command(DISABLE);
+		putInt(target);
+		return this;
+	}
+
+	public CommandList blendFunc(int sfactor, int dfactor) {
+		command(BLEND_FUNC);
+		putInt(sfactor);
+		putInt(dfactor);
+		return this;
+	}
+
+	public CommandList depthFunc(int func) {
+		command(DEPTH_FUNC);
+		putInt(func);
+		return this;
+	}
+
+	public CommandList depthMask(boolean write) {
+		command(DEPTH_MASK);
+		putInt(write ? 1 : 0);
+		return this;
+	}
+
+	public CommandList viewport(int x, int y, int w, int h) {
+		command(VIEWPORT);
+		putInt(x);
+		putInt(y);
+		putInt(w);
+		putInt(h);
+		return this;
+	}
+
+	/**
+	 * Runs the task on the render thread when replaying, for operations not covered by the other commands.
+	 */
+	public CommandList run(Runnable task) {
+		command(RUN);
+		putObject(task);
+		return this;
+	}
+
+	/**
+	 * Executes all recorded commands in the order they were recorded, has to be called on the render thread.
+	 * The list is not changed and can be replayed multiple times.
+	 */
+	public void replay() {
+		GLStateManager.assertOnRenderThread();
+		int i = 0;
+		int f = 0;
+		int o = 0;
+		int[] ints = this.ints;
+		float[] floats = this.floats;
+		Object[] objects = this.objects;
+		while (i < this.intCount) {
+			switch (ints[i++]) {
+			case USE_SHADER:
+				((ShaderInstance) objects[o++]).useShader();
+				break;
+			case UNBIND_SHADER:
+				((ShaderInstance) objects[o++]).unbindShader();
+				break;
+			case UNIFORM_INT:
+				GLStateManager.setUniformInt(ints[i], ints[i + 1]);
+				i += 2;
+				break;
+			case UNIFORM_INT_VEC: {
+				int location = ints[i++];
+				int count = ints[i++];
+				switch (count) {
+				case 1: GLStateManager.setUniformInt(location, ints[i]); break;
+				case 2: GLStateManager.setUniformIntVec2(location, ints[i], ints[i + 1]); break;
+				case 3: GLStateManager.setUniformIntVec3(location, ints[i], ints[i + 1], ints[i + 2]); break;
+				default: GLStateManager.setUniformIntVec4(location, ints[i], ints[i + 1], ints[i + 2], ints[i + 3]);
+				}
+				i += count;
+				break;
+			}
+			case UNIFORM_UINT_VEC: {
+				int location = ints[i++];
+				int count = ints[i++];
+				switch (count) {
+				case 1: GLStateManager.setUniformUnsignedInt(location, ints[i]); break;
+				case 2: GLStateManager.setUniformUnsignedIntVec2(location, ints[i], ints[i + 1]); break;
+				case 3: GLStateManager.setUniformUnsignedIntVec3(location, ints[i], ints[i + 1], ints[i + 2]); break;
+				default: GLStateManager.setUniformUnsignedIntVec4(location, ints[i], ints[i + 1], ints[i + 2], ints[i + 3]);
+				}
+				i += count;
+				break;
+			}
+			case UNIFORM_FLOAT_VEC: {
+				int location = ints[i++];
+				int count = ints[i++];
+				switch (count) {
+				case 1: GLStateManager.setUniformFloat(location, floats[f]); break;
+				case 2: GLStateManager.setUniformFloatVec2(location, floats[f], floats[f + 1]); break;
+				case 3: GLStateManager.setUniformFloatVec3(location, floats[f], floats[f + 1], floats[f + 2]); break;
+				default: GLStateManager.setUniformFloatVec4(location, floats[f], floats[f + 1], floats[f + 2], floats[f + 3]);
+				}
+				f += count;
+				break;
+			}
+			case UNIFORM_MATRIX_3: {
+				System.arraycopy(floats, f, this.matrix3, 0, 9);
+				GLStateManager.setUniformMatrix3(ints[i++], true, this.matrix3);
+				f += 9;
+				break;
+			}
+			case UNIFORM_MATRIX_4:
+				System.arraycopy(floats, f, this.matrix4, 0, 16);
+				GLStateManager.setUniformMatrix4(ints[i++], true, this.matrix4);
+				f += 16;
+				break;
+			case UNIFORM_SAMPLER:
+				((Uniform<?>) objects[o]).setTextureSampler((ITextureSampler) objects[o + 1]);
+				o += 2;
+				break;
+			case UPLOAD: {
+				DrawState drawState = (DrawState) objects[o + 1];
+				ByteBuffer data = ((ByteBuffer) objects[o + 2]).slice(ints[i], drawState.vertexBytes() + drawState.indexBytes()).order(ByteOrder.nativeOrder());
+				((VertexBuffer) objects[o]).upload(new BufferPair(data, drawState), USAGES[ints[i + 1]]);
+				i += 2;
+				o += 3;
+				break;
+			}
+			case UPLOAD_INSTANCES: {
+				ByteBuffer data = ((ByteBuffer) objects[o + 1]).slice(ints[i], ints[i + 1]).order(ByteOrder.nativeOrder());
+				((InstanceBuffer) objects[o]).upload(data, USAGES[ints[i + 2]]);
+				i += 3;
+				o += 2;
+				break;
+			}
+			case DRAW: {
+				VertexBuffer vertexBuffer = (VertexBuffer) objects[o++];
+				vertexBuffer.bind();
+				vertexBuffer.drawAll(PRIMITIVES[ints[i++]]);
+				break;
+			}
+			case DRAW_INSTANCED: {
+				VertexBuffer vertexBuffer = (VertexBuffer) objects[o];
+				vertexBuffer.bind();
+				vertexBuffer.drawInstanced(PRIMITIVES[ints[i++]], (InstanceBuffer) objects[o + 1]);
+				o += 2;
+				break;
+			}
+			case ENABLE:
+				GLStateManager.enable(ints[i++]);
+				break;
+			case DISABLE:
+				GLStateManager.disable(ints[i++]);
+				break;
+			case BLEND_FUNC:
+				GLStateManager.blendFunc(ints[i], ints[i + 1]);
+				i += 2;
+				break;
+			case DEPTH_FUNC:
+				GLStateManager.depthFunc(ints[i++]);
+				break;
+			case DEPTH_MASK:
+				GLStateManager.depthMask(ints[i++] == 1);
+				break;
+			case VIEWPORT:
+				GLStateManager.resizeViewport(ints[i], ints[i + 1], ints[i + 2], ints[i + 3]);
+				i += 4;
+				break;
+			case RUN:
+				((Runnable) objects[o++]).run();
+				break;
+			default:
+				throw new IllegalStateException("Corrupted command list, unknown opcode " + ints[i - 1]);
+			}
+		}
+	}
+
+}
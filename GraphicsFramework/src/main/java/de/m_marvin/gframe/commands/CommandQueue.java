@@ -0,0 +1,85 @@
+package de.m_marvin.gframe.commands;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import de.m_marvin.gframe.GLStateManager;
+
+/**
+ * Collects {@link CommandList}s recorded on worker threads and executes them on the render thread.
+ * The lists are executed in the order they were submitted, and are returned to a pool afterwards so that their storage gets reused in the next frame.
+ *
+ * A worker obtains a list using {@link #acquire()}, records its commands and passes it to {@link #submit(CommandList)}.
+ * The render thread calls {@link #replayAll()} once per frame.
+ */
+public class CommandQueue {
+
+	protected final Queue<CommandList> pool = new ConcurrentLinkedQueue<>();
+	protected final Queue<CommandList> submitted = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Returns an empty command list, reusing a previously replayed one if available.
+	 * Can be called from any thread.
+	 * @return An empty command list
+	 */
+	public CommandList acquire() {
+		CommandList list = this.pool.poll();
+		return list != null ? list : new CommandList();
+	}
+
+	/**
+	 * Queues the list for execution on the render thread, the list must not be modified after submitting it.
+	 * Can be called from any thread.
+	 * @param list The recorded command list
+	 */
+	public void submit(CommandList list) {
+		this.submitted.add(list);
+	}
+
+	/**
+	 * Returns a list to the pool without executing it.
+	 * @param list The list to discard
+	 */
+	public void release(CommandList list) {
+		list.reset();
+		this.pool.add(list);
+	}
+
+	/**
+	 * Returns the number of lists waiting for execution.
+	 * @return The number of submitted lists
+	 */
+	public int pending() {
+		return this.submitted.size();
+	}
+
+	/**
+	 * Executes all submitted lists in submission order and returns them to the pool.
+	 * Lists submitted while this method runs are executed too.
+	 * Has to be called on the render thread.
+	 * @return The number of executed lists
+	 */
+	public int replayAll() {
+		GLStateManager.assertOnRenderThread();
+		int count = 0;
+		CommandList list;
+		while ((list = this.submitted.poll()) != null) {
+			try {
+				list.replay();
+			} finally {
+				release(list);
+			}
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Drops all submitted lists without executing them.
+	 */
+	public void clear() {
+		CommandList list;
+		while ((list = this.submitted.poll()) != null) release(list);
+	}
+
+}
@@ -17,6 +17,7 @@ import de.m_marvin.gframe.textures.TextureLoader;
 import de.m_marvin.gframe.textures.maps.AbstractTextureMap;
 import de.m_marvin.gframe.translation.PoseStack;
 import de.m_marvin.gframe.utility.Utility;
+import de.m_marvin.gframe.vertices.RenderPrimitive;
 import de.m_marvin.simplelogging.Log;
 import de.m_marvin.univec.impl.Vec2i;
 
@@ -27,7 +28,40 @@ public class FontRenderer {
 		renderString(string, color, fontAtlas, renderModeSupplier, bufferSource, matrixStack);
 	}
 	
+	public static <R extends IResourceProvider<R>, T extends IRenderMode> BufferBuilder appendString(String string, Color color, Font font, R fontAtlasesLocation, Function<R, T> renderModeSupplier, TextureLoader<R, ?> textureLoader, IBufferSource<T> bufferSource, PoseStack matrixStack) {
+		FontAtlasMap<R> fontAtlas = getFontAtlas(textureLoader, font, fontAtlasesLocation);
+		return appendString(string, color, fontAtlas, renderModeSupplier, bufferSource, matrixStack);
+	}
+	
+	/**
+	 * Draws the string into the batch of the render mode of the font atlas and completes the batch.
+	 * Strings previously appended to the same batch with {@link #appendString(String, Color, FontAtlasMap, Function, IBufferSource, PoseStack)} are completed together with this string as one draw.
+	 * 
+	 * @param string The string to draw
+	 * @param color The color of the string
+	 * @param fontAtlas The font atlas of the font to use
+	 * @param renderModeSupplier Supplies the render mode for the font atlas
+	 * @param bufferSource The buffer source to draw to
+	 * @param matrixStack The transformation of the string
+	 */
 	public static <R extends IResourceProvider<R>, T extends IRenderMode> void renderString(String string, Color color, FontAtlasMap<R> fontAtlas, Function<R, T> renderModeSupplier, IBufferSource<T> bufferSource, PoseStack matrixStack) {
+		appendString(string, color, fontAtlas, renderModeSupplier, bufferSource, matrixStack).end();
+	}
+	
+	/**
+	 * Draws the string into the batch of the render mode of the font atlas, but leaves the batch open for more strings.
+	 * This allows drawing a whole text overlay with one draw call, the batch has to be completed by calling {@link BufferBuilder#end()} on the returned buffer.
+	 * If the render mode uses the {@link RenderPrimitive#QUADS} primitive, each character is drawn with four vertices, otherwise with six.
+	 * 
+	 * @param string The string to draw
+	 * @param color The color of the string
+	 * @param fontAtlas The font atlas of the font to use
+	 * @param renderModeSupplier Supplies the render mode for the font atlas
+	 * @param bufferSource The buffer source to draw to
+	 * @param matrixStack The transformation of the string
+	 * @return The buffer containing the open batch
+	 */
+	public static <R extends IResourceProvider<R>, T extends IRenderMode> BufferBuilder appendString(String string, Color color, FontAtlasMap<R> fontAtlas, Function<R, T> renderModeSupplier, IBufferSource<T> bufferSource, PoseStack matrixStack) {
 		
 		int wo = 0;
 		
@@ -36,6 +70,10 @@ public class FontRenderer {
 		float b = color.getBlue() / 255F;
 		float a = color.getAlpha() / 255F;
 		
+		T renderMode = renderModeSupplier.apply(fontAtlas.getAtlasLocation());
+		BufferBuilder vertexBuffer = bufferSource.startBuffer(renderMode);
+		boolean quads = renderMode.primitive() == RenderPrimitive.QUADS;
+		
 		for (int i = 0; i < string.length(); i++) {
 			char character = string.charAt(i);
 			fontAtlas.activateCharacter(character);
@@ -47,19 +85,24 @@ public class FontRenderer {
 			float fyh = characterSize.y;
 			wo +=  characterSize.x;
 			
-			BufferBuilder vertexBuffer = bufferSource.startBuffer(renderModeSupplier.apply(fontAtlas.getAtlasLocation()));
-			
-			vertexBuffer.vertex(matrixStack, fxl, fyl, 0).uv(fontAtlas, 0, 0).color(r, g, b, a).endVertex();
-			vertexBuffer.vertex(matrixStack, fxh, fyl, 0).uv(fontAtlas, 1, 0).color(r, g, b, a).endVertex();
-			vertexBuffer.vertex(matrixStack, fxl, fyh, 0).uv(fontAtlas, 0, 1).color(r, g, b, a).endVertex();
-			vertexBuffer.vertex(matrixStack, fxl, fyh, 0).uv(fontAtlas, 0, 1).color(r, g, b, a).endVertex();
-			vertexBuffer.vertex(matrixStack, fxh, fyl, 0).uv(fontAtlas, 1, 0).color(r, g, b, a).endVertex();
-			vertexBuffer.vertex(matrixStack, fxh, fyh, 0).uv(fontAtlas, 1, 1).color(r, g, b, a).endVertex();
-			
-			vertexBuffer.end();
+			if (quads) {
+				vertexBuffer.vertex(matrixStack, fxl, fyl, 0).uv(fontAtlas, 0, 0).color(r, g, b, a).endVertex();
+				vertexBuffer.vertex(matrixStack, fxh, fyl, 0).uv(fontAtlas, 1, 0).color(r, g, b, a).endVertex();
+				vertexBuffer.vertex(matrixStack, fxh, fyh, 0).uv(fontAtlas, 1, 1).color(r, g, b, a).endVertex();
+				vertexBuffer.vertex(matrixStack, fxl, fyh, 0).uv(fontAtlas, 0, 1).color(r, g, b, a).endVertex();
+			} else {
+				vertexBuffer.vertex(matrixStack, fxl, fyl, 0).uv(fontAtlas, 0, 0).color(r, g, b, a).endVertex();
+				vertexBuffer.vertex(matrixStack, fxh, fyl, 0).uv(fontAtlas, 1, 0).color(r, g, b, a).endVertex();
+				vertexBuffer.vertex(matrixStack, fxl, fyh, 0).uv(fontAtlas, 0, 1).color(r, g, b, a).endVertex();
+				vertexBuffer.vertex(matrixStack, fxl, fyh, 0).uv(fontAtlas, 0, 1).color(r, g, b, a).endVertex();
+				vertexBuffer.vertex(matrixStack, fxh, fyl, 0).uv(fontAtlas, 1, 0).color(r, g, b, a).endVertex();
+				vertexBuffer.vertex(matrixStack, fxh, fyh, 0).uv(fontAtlas, 1, 1).color(r, g, b, a).endVertex();
+			}
 			
 		}
 		
+		return vertexBuffer;
+		
 	}
 	
 	public static String limitStringWidth(String string, Font font, int maxWidth) {
@@ -0,0 +1,243 @@
+package de.m_marvin.gframe.models;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.m_marvin.gframe.buffers.BufferUsage;
+import de.m_marvin.gframe.buffers.IBufferBuilder;
+import de.m_marvin.gframe.buffers.VertexBuffer;
+import de.m_marvin.gframe.utility.NumberFormat;
+import de.m_marvin.gframe.vertices.RenderPrimitive;
+import de.m_marvin.gframe.vertices.VertexFormat;
+import de.m_marvin.gframe.vertices.VertexFormat.VertexElement;
+
+/**
+ * A mesh stored in a compact binary format that contains the exact output of a {@link IBufferBuilder}.
+ * Every fragment of the mesh stores the vertex and index data together with the {@link VertexFormat}, primitive and index format of the draw.
+ * Loaded meshes can be passed directly to {@link VertexBuffer#upload(IBufferBuilder, BufferUsage)}, one fragment is popped per upload.
+ *
+ * The data is stored in the native byte order of the platform it was baked on, files with a different byte order are rejected.
+ *
+ * <pre>
+ * int magic, int version, byte byteOrder, int fragmentCount
+ * per fragment:
+ *   string primitive, string indexFormat, byte sharedIndecies, int vertices, int indecies
+ *   int elementCount, per element: string name, string format, byte count, byte normalize
+ *   int vertexBytes, int indexBytes, padding to 16 bytes, vertex data, index data
+ * </pre>
+ */
+public class BakedMesh implements IBufferBuilder {
+
+	public static final String MESH_FILE_FORMAT = "mesh";
+	public static final int MAGIC = 0x4746424D;
+	public static final int VERSION = 1;
+
+	protected final List<BufferPair> fragments;
+	protected int next;
+
+	public BakedMesh(List<BufferPair> fragments) {
+		this.fragments = fragments;
+	}
+
+	/**
+	 * Returns all fragments of this mesh.
+	 * The buffers of the fragments are shared, they have to be duplicated before changing their position or limit.
+	 * @return The list of the fragments
+	 */
+	public List<BufferPair> getFragments() {
+		return fragments;
+	}
+
+	/**
+	 * Resets the mesh so that all fragments can be popped again.
+	 */
+	public void rewind() {
+		this.next = 0;
+	}
+
+	@Override
+	public void begin(RenderPrimitive type, VertexFormat format) {
+		throw new UnsupportedOperationException("Can't draw to a baked mesh!");
+	}
+
+	@Override
+	public void end() {
+		throw new UnsupportedOperationException("Can't draw to a baked mesh!");
+	}
+
+	@Override
+	public boolean isBuilding() {
+		return false;
+	}
+
+	@Override
+	public int completedBuffers() {
+		return this.fragments.size() - this.next;
+	}
+
+	@Override
+	public BufferPair popNext() {
+		if (this.next >= this.fragments.size()) throw new IllegalStateException("Nothing has been drawn to the buffer!");
+		BufferPair fragment = this.fragments.get(this.next++);
+		return new BufferPair(fragment.buffer().duplicate().order(fragment.buffer().order()), fragment.drawState());
+	}
+
+	@Override
+	public void discardStored() {
+		this.next = this.fragments.size();
+	}
+
+	/**
+	 * Pops all completed draws of the builder and writes them as fragments of a baked mesh to the file.
+	 *
+	 * @param bufferBuilder The source of the fragments
+	 * @param file The file to write to, an existing file is overwritten
+	 * @throws IOException If an error occurs writing the file
+	 */
+	public static void write(IBufferBuilder bufferBuilder, Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(13).order(ByteOrder.nativeOrder());
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.put((byte) (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN ? 1 : 0));
+			header.putInt(bufferBuilder.completedBuffers());
+			writeFully(channel, header.flip());
+
+			while (bufferBuilder.completedBuffers() > 0) {
+				BufferPair pair = bufferBuilder.popNext();
+				DrawState drawState = pair.drawState();
+				ByteBuffer fragment = ByteBuffer.allocate(64 + drawState.format().getElementCount() * 32).order(ByteOrder.nativeOrder());
+				fragment = putString(fragment, drawState.type().name());
+				fragment = putString(fragment, drawState.indexFormat().name());
+				fragment.put((byte) (drawState.sharedIndecies() ? 1 : 0));
+				fragment.putInt(drawState.vertices());
+				fragment.putInt(drawState.indecies());
+				fragment.putInt(drawState.format().getElementCount());
+				for (VertexElement element : drawState.format().getElements()) {
+					fragment = putString(fragment, element.name());
+					fragment = putString(fragment, element.format().name());
+					fragment = ensureRemaining(fragment, 2 + 8 + 15);
+					fragment.put((byte) element.count());
+					fragment.put((byte) (element.normalize() ? 1 : 0));
+				}
+				fragment.putInt(drawState.vertexBytes());
+				fragment.putInt(drawState.indexBytes());
+				long position = channel.position() + fragment.position();
+				fragment.position(fragment.position() + (int) (((position + 15) & ~15) - position));
+				writeFully(channel, fragment.flip());
+
+				ByteBuffer data = pair.buffer().duplicate();
+				data.clear();
+				data.limit(drawState.vertexBytes() + drawState.indexBytes());
+				writeFully(channel, data);
+			}
+		}
+	}
+
+	/**
+	 * Loads a baked mesh by mapping the file into memory.
+	 * The fragments reference the mapped memory directly, no data is copied until the fragments are uploaded.
+	 *
+	 * @param file The file to load
+	 * @return The loaded mesh
+	 * @throws IOException If an error occurs reading the file or the file is not a valid baked mesh
+	 */
+	public static BakedMesh load(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Loads a baked mesh from a stream.
+	 * Intended for resources that are not available as file, prefer {@link #load(Path)} if possible.
+	 *
+	 * @param input The stream to read the mesh from
+	 * @return The loaded mesh
+	 * @throws IOException If an error occurs reading the stream or the data is not a valid baked mesh
+	 */
+	public static BakedMesh read(InputStream input) throws IOException {
+		byte[] content = input.readAllBytes();
+		ByteBuffer data = ByteBuffer.allocateDirect(content.length);
+		data.put(content).flip();
+		return parse(data);
+	}
+
+	protected static BakedMesh parse(ByteBuffer data) throws IOException {
+		data.order(ByteOrder.nativeOrder());
+		try {
+			if (data.getInt() != MAGIC) throw new IOException("Not a baked mesh file!");
+			int version = data.getInt();
+			if (version != VERSION) throw new IOException("Unsupported baked mesh version " + version + "!");
+			if ((data.get() == 1) != (ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN)) throw new IOException("The baked mesh was created with a different byte order!");
+			int fragmentCount = data.getInt();
+
+			List<BufferPair> fragments = new ArrayList<>(fragmentCount);
+			for (int i = 0; i < fragmentCount; i++) {
+				RenderPrimitive primitive = RenderPrimitive.valueOf(getString(data));
+				NumberFormat indexFormat = NumberFormat.valueOf(getString(data));
+				boolean sharedIndecies = data.get() == 1;
+				int vertices = data.getInt();
+				int indecies = data.getInt();
+				int elementCount = data.getInt();
+				String[] names = new String[elementCount];
+				NumberFormat[] numberFormats = new NumberFormat[elementCount];
+				int[] counts = new int[elementCount];
+				boolean[] normalize = new boolean[elementCount];
+				for (int e = 0; e < elementCount; e++) {
+					names[e] = getString(data);
+					numberFormats[e] = NumberFormat.valueOf(getString(data));
+					counts[e] = Byte.toUnsignedInt(data.get());
+					normalize[e] = data.get() == 1;
+				}
+				VertexFormat format = VertexFormat.empty();
+				for (int e = 0; e < elementCount; e++) format = format.with(names[e], numberFormats[e], counts[e], normalize[e]);
+
+				DrawState drawState = new DrawState(vertices, indecies, format, primitive, indexFormat, sharedIndecies);
+				int vertexBytes = data.getInt();
+				int indexBytes = data.getInt();
+				if (vertexBytes != drawState.vertexBytes() || indexBytes != drawState.indexBytes()) throw new IOException("Corrupted baked mesh, data size does not match the format!");
+				data.position((data.position() + 15) & ~15);
+				ByteBuffer fragment = data.slice(data.position(), vertexBytes + indexBytes).order(ByteOrder.nativeOrder());
+				data.position(data.position() + vertexBytes + indexBytes);
+				fragments.add(new BufferPair(fragment, drawState));
+			}
+			return new BakedMesh(fragments);
+		} catch (IllegalArgumentException | IndexOutOfBoundsException | java.nio.BufferUnderflowException e) {
+			throw new IOException("Corrupted baked mesh!", e);
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer data) throws IOException {
+		while (data.hasRemaining()) channel.write(data);
+	}
+
+	private static ByteBuffer ensureRemaining(ByteBuffer buffer, int size) {
+		if (buffer.remaining() >= size) return buffer;
+		ByteBuffer newBuffer = ByteBuffer.allocate(buffer.capacity() * 2 + size).order(buffer.order());
+		return newBuffer.put(buffer.flip());
+	}
+
+	private static ByteBuffer putString(ByteBuffer buffer, String string) {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		buffer = ensureRemaining(buffer, 2 + bytes.length + 8 + 15);
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+		return buffer;
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
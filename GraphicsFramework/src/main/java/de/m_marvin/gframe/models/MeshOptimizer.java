@@ -0,0 +1,413 @@
+package de.m_marvin.gframe.models;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.m_marvin.gframe.buffers.BufferBuilder;
+import de.m_marvin.gframe.buffers.IBufferBuilder.BufferPair;
+import de.m_marvin.gframe.buffers.IBufferBuilder.DrawState;
+import de.m_marvin.gframe.resources.IResourceProvider;
+import de.m_marvin.gframe.utility.NumberFormat;
+import de.m_marvin.gframe.vertices.RenderPrimitive;
+import de.m_marvin.gframe.vertices.VertexFormat.VertexElement;
+
+/**
+ * Reorders the triangles and vertices of indexed meshes to make better use of the post-transform vertex cache of the GPU.
+ * The optimization is done in three steps:
+ * <ul>
+ * <li>{@link #optimizeVertexCache(int[], int)} reorders the triangles using the algorithm of Tom Forsyth, so that following triangles share as many vertices as possible</li>
+ * <li>{@link #optimizeOverdraw(int[], float[], int, int)} (optional) sorts clusters of triangles so that triangles facing outward are drawn first, keeping the cache efficiency inside the clusters</li>
+ * <li>{@link #optimizeVertexFetch(int[], int)} reorders the vertices in the order they are first referenced, so that the vertex data is read sequentially</li>
+ * </ul>
+ * The efficiency is reported as ACMR (average cache miss ratio), the number of vertex shader invocations per triangle, which is between 0.5 and 3 with lower values being better.
+ * Only triangle lists can be optimized.
+ */
+public class MeshOptimizer {
+
+	/**
+	 * The size of the FIFO cache simulated to calculate the ACMR.
+	 */
+	public static final int DEFAULT_CACHE_SIZE = 16;
+
+	private static final int CACHE_SIZE = 32;
+	private static final float CACHE_DECAY_POWER = 1.5F;
+	private static final float LAST_TRIANGLE_SCORE = 0.75F;
+	private static final float VALENCE_BOOST_SCALE = 2.0F;
+	private static final float VALENCE_BOOST_POWER = 0.5F;
+
+	private MeshOptimizer() {}
+
+	/**
+	 * The ACMR of a mesh before and after the optimization.
+	 */
+	public static record Statistics(int triangles, float acmrBefore, float acmrAfter) {
+
+		/**
+		 * Combines the statistics of two meshes, weighting the ACMR by the number of triangles.
+		 * @param other The statistics of the other mesh
+		 * @return The combined statistics
+		 */
+		public Statistics combine(Statistics other) {
+			int triangles = this.triangles + other.triangles;
+			if (triangles == 0) return new Statistics(0, 0, 0);
+			return new Statistics(triangles,
+					(this.acmrBefore * this.triangles + other.acmrBefore * other.triangles) / triangles,
+					(this.acmrAfter * this.triangles + other.acmrAfter * other.triangles) / triangles);
+		}
+
+	}
+
+	/**
+	 * The optimized copy of a draw and the statistics of its optimization.
+	 */
+	public static record OptimizedDraw(BufferPair pair, Statistics statistics) {}
+
+	/**
+	 * Calculates the average number of cache misses per triangle by simulating a FIFO vertex cache.
+	 *
+	 * @param indecies The triangle list indecies
+	 * @param vertexCount The number of vertices referenced by the indecies
+	 * @param cacheSize The number of entries of the simulated cache
+	 * @return The ACMR of the mesh, or zero if it contains no triangles
+	 */
+	public static float acmr(int[] indecies, int vertexCount, int cacheSize) {
+		if (indecies.length < 3) return 0;
+		int[] timestamps = new int[vertexCount];
+		int time = cacheSize + 1;
+		int misses = 0;
+		for (int index : indecies) {
+			if (time - timestamps[index] > cacheSize) {
+				timestamps[index] = time++;
+				misses++;
+			}
+		}
+		return misses / (float) (indecies.length / 3);
+	}
+
+	private static float vertexScore(int cachePosition, int remainingTriangles) {
+		if (remainingTriangles == 0) return -1;
+		float score = 0;
+		if (cachePosition >= 0) {
+			if (cachePosition < 3) {
+				score = LAST_TRIANGLE_SCORE;
+			} else {
+				score = (float) Math.pow(1.0F - (cachePosition - 3) / (float) (CACHE_SIZE - 3), CACHE_DECAY_POWER);
+			}
+		}
+		return score + VALENCE_BOOST_SCALE * (float) Math.pow(remainingTriangles, -VALENCE_BOOST_POWER);
+	}
+
+	/**
+	 * Reorders the triangles to improve the hit rate of the post-transform vertex cache, using the linear-speed algorithm of Tom Forsyth.
+	 * The winding order of the triangles is kept.
+	 *
+	 * @param indecies The triangle list indecies
+	 * @param vertexCount The number of vertices referenced by the indecies
+	 * @return The reordered indecies
+	 */
+	public static int[] optimizeVertexCache(int[] indecies, int vertexCount) {
+		int triangleCount = indecies.length / 3;
+		int[] result = new int[triangleCount * 3];
+		if (triangleCount == 0) return result;
+
+		// Build the adjacency of the vertices
+		int[] remaining = new int[vertexCount];
+		for (int i = 0; i < triangleCount * 3; i++) remaining[indecies[i]]++;
+		int[] adjacencyOffset = new int[vertexCount + 1];
+		for (int v = 0; v < vertexCount; v++) adjacencyOffset[v + 1] = adjacencyOffset[v] + remaining[v];
+		int[] adjacency = new int[triangleCount * 3];
+		int[] fill = Arrays.copyOf(adjacencyOffset, vertexCount);
+		for (int t = 0; t < triangleCount; t++) {
+			for (int c = 0; c < 3; c++) adjacency[fill[indecies[t * 3 + c]]++] = t;
+		}
+
+		int[] cachePosition = new int[vertexCount];
+		float[] vertexScore = new float[vertexCount];
+		Arrays.fill(cachePosition, -1);
+		for (int v = 0; v < vertexCount; v++) vertexScore[v] = vertexScore(-1, remaining[v]);
+
+		boolean[] emitted = new boolean[triangleCount];
+
+		int[] cache = new int[CACHE_SIZE + 3];
+		int[] newCache = new int[CACHE_SIZE + 3];
+		int cacheCount = 0;
+		int fallbackCursor = 0;
+		int bestTriangle = -1;
+
+		for (int output = 0; output < triangleCount; output++) {
+
+			if (bestTriangle < 0) {
+				// No candidate in the cache, continue with the next triangle in input order
+				while (emitted[fallbackCursor]) fallbackCursor++;
+				bestTriangle = fallbackCursor;
+			}
+
+			int t = bestTriangle;
+			emitted[t] = true;
+			System.arraycopy(indecies, t * 3, result, output * 3, 3);
+
+			// Remove the triangle from the adjacency of its vertices
+			for (int c = 0; c < 3; c++) {
+				int v = indecies[t * 3 + c];
+				int end = adjacencyOffset[v] + remaining[v];
+				for (int a = adjacencyOffset[v]; a < end; a++) {
+					if (adjacency[a] == t) {
+						adjacency[a] = adjacency[end - 1];
+						break;
+					}
+				}
+				remaining[v]--;
+			}
+
+			// Move the vertices of the triangle to the front of the cache
+			int newCacheCount = 0;
+			for (int c = 0; c < 3; c++) newCache[newCacheCount++] = indecies[t * 3 + c];
+			for (int i = 0; i < cacheCount; i++) {
+				int v = cache[i];
+				if (v != indecies[t * 3] && v != indecies[t * 3 + 1] && v != indecies[t * 3 + 2]) newCache[newCacheCount++] = v;
+			}
+			int[] swap = cache;
+			cache = newCache;
+			newCache = swap;
+			cacheCount = newCacheCount;
+
+			// Update the scores of all vertices in the cache, including the ones that just dropped out of it
+			for (int i = 0; i < cacheCount; i++) {
+				int v = cache[i];
+				cachePosition[v] = i < CACHE_SIZE ? i : -1;
+				vertexScore[v] = vertexScore(cachePosition[v], remaining[v]);
+			}
+
+			bestTriangle = -1;
+			float bestScore = -1;
+			for (int i = 0; i < cacheCount; i++) {
+				int v = cache[i];
+				for (int a = adjacencyOffset[v]; a < adjacencyOffset[v] + remaining[v]; a++) {
+					int at = adjacency[a];
+					float score = vertexScore[indecies[at * 3]] + vertexScore[indecies[at * 3 + 1]] + vertexScore[indecies[at * 3 + 2]];
+					if (score > bestScore) {
+						bestScore = score;
+						bestTriangle = at;
+					}
+				}
+			}
+			if (cacheCount > CACHE_SIZE) cacheCount = CACHE_SIZE;
+
+		}
+
+		return result;
+	}
+
+	/**
+	 * Sorts clusters of triangles so that triangles on the outside of the mesh facing away from its center are drawn first, which reduces overdraw.
+	 * The clusters are split where the simulated vertex cache had to load a whole triangle, so the cache efficiency achieved by {@link #optimizeVertexCache(int[], int)} is mostly kept.
+	 * The indecies are modified in place.
+	 *
+	 * @param indecies The triangle list indecies, already optimized for the vertex cache
+	 * @param positions The positions of the vertices, three floats per vertex
+	 * @param vertexCount The number of vertices
+	 * @param cacheSize The number of entries of the simulated cache
+	 */
+	public static void optimizeOverdraw(int[] indecies, float[] positions, int vertexCount, int cacheSize) {
+		int triangleCount = indecies.length / 3;
+		if (triangleCount == 0) return;
+
+		// Split the triangles into clusters at hard cache boundaries
+		List<int[]> clusters = new ArrayList<>();
+		int[] timestamps = new int[vertexCount];
+		int time = cacheSize + 1;
+		int clusterStart = 0;
+		for (int t = 0; t < triangleCount; t++) {
+			int misses = 0;
+			for (int c = 0; c < 3; c++) {
+				int v = indecies[t * 3 + c];
+				if (time - timestamps[v] > cacheSize) {
+					timestamps[v] = time++;
+					misses++;
+				}
+			}
+			if (misses == 3 && t > clusterStart) {
+				clusters.add(new int[] {clusterStart, t});
+				clusterStart = t;
+			}
+		}
+		clusters.add(new int[] {clusterStart, triangleCount});
+		if (clusters.size() == 1) return;
+
+		float meshX = 0, meshY = 0, meshZ = 0;
+		for (int v = 0; v < vertexCount; v++) {
+			meshX += positions[v * 3];
+			meshY += positions[v * 3 + 1];
+			meshZ += positions[v * 3 + 2];
+		}
+		meshX /= vertexCount;
+		meshY /= vertexCount;
+		meshZ /= vertexCount;
+
+		// Sort by the distance of the cluster center from the mesh center along the cluster normal
+		float[] sortKey = new float[clusters.size()];
+		for (int i = 0; i < clusters.size(); i++) {
+			int[] cluster = clusters.get(i);
+			float cx = 0, cy = 0, cz = 0, nx = 0, ny = 0, nz = 0, area = 0;
+			for (int t = cluster[0]; t < cluster[1]; t++) {
+				int a = indecies[t * 3] * 3, b = indecies[t * 3 + 1] * 3, c = indecies[t * 3 + 2] * 3;
+				float e1x = positions[b] - positions[a], e1y = positions[b + 1] - positions[a + 1], e1z = positions[b + 2] - positions[a + 2];
+				float e2x = positions[c] - positions[a], e2y = positions[c + 1] - positions[a + 1], e2z = positions[c + 2] - positions[a + 2];
+				float tnx = e1y * e2z - e1z * e2y, tny = e1z * e2x - e1x * e2z, tnz = e1x * e2y - e1y * e2x;
+				float tarea = (float) Math.sqrt(tnx * tnx + tny * tny + tnz * tnz);
+				cx += (positions[a] + positions[b] + positions[c]) / 3 * tarea;
+				cy += (positions[a + 1] + positions[b + 1] + positions[c + 1]) / 3 * tarea;
+				cz += (positions[a + 2] + positions[b + 2] + positions[c + 2]) / 3 * tarea;
+				nx += tnx;
+				ny += tny;
+				nz += tnz;
+				area += tarea;
+			}
+			float nl = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+			if (area > 0 && nl > 0) {
+				sortKey[i] = ((cx / area - meshX) * nx + (cy / area - meshY) * ny + (cz / area - meshZ) * nz) / nl;
+			}
+		}
+
+		Integer[] order = new Integer[clusters.size()];
+		for (int i = 0; i < order.length; i++) order[i] = i;
+		Arrays.sort(order, (a, b) -> Float.compare(sortKey[b], sortKey[a]));
+
+		int[] source = indecies.clone();
+		int output = 0;
+		for (int i : order) {
+			int[] cluster = clusters.get(i);
+			int length = (cluster[1] - cluster[0]) * 3;
+			System.arraycopy(source, cluster[0] * 3, indecies, output, length);
+			output += length;
+		}
+	}
+
+	/**
+	 * Renumbers the vertices in the order they are first referenced by the indecies, so that the vertex data is fetched sequentially.
+	 * The indecies are modified in place, the vertex data has to be reordered using the returned remap table.
+	 * Vertices not referenced by any index are moved to the end.
+	 *
+	 * @param indecies The triangle list indecies
+	 * @param vertexCount The number of vertices
+	 * @return The remap table, containing the new position of each vertex at its old position
+	 */
+	public static int[] optimizeVertexFetch(int[] indecies, int vertexCount) {
+		int[] remap = new int[vertexCount];
+		Arrays.fill(remap, -1);
+		int next = 0;
+		for (int i = 0; i < indecies.length; i++) {
+			int v = indecies[i];
+			if (remap[v] < 0) remap[v] = next++;
+			indecies[i] = remap[v];
+		}
+		for (int v = 0; v < vertexCount; v++) {
+			if (remap[v] < 0) remap[v] = next++;
+		}
+		return remap;
+	}
+
+	/**
+	 * Applies all optimization steps to the indecies and returns the remap table for the vertex data.
+	 *
+	 * @param indecies The triangle list indecies, modified in place
+	 * @param positions The positions of the vertices, three floats per vertex, or null to skip the overdraw optimization
+	 * @param vertexCount The number of vertices
+	 * @return The remap table of the vertex data, see {@link #optimizeVertexFetch(int[], int)}
+	 */
+	public static int[] optimize(int[] indecies, float[] positions, int vertexCount) {
+		int[] optimized = optimizeVertexCache(indecies, vertexCount);
+		if (positions != null) optimizeOverdraw(optimized, positions, vertexCount, DEFAULT_CACHE_SIZE);
+		System.arraycopy(optimized, 0, indecies, 0, optimized.length);
+		return optimizeVertexFetch(indecies, vertexCount);
+	}
+
+	/**
+	 * Optimizes all fragments of the model in place.
+	 *
+	 * @param model The model to optimize
+	 * @param overdraw If the overdraw optimization should be applied
+	 * @return The combined statistics of all fragments
+	 */
+	public static <R extends IResourceProvider<R>> Statistics optimize(ModelData<R> model, boolean overdraw) {
+		Statistics statistics = new Statistics(0, 0, 0);
+		for (ModelData<R>.FragmentData fragment : model.fragmentData) {
+			int vertexCount = fragment.vertecies.size();
+			int[] indecies = fragment.indecies;
+			if (indecies == null || indecies.length < 3) continue;
+
+			float[] positions = null;
+			if (overdraw) {
+				positions = new float[vertexCount * 3];
+				for (int v = 0; v < vertexCount; v++) {
+					positions[v * 3] = fragment.vertecies.get(v).vertex.x;
+					positions[v * 3 + 1] = fragment.vertecies.get(v).vertex.y;
+					positions[v * 3 + 2] = fragment.vertecies.get(v).vertex.z;
+				}
+			}
+
+			float before = acmr(indecies, vertexCount, DEFAULT_CACHE_SIZE);
+			int[] remap = optimize(indecies, positions, vertexCount);
+			List<ModelData<R>.VertexData> vertecies = new ArrayList<>(fragment.vertecies);
+			for (int v = 0; v < vertexCount; v++) vertecies.set(remap[v], fragment.vertecies.get(v));
+			fragment.vertecies = vertecies;
+			statistics = statistics.combine(new Statistics(indecies.length / 3, before, acmr(indecies, vertexCount, DEFAULT_CACHE_SIZE)));
+		}
+		return statistics;
+	}
+
+	/**
+	 * Creates an optimized copy of a completed draw, intended to be called before uploading static geometry.
+	 * Draws using shared indecies get their own index data in the copy.
+	 * The overdraw optimization is only applied if the first element of the format is a float position with at least three components.
+	 *
+	 * @param pair The draw to optimize
+	 * @param overdraw If the overdraw optimization should be applied
+	 * @return The optimized draw together with its statistics
+	 * @throws IllegalArgumentException If the draw does not consist of triangles
+	 */
+	public static OptimizedDraw optimize(BufferPair pair, boolean overdraw) {
+		DrawState drawState = pair.drawState();
+		if (drawState.type().getgltype() != RenderPrimitive.TRIANGLES.getgltype()) throw new IllegalArgumentException("Only triangle meshes can be optimized!");
+
+		int vertexCount = drawState.vertices();
+		int stride = drawState.format().getSize();
+		int[] indecies = new int[drawState.indecies()];
+		for (int i = 0; i < indecies.length; i++) indecies[i] = pair.index(i);
+
+		float[] positions = null;
+		VertexElement position = drawState.format().getElementCount() > 0 ? drawState.format().getElements().get(0) : null;
+		if (overdraw && position != null && position.format() == NumberFormat.FLOAT && position.count() >= 3) {
+			positions = new float[vertexCount * 3];
+			for (int v = 0; v < vertexCount; v++) {
+				for (int c = 0; c < 3; c++) positions[v * 3 + c] = pair.buffer().getFloat(v * stride + position.offset() + c * 4);
+			}
+		}
+
+		float before = acmr(indecies, vertexCount, DEFAULT_CACHE_SIZE);
+		int[] remap = optimize(indecies, positions, vertexCount);
+
+		NumberFormat indexFormat = BufferBuilder.indexFormatFor(vertexCount);
+		DrawState optimizedState = new DrawState(vertexCount, indecies.length, drawState.format(), drawState.type(), indexFormat, false);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(optimizedState.vertexBytes() + optimizedState.indexBytes()).order(ByteOrder.nativeOrder());
+		ByteBuffer source = pair.buffer().duplicate().order(pair.buffer().order());
+		for (int v = 0; v < vertexCount; v++) {
+			buffer.put(remap[v] * stride, source, v * stride, stride);
+		}
+		buffer.position(optimizedState.vertexBytes());
+		for (int index : indecies) {
+			switch (indexFormat) {
+			case UBYTE: buffer.put((byte) index); break;
+			case USHORT: buffer.putShort((short) index); break;
+			default: buffer.putInt(index);
+			}
+		}
+		buffer.clear();
+
+		return new OptimizedDraw(new BufferPair(buffer, optimizedState), new Statistics(indecies.length / 3, before, acmr(indecies, vertexCount, DEFAULT_CACHE_SIZE)));
+	}
+
+}
@@ -2,8 +2,11 @@ package de.m_marvin.gframe.models;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 import de.m_marvin.gframe.resources.IResourceProvider;
+import de.m_marvin.gframe.translation.PoseStack;
+import de.m_marvin.gframe.utility.GeometryTransform;
 import de.m_marvin.univec.impl.Vec2f;
 import de.m_marvin.univec.impl.Vec3f;
 import de.m_marvin.univec.impl.Vec4f;
@@ -115,6 +118,54 @@ public class ModelData<R extends IResourceProvider<R>> {
 		
 	}
 	
+	/**
+	 * Writes the model transformed by the current pose of the stack, the model itself is not changed.
+	 * The positions, normals, tangents and bitangents of each fragment are transformed at once using the {@link GeometryTransform}, the normals are not renormalized.
+	 * 
+	 * @param fragmentWriter The writer receiving the transformed fragments
+	 * @param poseStack The pose stack containing the transformation
+	 */
+	public void writeToBuffer(FragmentWriter<R> fragmentWriter, PoseStack poseStack) {
+		
+		for (FragmentData fragment : this.fragmentData) {
+			Vec3f[] vertecies = transform(fragment.vertecies, v -> v.vertex, poseStack, false);
+			Vec3f[] normals = transform(fragment.vertecies, v -> v.normal, poseStack, true);
+			Vec3f[] tangents = transform(fragment.vertecies, v -> v.tangent, poseStack, true);
+			Vec3f[] bitangents = transform(fragment.vertecies, v -> v.bitangent, poseStack, true);
+			fragmentWriter.startFragment(fragment.shaderData);
+			for (int i = 0; i < fragment.vertecies.size(); i++) {
+				VertexData vertex = fragment.vertecies.get(i);
+				fragmentWriter.writeVertex(vertecies[i], vertex.color, normals[i], tangents[i], bitangents[i], vertex.texcoord);
+			}
+			fragmentWriter.endFragment(fragment.indecies);
+		}
+		
+	}
+	
+	protected Vec3f[] transform(List<VertexData> vertecies, Function<VertexData, Vec3f> attribute, PoseStack poseStack, boolean normal) {
+		int count = vertecies.size();
+		float[] x = new float[count];
+		float[] y = new float[count];
+		float[] z = new float[count];
+		for (int i = 0; i < count; i++) {
+			Vec3f v = attribute.apply(vertecies.get(i));
+			if (v == null) continue;
+			x[i] = v.x;
+			y[i] = v.y;
+			z[i] = v.z;
+		}
+		if (normal) {
+			GeometryTransform.transformNormals(poseStack, x, y, z, 0, count);
+		} else {
+			GeometryTransform.transformPositions(poseStack, x, y, z, 0, count);
+		}
+		Vec3f[] transformed = new Vec3f[count];
+		for (int i = 0; i < count; i++) {
+			if (attribute.apply(vertecies.get(i)) != null) transformed[i] = new Vec3f(x[i], y[i], z[i]);
+		}
+		return transformed;
+	}
+	
 	public static interface FragmentWriter<R extends IResourceProvider<R>> {
 		public void startFragment(ShaderData<R> shaderData);
 		public void writeVertex(Vec3f vertex, Vec4f color, Vec3f normal, Vec3f tangent, Vec3f bitangent, Vec2f uv);
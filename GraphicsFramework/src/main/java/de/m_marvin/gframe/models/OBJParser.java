@@ -49,6 +49,40 @@ public class OBJParser<R extends IResourceProvider<R>> {
 	protected List<Face> faces = new ArrayList<>();
 	protected Map<String, Material> materials = new HashMap<>();
 	
+	/**
+	 * Key identifying a face corner by its position, texcoord and normal index.
+	 */
+	protected static record CornerKey(int vertex, int texcoord, int normal) {}
+	
+	/**
+	 * Key identifying a face corner by its quantized position, texcoord, normal and color.
+	 */
+	protected static record QuantizedCornerKey(int x, int y, int z, int u, int v, int nx, int ny, int nz, int r, int g, int b) {}
+	
+	protected boolean weldVertices = true;
+	protected float weldTolerance = 0.0F;
+	
+	/**
+	 * Enables or disables the deduplication of face corners.
+	 * If enabled (the default) corners referencing the same position, texcoord and normal are merged into one vertex of the fragment.
+	 * Otherwise every face corner produces its own vertex.
+	 * @param weldVertices True if equal corners should be merged
+	 */
+	public void setWeldVertices(boolean weldVertices) {
+		this.weldVertices = weldVertices;
+	}
+	
+	/**
+	 * Sets the tolerance used to compare the values of the face corners.
+	 * If greater than zero, corners are merged if their position, texcoord, normal and color are equal after quantizing them to multiples of the tolerance, even if they reference different entries of the OBJ file.
+	 * If zero (the default), only corners with identical indecies are merged.
+	 * @param weldTolerance The quantization step of the compared values
+	 */
+	public void setWeldTolerance(float weldTolerance) {
+		if (weldTolerance < 0) throw new IllegalArgumentException("The weld tolerance can't be negative!");
+		this.weldTolerance = weldTolerance;
+	}
+	
 	public ModelData<R> makeModelData(R modelFilesLocation) {
 		
 		ModelData<R> modelData = new ModelData<>();
@@ -59,82 +93,10 @@ public class OBJParser<R extends IResourceProvider<R>> {
 			
 			List<Face> faces = this.faces.stream().filter(f -> f.usemtl.equals(material)).toList();
 			
-			List<Integer> indecies = new ArrayList<>();
-			
-			for (Face face : faces) {
-
-				int indecieCount = face.vertexIndecies.size();
-				if (indecieCount > 3) indecieCount = 3 + (indecieCount - 3) * 3;
-
-				int firstFaceVertexIndex = fragment.vertecies.size();
-				
-				for (int i = 0; i < indecieCount; i++) {
-					
-					int index = i < 3 ? i : (i % 3) == 0 ? 0 : ((i % 3) == 1) ? 1 + (i / 3) : 2 + (i / 3);
-					indecies.add(firstFaceVertexIndex + index);
-					
-				}
-				
-				for (int i = 0; i < face.vertexIndecies.size(); i++) {
-					
-					ModelData<R>.VertexData vertexData = modelData.new VertexData();
-					
-					vertexData.vertex = face.vertexIndecies.get(i) < 1 ? new Vec3f(0, 0, 0) : this.vertecies.get(face.vertexIndecies.get(i) - 1);
-					Vec3f color = face.vertexIndecies.get(i) < 1 ? new Vec3f(1, 1, 1) : this.colors.get(face.vertexIndecies.get(i) - 1);
-					vertexData.color = new Vec4f(color.x, color.y, color.z, 1.0F);
-					vertexData.texcoord = face.texcoordIndecies.get(i) < 1 ? new Vec2f(0, 0) : this.texcoords.get(face.texcoordIndecies.get(i) - 1);
-					vertexData.normal = face.normalIndecies.get(i) < 1 ? new Vec3f(0, 0, 0) : this.normals.get(face.normalIndecies.get(i) - 1);
-					
-					// values calculated later
-					vertexData.tangent = new Vec3f(0, 0, 0);
-					vertexData.bitangent = new Vec3f(0, 0, 0);
-					
-					fragment.vertecies.add(vertexData);
-					
-				}
-				
-			}
-
-			// per triangle tangent and bitangent calculation
-			for (int tri = 0; tri < indecies.size() / 3; tri++) {
-				
-				ModelData<R>.VertexData vrtx1 = fragment.vertecies.get(indecies.get((tri * 3) + 0));
-				ModelData<R>.VertexData vrtx2 = fragment.vertecies.get(indecies.get((tri * 3) + 1));
-				ModelData<R>.VertexData vrtx3 = fragment.vertecies.get(indecies.get((tri * 3) + 2));
-				
-				Vec3f edge1 = vrtx2.vertex.sub(vrtx1.vertex);
-				Vec3f edge2 = vrtx3.vertex.sub(vrtx1.vertex);
-				Vec2f deltaUV1 = vrtx2.texcoord.sub(vrtx1.texcoord);
-				Vec2f deltaUV2 = vrtx3.texcoord.sub(vrtx1.texcoord);
-				
-				float f = 1 / (deltaUV1.x * deltaUV2.y - deltaUV2.x * deltaUV1.y);
-				
-				Vec3f tangent = new Vec3f(
-						f * (deltaUV2.y * edge1.x - deltaUV1.y * edge2.x),
-						f * (deltaUV2.y * edge1.y - deltaUV1.y * edge2.y),
-						f * (deltaUV2.y * edge1.z - deltaUV1.y * edge2.z)
-					);
-				
-				Vec3f bitangent = new Vec3f(
-						f * (-deltaUV2.x * edge1.x + deltaUV1.x * edge2.x),
-						f * (-deltaUV2.x * edge1.y + deltaUV1.x * edge2.y),
-						f * (-deltaUV2.x * edge1.z + deltaUV1.x * edge2.z)
-					);
-				
-				vrtx1.tangent.addI(tangent).normalizeI();
-				vrtx2.tangent.addI(tangent).normalizeI();
-				vrtx3.tangent.addI(tangent).normalizeI();
-				vrtx1.bitangent.addI(bitangent).normalizeI();
-				vrtx2.bitangent.addI(bitangent).normalizeI();
-				vrtx3.bitangent.addI(bitangent).normalizeI();
-				
-			}
+			makeFragmentGeometry(modelData, fragment, faces);
 			
 			if (fragment.vertecies.size() == 0) continue;
 			
-			fragment.indecies = new int[indecies.size()];
-			for (int i = 0; i < fragment.indecies.length; i++) fragment.indecies[i] = indecies.get(i);
-			
 			Material mtrl = this.materials.get(material);
 			
 			fragment.shaderData = new ShaderData<>();
@@ -160,41 +122,139 @@ public class OBJParser<R extends IResourceProvider<R>> {
 		
 		List<Face> faces = this.faces.stream().filter(f -> f.usemtl == null || f.usemtl.isEmpty()).toList();
 		
+		makeFragmentGeometry(modelData, fragment, faces);
+		
+		if (fragment.vertecies.size() == 0) return modelData;
+		
+		fragment.shaderData = new ShaderData<>();
+		
+		modelData.fragmentData.add(fragment);
+		
+		return modelData;
+		
+	}
+	
+	/**
+	 * Triangulates the faces and fills the vertecies and indecies of the fragment.
+	 * Face corners which are equal according to {@link #setWeldVertices(boolean)} and {@link #setWeldTolerance(float)} share one vertex.
+	 * The tangents and bitangents are accumulated over all triangles sharing a vertex.
+	 */
+	protected void makeFragmentGeometry(ModelData<R> modelData, ModelData<R>.FragmentData fragment, List<Face> faces) {
+		
+		Map<Object, Integer> corners = new HashMap<>();
+		List<Integer> indecies = new ArrayList<>();
+		int[] faceVertecies = new int[0];
+		
 		for (Face face : faces) {
-
-			int indecieCount = face.vertexIndecies.size();
-			if (indecieCount > 3) indecieCount = 3 + (indecieCount - 3) * 3;
 			
-			fragment.indecies = new int[indecieCount];
-			for (int i = 0; i < indecieCount; i++) {
-				fragment.indecies[i] = fragment.vertecies.size() + (i % 3) + (i / 3);
-			}
+			int cornerCount = face.vertexIndecies.size();
+			if (faceVertecies.length < cornerCount) faceVertecies = new int[cornerCount];
 			
-			for (int i = 0; i < face.vertexIndecies.size(); i++) {
+			for (int i = 0; i < cornerCount; i++) {
+				
+				int v = face.vertexIndecies.get(i);
+				int vt = face.texcoordIndecies.get(i);
+				int vn = face.normalIndecies.get(i);
+				
+				Vec3f vertex = v < 1 ? new Vec3f(0, 0, 0) : this.vertecies.get(v - 1);
+				Vec3f color = v < 1 ? new Vec3f(1, 1, 1) : this.colors.get(v - 1);
+				Vec2f texcoord = vt < 1 ? new Vec2f(0, 0) : this.texcoords.get(vt - 1);
+				Vec3f normal = vn < 1 ? new Vec3f(0, 0, 0) : this.normals.get(vn - 1);
+				
+				Object key = null;
+				if (this.weldVertices) {
+					key = this.weldTolerance > 0 ? quantizedKey(vertex, texcoord, normal, color) : new CornerKey(v, vt, vn);
+					Integer existing = corners.get(key);
+					if (existing != null) {
+						faceVertecies[i] = existing;
+						continue;
+					}
+				}
 				
 				ModelData<R>.VertexData vertexData = modelData.new VertexData();
 				
-				vertexData.vertex = face.vertexIndecies.get(i) < 1 ? new Vec3f(0, 0, 0) : this.vertecies.get(face.vertexIndecies.get(i) - 1);
-				vertexData.texcoord = face.texcoordIndecies.get(i) < 1 ? new Vec2f(0, 0) : this.texcoords.get(face.texcoordIndecies.get(i) - 1);
-				vertexData.normal = face.normalIndecies.get(i) < 1 ? new Vec3f(0, 0, 0) : this.vertecies.get(face.normalIndecies.get(i) - 1);
-				vertexData.color = new Vec4f(1, 1, 1, 1);
+				vertexData.vertex = vertex;
+				vertexData.color = new Vec4f(color.x, color.y, color.z, 1.0F);
+				vertexData.texcoord = texcoord;
+				vertexData.normal = normal;
+				
+				// values calculated later
+				vertexData.tangent = new Vec3f(0, 0, 0);
+				vertexData.bitangent = new Vec3f(0, 0, 0);
 				
+				faceVertecies[i] = fragment.vertecies.size();
+				if (key != null) corners.put(key, faceVertecies[i]);
 				fragment.vertecies.add(vertexData);
 				
 			}
-
+			
+			int indecieCount = cornerCount;
+			if (indecieCount > 3) indecieCount = 3 + (indecieCount - 3) * 3;
+			
+			for (int i = 0; i < indecieCount; i++) {
+				
+				int index = i < 3 ? i : (i % 3) == 0 ? 0 : ((i % 3) == 1) ? 1 + (i / 3) : 2 + (i / 3);
+				indecies.add(faceVertecies[index]);
+				
+			}
+			
 		}
-
-		if (fragment.vertecies.size() == 0) return modelData;
 		
-		fragment.shaderData = new ShaderData<>();
+		// per triangle tangent and bitangent calculation
+		for (int tri = 0; tri < indecies.size() / 3; tri++) {
+			
+			ModelData<R>.VertexData vrtx1 = fragment.vertecies.get(indecies.get((tri * 3) + 0));
+			ModelData<R>.VertexData vrtx2 = fragment.vertecies.get(indecies.get((tri * 3) + 1));
+			ModelData<R>.VertexData vrtx3 = fragment.vertecies.get(indecies.get((tri * 3) + 2));
+			
+			Vec3f edge1 = vrtx2.vertex.sub(vrtx1.vertex);
+			Vec3f edge2 = vrtx3.vertex.sub(vrtx1.vertex);
+			Vec2f deltaUV1 = vrtx2.texcoord.sub(vrtx1.texcoord);
+			Vec2f deltaUV2 = vrtx3.texcoord.sub(vrtx1.texcoord);
+			
+			float f = 1 / (deltaUV1.x * deltaUV2.y - deltaUV2.x * deltaUV1.y);
+			if (!Float.isFinite(f)) continue;
+			
+			Vec3f tangent = new Vec3f(
+					f * (deltaUV2.y * edge1.x - deltaUV1.y * edge2.x),
+					f * (deltaUV2.y * edge1.y - deltaUV1.y * edge2.y),
+					f * (deltaUV2.y * edge1.z - deltaUV1.y * edge2.z)
+				);
+			
+			Vec3f bitangent = new Vec3f(
+					f * (-deltaUV2.x * edge1.x + deltaUV1.x * edge2.x),
+					f * (-deltaUV2.x * edge1.y + deltaUV1.x * edge2.y),
+					f * (-deltaUV2.x * edge1.z + deltaUV1.x * edge2.z)
+				);
+			
+			vrtx1.tangent.addI(tangent);
+			vrtx2.tangent.addI(tangent);
+			vrtx3.tangent.addI(tangent);
+			vrtx1.bitangent.addI(bitangent);
+			vrtx2.bitangent.addI(bitangent);
+			vrtx3.bitangent.addI(bitangent);
+			
+		}
 		
-		modelData.fragmentData.add(fragment);
+		for (ModelData<R>.VertexData vertexData : fragment.vertecies) {
+			if (vertexData.tangent.length() > 0) vertexData.tangent.normalizeI();
+			if (vertexData.bitangent.length() > 0) vertexData.bitangent.normalizeI();
+		}
 		
-		return modelData;
+		fragment.indecies = new int[indecies.size()];
+		for (int i = 0; i < fragment.indecies.length; i++) fragment.indecies[i] = indecies.get(i);
 		
 	}
 	
+	protected QuantizedCornerKey quantizedKey(Vec3f vertex, Vec2f texcoord, Vec3f normal, Vec3f color) {
+		float q = 1 / this.weldTolerance;
+		return new QuantizedCornerKey(
+				Math.round(vertex.x * q), Math.round(vertex.y * q), Math.round(vertex.z * q),
+				Math.round(texcoord.x * q), Math.round(texcoord.y * q),
+				Math.round(normal.x * q), Math.round(normal.y * q), Math.round(normal.z * q),
+				Math.round(color.x * q), Math.round(color.y * q), Math.round(color.z * q));
+	}
+	
 	protected String usemtl = "";
 	protected String object = "";
 	protected String group = "";
@@ -0,0 +1,220 @@
+package de.m_marvin.gframe.models;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.m_marvin.gframe.buffers.BufferBuilder;
+import de.m_marvin.gframe.buffers.IBufferBuilder.BufferPair;
+import de.m_marvin.gframe.buffers.IBufferBuilder.DrawState;
+import de.m_marvin.gframe.buffers.VertexBuffer;
+import de.m_marvin.gframe.utility.NumberFormat;
+import de.m_marvin.gframe.vertices.RenderPrimitive;
+
+/**
+ * Converts indexed triangle lists into triangle strips, which need about one index per triangle instead of three.
+ * The strips are joined by the primitive restart index of the index format, see {@link NumberFormat#restartIndex()}.
+ * The {@link VertexBuffer} enables primitive restart automatically when drawing the converted data.
+ *
+ * The strips are built greedy, starting at the triangles with the fewest unvisited neighbors and following the shared edges as long as possible.
+ * The winding order of all triangles is kept, so only neighbors with a consistent winding are connected.
+ * Intended for static geometry, the vertex cache efficiency of the strips is usually slightly lower than of an optimized triangle list, see {@link MeshOptimizer}.
+ */
+public class TriangleStripifier {
+
+	private TriangleStripifier() {}
+
+	/**
+	 * Returns the index format used for a strip draw with the given number of vertices.
+	 * The format is one step larger than the one chosen by {@link BufferBuilder#indexFormatFor(int)} if the restart index would be a valid vertex index.
+	 * @param vertexCount The number of vertices of the draw
+	 * @return The index format of the draw
+	 */
+	public static NumberFormat indexFormatFor(int vertexCount) {
+		return BufferBuilder.indexFormatFor(vertexCount + 1);
+	}
+
+	/**
+	 * Converts the triangle list into triangle strips joined by the restart index.
+	 *
+	 * @param indecies The triangle list indecies
+	 * @param restartIndex The index inserted between two strips
+	 * @return The strip indecies
+	 */
+	public static int[] stripify(int[] indecies, int restartIndex) {
+		int triangleCount = indecies.length / 3;
+		if (triangleCount == 0) return new int[0];
+
+		// Every corner represents the directed edge from its vertex to the next vertex of the triangle
+		Map<Long, Integer> edges = new HashMap<>(triangleCount * 4);
+		int[] nextEdge = new int[triangleCount * 3];
+		for (int e = triangleCount * 3 - 1; e >= 0; e--) {
+			Integer previous = edges.put(edgeKey(indecies[e], indecies[nextCorner(e)]), e);
+			nextEdge[e] = previous == null ? -1 : previous;
+		}
+
+		boolean[] used = new boolean[triangleCount];
+		int[] neighbors = new int[triangleCount];
+		for (int t = 0; t < triangleCount; t++) {
+			for (int c = 0; c < 3; c++) {
+				if (findEdge(edges, nextEdge, used, indecies[t * 3 + (c + 1) % 3], indecies[t * 3 + c]) >= 0) neighbors[t]++;
+			}
+		}
+
+		// Buckets of the triangles by their number of unvisited neighbors, entries become stale when the count changes
+		@SuppressWarnings("unchecked")
+		ArrayDeque<Integer>[] buckets = new ArrayDeque[4];
+		for (int b = 0; b < 4; b++) buckets[b] = new ArrayDeque<>();
+		for (int t = 0; t < triangleCount; t++) buckets[neighbors[t]].addLast(t);
+
+		int[] strip = new int[triangleCount + 2];
+		int[] stripTriangles = new int[triangleCount];
+		int[] bestStrip = new int[triangleCount + 2];
+		int[] bestTriangles = new int[triangleCount];
+		int[] trial = new int[triangleCount];
+		int trialId = 0;
+
+		int[] result = new int[triangleCount * 4];
+		int length = 0;
+		int remaining = triangleCount;
+
+		while (remaining > 0) {
+
+			int start = -1;
+			for (int b = 0; b < 4 && start < 0; b++) {
+				while (!buckets[b].isEmpty()) {
+					int t = buckets[b].pollFirst();
+					if (!used[t] && neighbors[t] == b) {
+						start = t;
+						break;
+					}
+				}
+			}
+
+			// Try all rotations of the start triangle and keep the longest strip
+			int bestLength = 0;
+			for (int rotation = 0; rotation < 3; rotation++) {
+				trialId++;
+				trial[start] = trialId;
+				strip[0] = indecies[start * 3 + rotation];
+				strip[1] = indecies[start * 3 + (rotation + 1) % 3];
+				strip[2] = indecies[start * 3 + (rotation + 2) % 3];
+				stripTriangles[0] = start;
+				int stripLength = 3;
+				while (true) {
+					int p = strip[stripLength - 2];
+					int q = strip[stripLength - 1];
+					// Odd triangles of a strip are drawn with reversed winding
+					boolean odd = ((stripLength - 2) & 1) == 1;
+					int e = odd ? findEdge(edges, nextEdge, used, trial, trialId, q, p) : findEdge(edges, nextEdge, used, trial, trialId, p, q);
+					if (e < 0) break;
+					int t = e / 3;
+					trial[t] = trialId;
+					stripTriangles[stripLength - 2] = t;
+					strip[stripLength++] = indecies[nextCorner(nextCorner(e))];
+				}
+				if (stripLength > bestLength) {
+					bestLength = stripLength;
+					int[] swap = bestStrip;
+					bestStrip = strip;
+					strip = swap;
+					swap = bestTriangles;
+					bestTriangles = stripTriangles;
+					stripTriangles = swap;
+				}
+			}
+
+			if (length > 0) result = append(result, length++, restartIndex);
+			for (int i = 0; i < bestLength; i++) result = append(result, length++, bestStrip[i]);
+
+			for (int i = 0; i < bestLength - 2; i++) {
+				int t = bestTriangles[i];
+				used[t] = true;
+				remaining--;
+			}
+			for (int i = 0; i < bestLength - 2; i++) {
+				int t = bestTriangles[i];
+				for (int c = 0; c < 3; c++) {
+					int e = findEdge(edges, nextEdge, used, indecies[t * 3 + (c + 1) % 3], indecies[t * 3 + c]);
+					if (e < 0) continue;
+					int n = e / 3;
+					if (neighbors[n] > 0) neighbors[n]--;
+					buckets[neighbors[n]].addFirst(n);
+				}
+			}
+
+		}
+
+		return result.length == length ? result : Arrays.copyOf(result, length);
+	}
+
+	/**
+	 * Creates a copy of a completed triangle draw, converted into triangle strips joined by the restart index.
+	 * The vertex data is copied unchanged, draws using shared indecies get their own index data in the copy.
+	 * Since strips are not cache optimized, the draw should be passed to {@link MeshOptimizer#optimize(BufferPair, boolean)} before converting it.
+	 *
+	 * @param pair The draw to convert
+	 * @return The converted draw with the primitive {@link RenderPrimitive#TRIANGLES_STRIP}
+	 * @throws IllegalArgumentException If the draw does not consist of triangles
+	 */
+	public static BufferPair stripify(BufferPair pair) {
+		DrawState drawState = pair.drawState();
+		if (drawState.type().getgltype() != RenderPrimitive.TRIANGLES.getgltype()) throw new IllegalArgumentException("Only triangle meshes can be converted to strips!");
+
+		int vertexCount = drawState.vertices();
+		int[] indecies = new int[drawState.indecies()];
+		for (int i = 0; i < indecies.length; i++) indecies[i] = pair.index(i);
+
+		NumberFormat indexFormat = indexFormatFor(vertexCount);
+		int[] strips = stripify(indecies, indexFormat.restartIndex());
+
+		DrawState stripState = new DrawState(vertexCount, strips.length, drawState.format(), RenderPrimitive.TRIANGLES_STRIP, indexFormat, false);
+		ByteBuffer buffer = ByteBuffer.allocateDirect(stripState.vertexBytes() + stripState.indexBytes()).order(ByteOrder.nativeOrder());
+		buffer.put(0, pair.buffer().duplicate().order(pair.buffer().order()), 0, stripState.vertexBytes());
+		buffer.position(stripState.vertexBytes());
+		for (int index : strips) {
+			switch (indexFormat) {
+			case UBYTE: buffer.put((byte) index); break;
+			case USHORT: buffer.putShort((short) index); break;
+			default: buffer.putInt(index);
+			}
+		}
+		buffer.clear();
+
+		return new BufferPair(buffer, stripState);
+	}
+
+	private static int[] append(int[] array, int position, int value) {
+		if (position == array.length) array = Arrays.copyOf(array, array.length * 2);
+		array[position] = value;
+		return array;
+	}
+
+	private static int nextCorner(int corner) {
+		return corner % 3 == 2 ? corner - 2 : corner + 1;
+	}
+
+	private static long edgeKey(int from, int to) {
+		return ((long) from << 32) | (to & 0xFFFFFFFFL);
+	}
+
+	private static int findEdge(Map<Long, Integer> edges, int[] nextEdge, boolean[] used, int from, int to) {
+		Integer first = edges.get(edgeKey(from, to));
+		for (int e = first == null ? -1 : first; e >= 0; e = nextEdge[e]) {
+			if (!used[e / 3]) return e;
+		}
+		return -1;
+	}
+
+	private static int findEdge(Map<Long, Integer> edges, int[] nextEdge, boolean[] used, int[] trial, int trialId, int from, int to) {
+		Integer first = edges.get(edgeKey(from, to));
+		for (int e = first == null ? -1 : first; e >= 0; e = nextEdge[e]) {
+			if (!used[e / 3] && trial[e / 3] != trialId) return e;
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,474 @@
+package de.m_marvin.gframe.profiler;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.stream.JsonWriter;
+
+import de.m_marvin.gframe.GLStateManager;
+
+/**
+ * Measures the CPU and GPU time of nested named scopes per frame.
+ * Scopes are opened with {@link #push(String)} and closed with {@link #pop()}, between {@link #beginFrame()} and {@link #endFrame()}, which surround an implicit root scope named "frame".
+ *
+ * The GPU time is measured with timestamp queries at the begin and end of each scope.
+ * The results are not waited for, a frame stays pending until the GPU has passed its last query, which usually takes one or two frames.
+ * Pending frames are checked at the begin of every frame, if more than {@link #setMaxPendingFrames(int)} frames are pending the GPU times of the oldest one are discarded.
+ * Query objects are reused across frames.
+ *
+ * Completed frames update the rolling {@link ScopeStatistics} of their scopes and are kept in a history, which can be printed as tree or exported as Chrome trace JSON (chrome://tracing or Perfetto).
+ * The profiler has to be used from the render thread if GPU timing is enabled.
+ */
+public class FrameProfiler {
+
+	public static final String ROOT_SCOPE = "frame";
+
+	/**
+	 * One execution of a scope.
+	 * All times are in nanoseconds, GPU times are negative if not (yet) available.
+	 */
+	public static class Scope {
+
+		protected String name;
+		protected String path;
+		protected int depth;
+		protected int parent;
+		protected long cpuStart;
+		protected long cpuEnd;
+		protected int startQuery;
+		protected int endQuery;
+		protected long gpuStart;
+		protected long gpuEnd;
+
+		public String getName() {
+			return name;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public int getDepth() {
+			return depth;
+		}
+
+		/**
+		 * Returns the index of the enclosing scope in the frame or -1 for the root scope.
+		 * @return The index of the parent scope
+		 */
+		public int getParent() {
+			return parent;
+		}
+
+		public long getCpuStart() {
+			return cpuStart;
+		}
+
+		public long getCpuTime() {
+			return this.cpuEnd - this.cpuStart;
+		}
+
+		/**
+		 * Returns the GPU timestamp at the begin of the scope, on the clock of the GPU.
+		 * @return The GPU timestamp or -1 if not available
+		 */
+		public long getGpuStart() {
+			return gpuStart;
+		}
+
+		public long getGpuTime() {
+			return this.gpuStart < 0 || this.gpuEnd < 0 ? -1 : this.gpuEnd - this.gpuStart;
+		}
+
+	}
+
+	/**
+	 * The scopes of one frame, in the order they were opened.
+	 */
+	public static class Frame {
+
+		protected long index;
+		protected final List<Scope> scopes = new ArrayList<>();
+		protected int size;
+
+		public long getIndex() {
+			return index;
+		}
+
+		public List<Scope> getScopes() {
+			return Collections.unmodifiableList(this.scopes.subList(0, this.size));
+		}
+
+		public Scope getRoot() {
+			return this.scopes.get(0);
+		}
+
+		public long getCpuTime() {
+			return getRoot().getCpuTime();
+		}
+
+		public long getGpuTime() {
+			return getRoot().getGpuTime();
+		}
+
+		protected Scope addScope() {
+			if (this.size == this.scopes.size()) this.scopes.add(new Scope());
+			return this.scopes.get(this.size++);
+		}
+
+	}
+
+	protected boolean enabled = true;
+	protected boolean gpuTiming = true;
+	protected int historySize;
+	protected int window;
+	protected int maxPendingFrames = 4;
+
+	protected long frameIndex;
+	protected Frame current;
+	protected int[] scopeStack = new int[16];
+	protected int depth;
+	protected final ArrayDeque<Frame> pending = new ArrayDeque<>();
+	protected final ArrayDeque<Frame> history = new ArrayDeque<>();
+	protected final ArrayDeque<Frame> framePool = new ArrayDeque<>();
+	protected int[] queryPool = new int[64];
+	protected int freeQueries;
+	protected final Map<String, ScopeStatistics> statistics = new LinkedHashMap<>();
+
+	/**
+	 * Creates a profiler keeping the last 120 frames and averaging over the last 60 frames.
+	 */
+	public FrameProfiler() {
+		this(120, 60);
+	}
+
+	/**
+	 * Creates a new profiler.
+	 *
+	 * @param historySize The number of completed frames kept for printing and exporting
+	 * @param window The number of frames the statistics are calculated over
+	 */
+	public FrameProfiler(int historySize, int window) {
+		if (historySize <= 0 || window <= 0) throw new IllegalArgumentException("The history size and the statistics window have to be at least one frame!");
+		this.historySize = historySize;
+		this.window = window;
+	}
+
+	/**
+	 * Enables or disables the profiler, while disabled all methods return immediately.
+	 * Changing the state is only allowed between frames.
+	 * @param enabled True if frames should be recorded
+	 */
+	public void setEnabled(boolean enabled) {
+		if (this.current != null) throw new IllegalStateException("Can not enable or disable the profiler during a frame!");
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Enables or disables the GPU time measurement, if disabled only CPU times are recorded and no OpenGL context is required.
+	 * Changing the state is only allowed between frames.
+	 * @param gpuTiming True if timestamp queries should be used
+	 */
+	public void setGpuTiming(boolean gpuTiming) {
+		if (this.current != null) throw new IllegalStateException("Can not change the GPU timing during a frame!");
+		this.gpuTiming = gpuTiming;
+	}
+
+	public boolean isGpuTiming() {
+		return gpuTiming;
+	}
+
+	/**
+	 * Sets the number of frames that can wait for their GPU results before the results of the oldest frame are discarded.
+	 * @param maxPendingFrames The maximum number of pending frames
+	 */
+	public void setMaxPendingFrames(int maxPendingFrames) {
+		if (maxPendingFrames <= 0) throw new IllegalArgumentException("At least one frame has to be able to wait for its results!");
+		this.maxPendingFrames = maxPendingFrames;
+	}
+
+	public int getMaxPendingFrames() {
+		return maxPendingFrames;
+	}
+
+	/**
+	 * Starts a new frame and opens its root scope.
+	 * Collects the GPU results of previous frames that have become available.
+	 */
+	public void beginFrame() {
+		if (!this.enabled) return;
+		if (this.current != null) throw new IllegalStateException("The previous frame has not been ended!");
+		collect(false);
+		Frame frame = this.framePool.poll();
+		if (frame == null) frame = new Frame();
+		frame.index = this.frameIndex++;
+		frame.size = 0;
+		this.current = frame;
+		this.depth = 0;
+		push(ROOT_SCOPE);
+	}
+
+	/**
+	 * Closes the root scope and ends the frame.
+	 * The frame is completed as soon as its GPU results are available, see {@link #getLastFrame()}.
+	 */
+	public void endFrame() {
+		if (!this.enabled) return;
+		if (this.current == null) throw new IllegalStateException("No frame has been started!");
+		if (this.depth != 1) throw new IllegalStateException("Unbalanced profiler scopes, " + (this.depth - 1) + " scopes are still open!");
+		pop();
+		Frame frame = this.current;
+		this.current = null;
+		if (this.gpuTiming) {
+			this.pending.add(frame);
+		} else {
+			complete(frame);
+		}
+	}
+
+	/**
+	 * Opens a new scope inside the current one.
+	 * @param name The name of the scope
+	 */
+	public void push(String name) {
+		if (!this.enabled) return;
+		if (this.current == null) throw new IllegalStateException("Scopes can only be opened during a frame!");
+		int index = this.current.size;
+		Scope scope = this.current.addScope();
+		Scope parent = this.depth > 0 ? this.current.scopes.get(this.scopeStack[this.depth - 1]) : null;
+		scope.name = name;
+		scope.path = parent != null ? parent.path + "/" + name : name;
+		scope.depth = this.depth;
+		scope.parent = parent != null ? this.scopeStack[this.depth - 1] : -1;
+		scope.gpuStart = -1;
+		scope.gpuEnd = -1;
+		scope.startQuery = 0;
+		scope.endQuery = 0;
+		if (this.depth == this.scopeStack.length) this.scopeStack = Arrays.copyOf(this.scopeStack, this.depth * 2);
+		this.scopeStack[this.depth++] = index;
+		if (this.gpuTiming) {
+			scope.startQuery = obtainQuery();
+			GLStateManager.queryTimestamp(scope.startQuery);
+		}
+		scope.cpuStart = System.nanoTime();
+	}
+
+	/**
+	 * Closes the current scope.
+	 */
+	public void pop() {
+		if (!this.enabled) return;
+		long time = System.nanoTime();
+		if (this.current == null || this.depth == 0) throw new IllegalStateException("No scope is open!");
+		Scope scope = this.current.scopes.get(this.scopeStack[--this.depth]);
+		scope.cpuEnd = time;
+		if (this.gpuTiming) {
+			scope.endQuery = obtainQuery();
+			GLStateManager.queryTimestamp(scope.endQuery);
+		}
+	}
+
+	/**
+	 * Runs the task inside a new scope.
+	 * @param name The name of the scope
+	 * @param task The task to measure
+	 */
+	public void profile(String name, Runnable task) {
+		push(name);
+		try {
+			task.run();
+		} finally {
+			pop();
+		}
+	}
+
+	/**
+	 * Reads the GPU results of all pending frames.
+	 * @param wait True if this method should block until all results are available
+	 */
+	public void collect(boolean wait) {
+		while (!this.pending.isEmpty()) {
+			Frame frame = this.pending.peek();
+			if (!wait && !GLStateManager.isQueryResultAvailable(frame.getRoot().endQuery)) break;
+			this.pending.poll();
+			for (int i = 0; i < frame.size; i++) {
+				Scope scope = frame.scopes.get(i);
+				scope.gpuStart = GLStateManager.queryResult(scope.startQuery);
+				scope.gpuEnd = GLStateManager.queryResult(scope.endQuery);
+			}
+			releaseQueries(frame);
+			complete(frame);
+		}
+		while (this.pending.size() > this.maxPendingFrames) {
+			Frame frame = this.pending.poll();
+			releaseQueries(frame);
+			complete(frame);
+		}
+	}
+
+	protected void releaseQueries(Frame frame) {
+		for (int i = 0; i < frame.size; i++) {
+			Scope scope = frame.scopes.get(i);
+			releaseQuery(scope.startQuery);
+			releaseQuery(scope.endQuery);
+			scope.startQuery = 0;
+			scope.endQuery = 0;
+		}
+	}
+
+	protected int obtainQuery() {
+		return this.freeQueries > 0 ? this.queryPool[--this.freeQueries] : GLStateManager.genQuery();
+	}
+
+	protected void releaseQuery(int query) {
+		if (query == 0) return;
+		if (this.freeQueries == this.queryPool.length) this.queryPool = Arrays.copyOf(this.queryPool, this.freeQueries * 2);
+		this.queryPool[this.freeQueries++] = query;
+	}
+
+	protected void complete(Frame frame) {
+		for (int i = 0; i < frame.size; i++) {
+			Scope scope = frame.scopes.get(i);
+			this.statistics.computeIfAbsent(scope.path, path -> new ScopeStatistics(path, this.window)).add(frame.index, scope.getCpuTime(), scope.getGpuTime());
+		}
+		this.history.add(frame);
+		while (this.history.size() > this.historySize) this.framePool.add(this.history.poll());
+	}
+
+	/**
+	 * Discards all recorded frames and statistics and deletes the query objects.
+	 * Has to be called on the render thread if GPU timing was used.
+	 */
+	public void reset() {
+		if (this.current != null) throw new IllegalStateException("Can not reset the profiler during a frame!");
+		for (Frame frame : this.pending) releaseQueries(frame);
+		this.framePool.addAll(this.pending);
+		this.framePool.addAll(this.history);
+		this.pending.clear();
+		this.history.clear();
+		this.statistics.clear();
+		for (int i = 0; i < this.freeQueries; i++) GLStateManager.deleteQuery(this.queryPool[i]);
+		this.freeQueries = 0;
+	}
+
+	/**
+	 * Returns the last completed frame.
+	 * @return The last frame or null if no frame has been completed yet
+	 */
+	public Frame getLastFrame() {
+		return this.history.peekLast();
+	}
+
+	/**
+	 * Returns the completed frames, oldest first.
+	 * The frames are reused by the profiler once they leave the history, so they should not be kept.
+	 * @return An unmodifiable view of the frame history
+	 */
+	public Collection<Frame> getHistory() {
+		return Collections.unmodifiableCollection(this.history);
+	}
+
+	/**
+	 * Returns the statistics of all scopes that have been recorded, in the order they first appeared.
+	 * @return An unmodifiable view of the statistics
+	 */
+	public Collection<ScopeStatistics> getStatistics() {
+		return Collections.unmodifiableCollection(this.statistics.values());
+	}
+
+	/**
+	 * Returns the statistics of the scope with the given path, like "frame/shadows".
+	 * @param path The path of the scope
+	 * @return The statistics or null if the scope has not been recorded
+	 */
+	public ScopeStatistics getStatistics(String path) {
+		return this.statistics.get(path);
+	}
+
+	/**
+	 * Prints the scopes of the last completed frame as tree, together with their average times.
+	 * @param stream The stream to print to
+	 */
+	public void printLastFrame(PrintStream stream) {
+		Frame frame = getLastFrame();
+		if (frame == null) {
+			stream.println("No frame recorded");
+			return;
+		}
+		stream.println("Frame " + frame.index);
+		for (int i = 0; i < frame.size; i++) {
+			Scope scope = frame.scopes.get(i);
+			ScopeStatistics statistics = this.statistics.get(scope.path);
+			stream.println(String.format("%s%-" + Math.max(1, 32 - scope.depth * 2) + "s cpu %8.3f ms gpu %8.3f ms  (avg cpu %8.3f ms gpu %8.3f ms)",
+					"  ".repeat(scope.depth), scope.name,
+					scope.getCpuTime() / 1000000.0, scope.getGpuTime() / 1000000.0,
+					statistics.getAverageCpuTime() / 1000000.0, statistics.getAverageGpuTime() / 1000000.0));
+		}
+	}
+
+	/**
+	 * Writes the frame history in the Chrome trace event format.
+	 * CPU scopes are written to the thread "CPU", GPU scopes to the thread "GPU".
+	 * Since the GPU clock is not synchronized with the CPU clock, the GPU scopes of each frame are aligned to the begin of the frame on the CPU.
+	 *
+	 * @param writer The writer to write the JSON to, it is not closed
+	 * @throws IOException If an error occurs while writing
+	 */
+	public void writeChromeTrace(Writer writer) throws IOException {
+		JsonWriter json = new JsonWriter(writer);
+		json.beginObject();
+		json.name("traceEvents").beginArray();
+		writeThreadName(json, 1, "CPU");
+		writeThreadName(json, 2, "GPU");
+		long origin = this.history.isEmpty() ? 0 : this.history.peek().getRoot().cpuStart;
+		for (Frame frame : this.history) {
+			Scope root = frame.getRoot();
+			for (int i = 0; i < frame.size; i++) {
+				Scope scope = frame.scopes.get(i);
+				writeEvent(json, scope, 1, scope.cpuStart - origin, scope.getCpuTime());
+				if (scope.getGpuTime() >= 0 && root.gpuStart >= 0) {
+					writeEvent(json, scope, 2, root.cpuStart - origin + scope.gpuStart - root.gpuStart, scope.getGpuTime());
+				}
+			}
+		}
+		json.endArray();
+		json.name("displayTimeUnit").value("ms");
+		json.endObject();
+		json.flush();
+	}
+
+	private static void writeThreadName(JsonWriter json, int thread, String name) throws IOException {
+		json.beginObject();
+		json.name("name").value("thread_name");
+		json.name("ph").value("M");
+		json.name("pid").value(1);
+		json.name("tid").value(thread);
+		json.name("args").beginObject().name("name").value(name).endObject();
+		json.endObject();
+	}
+
+	private static void writeEvent(JsonWriter json, Scope scope, int thread, long start, long duration) throws IOException {
+		json.beginObject();
+		json.name("name").value(scope.name);
+		json.name("ph").value("X");
+		json.name("pid").value(1);
+		json.name("tid").value(thread);
+		json.name("ts").value(start / 1000.0);
+		json.name("dur").value(duration / 1000.0);
+		json.endObject();
+	}
+
+}
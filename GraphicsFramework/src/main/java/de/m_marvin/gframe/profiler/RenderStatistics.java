@@ -0,0 +1,310 @@
+package de.m_marvin.gframe.profiler;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import de.m_marvin.gframe.buffers.BufferBuilder;
+import de.m_marvin.gframe.buffers.VertexBuffer;
+import de.m_marvin.gframe.shaders.ShaderInstance;
+import de.m_marvin.gframe.textures.texture.ITextureSampler;
+import de.m_marvin.gframe.windows.Window;
+
+/**
+ * Counts the work submitted per frame, like draw calls, drawn indecies, uploaded bytes, shader switches and texture binds.
+ * The counters are incremented by the framework classes ({@link VertexBuffer}, {@link BufferBuilder}, ...) and rolled over into a {@link Snapshot} by {@link #endFrame()},
+ * which is called by {@link Window#glSwapFrames()}, applications rendering to multiple windows or without a window should disable that using {@link #setAutoFrameEnd(boolean)} and call it themselves.
+ *
+ * The counters can be incremented from any thread, {@link BufferBuilder}s are often filled by worker threads.
+ * The snapshots can be polled using {@link #getLastFrame()} or through JMX after calling {@link #registerMBean()}.
+ */
+public class RenderStatistics implements RenderStatisticsMBean {
+
+	public static final String OBJECT_NAME = "de.m_marvin.gframe:type=RenderStatistics";
+	public static final int HISTOGRAM_BUCKETS = 32;
+
+	public static enum Counter {
+		DRAW_CALLS,
+		DRAWN_INSTANCES,
+		DRAWN_VERTICES,
+		DRAWN_INDECIES,
+		UPLOADS,
+		UPLOADED_BYTES,
+		/** Program changes issued by {@link ShaderInstance#useShader()}, binds of the already current program are not counted. */
+		SHADER_SWITCHES,
+		/** Texture binds issued for sampling by {@link ITextureSampler#bindSampler(int)}, binds of already bound textures and binds for uploads are not counted. */
+		TEXTURE_BINDS,
+		BUILT_DRAWS,
+		BUILT_VERTICES;
+	}
+
+	/**
+	 * The counters of one completed frame.
+	 */
+	public static record Snapshot(long frame, long[] counters, long[] drawSizeHistogram, long[] uploadSizeHistogram) {
+
+		public long get(Counter counter) {
+			return this.counters[counter.ordinal()];
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder builder = new StringBuilder("Frame ").append(this.frame);
+			for (Counter counter : Counter.values()) builder.append(' ').append(counter.name().toLowerCase()).append('=').append(get(counter));
+			return builder.toString();
+		}
+
+	}
+
+	protected static final Counter[] COUNTERS = Counter.values();
+	protected static final RenderStatistics INSTANCE = new RenderStatistics();
+
+	protected static volatile boolean enabled = true;
+	protected static boolean autoFrameEnd = true;
+	protected static final LongAdder[] counters = adders(COUNTERS.length);
+	protected static final LongAdder[] drawSizes = adders(HISTOGRAM_BUCKETS);
+	protected static final LongAdder[] uploadSizes = adders(HISTOGRAM_BUCKETS);
+	protected static final long[] peaks = new long[COUNTERS.length];
+	protected static long frame;
+	protected static volatile Snapshot lastFrame = new Snapshot(-1, new long[COUNTERS.length], new long[HISTOGRAM_BUCKETS], new long[HISTOGRAM_BUCKETS]);
+
+	protected RenderStatistics() {}
+
+	private static LongAdder[] adders(int count) {
+		LongAdder[] adders = new LongAdder[count];
+		for (int i = 0; i < count; i++) adders[i] = new LongAdder();
+		return adders;
+	}
+
+	/**
+	 * Returns the histogram bucket of the value, the number of bits required to represent it.
+	 */
+	protected static int bucket(long value) {
+		return Math.min(HISTOGRAM_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(value, 0)));
+	}
+
+	/**
+	 * Enables or disables counting, while disabled the frames are still rolled over but all counters stay zero.
+	 * @param enabled True if the work should be counted
+	 */
+	public static void setEnabled(boolean enabled) {
+		RenderStatistics.enabled = enabled;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Sets if {@link Window#glSwapFrames()} ends the frame of the statistics.
+	 * @param autoFrameEnd True if swapping the buffers should end the frame
+	 */
+	public static void setAutoFrameEnd(boolean autoFrameEnd) {
+		RenderStatistics.autoFrameEnd = autoFrameEnd;
+	}
+
+	public static boolean isAutoFrameEnd() {
+		return autoFrameEnd;
+	}
+
+	public static void add(Counter counter, long value) {
+		if (enabled) counters[counter.ordinal()].add(value);
+	}
+
+	public static void draw(int vertices, int indecies, int instances) {
+		if (!enabled) return;
+		counters[Counter.DRAW_CALLS.ordinal()].increment();
+		counters[Counter.DRAWN_INSTANCES.ordinal()].add(instances);
+		counters[Counter.DRAWN_VERTICES.ordinal()].add((long) vertices * instances);
+		counters[Counter.DRAWN_INDECIES.ordinal()].add((long) indecies * instances);
+		drawSizes[bucket(indecies)].increment();
+	}
+
+	public static void upload(long bytes) {
+		if (!enabled) return;
+		counters[Counter.UPLOADS.ordinal()].increment();
+		counters[Counter.UPLOADED_BYTES.ordinal()].add(bytes);
+		uploadSizes[bucket(bytes)].increment();
+	}
+
+	public static void shaderSwitch() {
+		if (enabled) counters[Counter.SHADER_SWITCHES.ordinal()].increment();
+	}
+
+	public static void textureBind() {
+		if (enabled) counters[Counter.TEXTURE_BINDS.ordinal()].increment();
+	}
+
+	public static void builtDraw(int vertices) {
+		if (!enabled) return;
+		counters[Counter.BUILT_DRAWS.ordinal()].increment();
+		counters[Counter.BUILT_VERTICES.ordinal()].add(vertices);
+	}
+
+	/**
+	 * Called by {@link Window#glSwapFrames()}, ends the frame if {@link #isAutoFrameEnd()} is set.
+	 */
+	public static void swapFrames() {
+		if (autoFrameEnd) endFrame();
+	}
+
+	/**
+	 * Rolls the counters of the current frame over into a new snapshot and resets them.
+	 * @return The snapshot of the ended frame
+	 */
+	public static synchronized Snapshot endFrame() {
+		long[] values = new long[COUNTERS.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = counters[i].sumThenReset();
+			peaks[i] = Math.max(peaks[i], values[i]);
+		}
+		long[] drawHistogram = new long[HISTOGRAM_BUCKETS];
+		long[] uploadHistogram = new long[HISTOGRAM_BUCKETS];
+		for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+			drawHistogram[i] = drawSizes[i].sumThenReset();
+			uploadHistogram[i] = uploadSizes[i].sumThenReset();
+		}
+		Snapshot snapshot = new Snapshot(frame++, values, drawHistogram, uploadHistogram);
+		lastFrame = snapshot;
+		return snapshot;
+	}
+
+	/**
+	 * Returns the counters of the last completed frame.
+	 * @return The last snapshot, with the frame index -1 if no frame has been completed yet
+	 */
+	public static Snapshot getLastFrame() {
+		return lastFrame;
+	}
+
+	/**
+	 * Returns the highest value of the counter in a single frame since the start or the last call of {@link #resetPeakValues()}.
+	 * @param counter The counter
+	 * @return The peak value
+	 */
+	public static synchronized long getPeak(Counter counter) {
+		return peaks[counter.ordinal()];
+	}
+
+	public static synchronized void resetPeakValues() {
+		Arrays.fill(peaks, 0);
+	}
+
+	/**
+	 * Registers the statistics at the platform MBean server under the name {@link #OBJECT_NAME}, does nothing if already registered.
+	 * @throws IllegalStateException If the registration fails
+	 */
+	public static void registerMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) server.registerMBean(INSTANCE, name);
+		} catch (JMException e) {
+			throw new IllegalStateException("Failed to register the render statistics MBean!", e);
+		}
+	}
+
+	/**
+	 * Removes the statistics from the platform MBean server, does nothing if not registered.
+	 * @throws IllegalStateException If the removal fails
+	 */
+	public static void unregisterMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (server.isRegistered(name)) server.unregisterMBean(name);
+		} catch (JMException e) {
+			throw new IllegalStateException("Failed to unregister the render statistics MBean!", e);
+		}
+	}
+
+	@Override
+	public long getFrame() {
+		return lastFrame.frame();
+	}
+
+	@Override
+	public long getDrawCalls() {
+		return lastFrame.get(Counter.DRAW_CALLS);
+	}
+
+	@Override
+	public long getDrawnInstances() {
+		return lastFrame.get(Counter.DRAWN_INSTANCES);
+	}
+
+	@Override
+	public long getDrawnVertices() {
+		return lastFrame.get(Counter.DRAWN_VERTICES);
+	}
+
+	@Override
+	public long getDrawnIndecies() {
+		return lastFrame.get(Counter.DRAWN_INDECIES);
+	}
+
+	@Override
+	public long getUploads() {
+		return lastFrame.get(Counter.UPLOADS);
+	}
+
+	@Override
+	public long getUploadedBytes() {
+		return lastFrame.get(Counter.UPLOADED_BYTES);
+	}
+
+	@Override
+	public long getShaderSwitches() {
+		return lastFrame.get(Counter.SHADER_SWITCHES);
+	}
+
+	@Override
+	public long getTextureBinds() {
+		return lastFrame.get(Counter.TEXTURE_BINDS);
+	}
+
+	@Override
+	public long getBuiltDraws() {
+		return lastFrame.get(Counter.BUILT_DRAWS);
+	}
+
+	@Override
+	public long getBuiltVertices() {
+		return lastFrame.get(Counter.BUILT_VERTICES);
+	}
+
+	@Override
+	public long getPeakDrawCalls() {
+		return getPeak(Counter.DRAW_CALLS);
+	}
+
+	@Override
+	public long getPeakDrawnIndecies() {
+		return getPeak(Counter.DRAWN_INDECIES);
+	}
+
+	@Override
+	public long getPeakUploadedBytes() {
+		return getPeak(Counter.UPLOADED_BYTES);
+	}
+
+	@Override
+	public long[] getDrawSizeHistogram() {
+		return lastFrame.drawSizeHistogram().clone();
+	}
+
+	@Override
+	public long[] getUploadSizeHistogram() {
+		return lastFrame.uploadSizeHistogram().clone();
+	}
+
+	@Override
+	public void resetPeaks() {
+		resetPeakValues();
+	}
+
+}
@@ -0,0 +1,39 @@
+package de.m_marvin.gframe.profiler;
+
+/**
+ * The JMX interface of the {@link RenderStatistics}.
+ * All values except the peaks refer to the last completed frame.
+ */
+public interface RenderStatisticsMBean {
+
+	public long getFrame();
+	public long getDrawCalls();
+	public long getDrawnInstances();
+	public long getDrawnVertices();
+	public long getDrawnIndecies();
+	public long getUploads();
+	public long getUploadedBytes();
+	public long getShaderSwitches();
+	public long getTextureBinds();
+	public long getBuiltDraws();
+	public long getBuiltVertices();
+
+	public long getPeakDrawCalls();
+	public long getPeakDrawnIndecies();
+	public long getPeakUploadedBytes();
+
+	/**
+	 * Returns the number of draw calls of the last frame by their index count, bucket n contains the draws with 2^(n-1) up to 2^n - 1 indecies.
+	 * @return The draw size histogram
+	 */
+	public long[] getDrawSizeHistogram();
+
+	/**
+	 * Returns the number of uploads of the last frame by their size, bucket n contains the uploads with 2^(n-1) up to 2^n - 1 bytes.
+	 * @return The upload size histogram
+	 */
+	public long[] getUploadSizeHistogram();
+
+	public void resetPeaks();
+
+}
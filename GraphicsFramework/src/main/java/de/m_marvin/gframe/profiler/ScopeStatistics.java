@@ -0,0 +1,139 @@
+package de.m_marvin.gframe.profiler;
+
+/**
+ * Rolling CPU and GPU time statistics of one profiler scope, over the last frames in which the scope was recorded.
+ * All times are in nanoseconds, GPU times are only counted for frames with available GPU results.
+ */
+public class ScopeStatistics {
+
+	protected final String path;
+	protected final long[] cpuSamples;
+	protected final long[] gpuSamples;
+	protected int cpuCount;
+	protected int gpuCount;
+	protected int cpuNext;
+	protected int gpuNext;
+	protected long calls;
+	protected long lastFrameCalls;
+	protected long lastFrame = -1;
+
+	public ScopeStatistics(String path, int window) {
+		if (window <= 0) throw new IllegalArgumentException("The statistics window has to be at least one frame!");
+		this.path = path;
+		this.cpuSamples = new long[window];
+		this.gpuSamples = new long[window];
+	}
+
+	/**
+	 * Adds the times of one frame, multiple executions of the scope in the same frame are summed up.
+	 * @param frame The index of the frame
+	 * @param cpuTime The CPU time
+	 * @param gpuTime The GPU time or a negative value if not available
+	 */
+	protected void add(long frame, long cpuTime, long gpuTime) {
+		this.calls++;
+		if (frame == this.lastFrame) {
+			this.lastFrameCalls++;
+			this.cpuSamples[previous(this.cpuNext)] += cpuTime;
+			if (gpuTime >= 0 && this.gpuCount > 0) this.gpuSamples[previous(this.gpuNext)] += gpuTime;
+			return;
+		}
+		this.lastFrame = frame;
+		this.lastFrameCalls = 1;
+		this.cpuSamples[this.cpuNext] = cpuTime;
+		this.cpuNext = (this.cpuNext + 1) % this.cpuSamples.length;
+		this.cpuCount = Math.min(this.cpuCount + 1, this.cpuSamples.length);
+		if (gpuTime >= 0) {
+			this.gpuSamples[this.gpuNext] = gpuTime;
+			this.gpuNext = (this.gpuNext + 1) % this.gpuSamples.length;
+			this.gpuCount = Math.min(this.gpuCount + 1, this.gpuSamples.length);
+		}
+	}
+
+	private int previous(int next) {
+		return next == 0 ? this.cpuSamples.length - 1 : next - 1;
+	}
+
+	/**
+	 * Returns the path of the scope, the names of all enclosing scopes separated by slashes.
+	 * @return The path of the scope
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Returns how often the scope was executed since the profiler was created or reset.
+	 * @return The total number of executions
+	 */
+	public long getCalls() {
+		return calls;
+	}
+
+	/**
+	 * Returns how often the scope was executed in the last frame it appeared in.
+	 * @return The number of executions in the last frame
+	 */
+	public long getLastFrameCalls() {
+		return lastFrameCalls;
+	}
+
+	public long getLastCpuTime() {
+		return this.cpuCount == 0 ? -1 : this.cpuSamples[previous(this.cpuNext)];
+	}
+
+	public long getLastGpuTime() {
+		return this.gpuCount == 0 ? -1 : this.gpuSamples[previous(this.gpuNext)];
+	}
+
+	public double getAverageCpuTime() {
+		return average(this.cpuSamples, this.cpuCount);
+	}
+
+	public double getAverageGpuTime() {
+		return average(this.gpuSamples, this.gpuCount);
+	}
+
+	public long getMinCpuTime() {
+		return min(this.cpuSamples, this.cpuCount);
+	}
+
+	public long getMinGpuTime() {
+		return min(this.gpuSamples, this.gpuCount);
+	}
+
+	public long getMaxCpuTime() {
+		return max(this.cpuSamples, this.cpuCount);
+	}
+
+	public long getMaxGpuTime() {
+		return max(this.gpuSamples, this.gpuCount);
+	}
+
+	private static double average(long[] samples, int count) {
+		if (count == 0) return -1;
+		long sum = 0;
+		for (int i = 0; i < count; i++) sum += samples[i];
+		return sum / (double) count;
+	}
+
+	private static long min(long[] samples, int count) {
+		if (count == 0) return -1;
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < count; i++) min = Math.min(min, samples[i]);
+		return min;
+	}
+
+	private static long max(long[] samples, int count) {
+		if (count == 0) return -1;
+		long max = 0;
+		for (int i = 0; i < count; i++) max = Math.max(max, samples[i]);
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s cpu %.3f ms gpu %.3f ms", this.path, getAverageCpuTime() / 1000000.0, getAverageGpuTime() / 1000000.0);
+	}
+
+}
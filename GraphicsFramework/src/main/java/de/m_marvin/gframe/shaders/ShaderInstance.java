@@ -7,6 +7,7 @@ import java.util.Optional;
 import org.lwjgl.opengl.GL33;
 
 import de.m_marvin.gframe.GLStateManager;
+import de.m_marvin.gframe.profiler.RenderStatistics;
 import de.m_marvin.gframe.textures.texture.ITextureSampler;
 import de.m_marvin.gframe.vertices.VertexFormat;
 import de.m_marvin.unimat.impl.Matrix3f;
@@ -32,6 +33,7 @@ public class ShaderInstance {
 	protected int geometryShader;
 	protected int program;
 	protected VertexFormat format;
+	protected Optional<VertexFormat> instanceFormat;
 	protected Map<String, Uniform<?>> uniforms = new HashMap<>();
 	
 	 /**
@@ -85,6 +87,18 @@ public class ShaderInstance {
 			return index;
 		}
 		
+		/**
+		 * Returns the location of the uniform in the shader program.
+		 * @return The uniform location
+		 */
+		public int getLocation() {
+			return location;
+		}
+		
+		public UniformType getType() {
+			return type;
+		}
+		
 		/* Type specific setter methods to avoid the instanceof check */
 
 		/**
@@ -224,6 +238,19 @@ public class ShaderInstance {
 	 * @param arrayFormat The vertex array format
 	 */
 	public ShaderInstance(String vertexProgram, String fragmentProgram, Optional<String> geometryProgram, VertexFormat arrayFormat) {
+		this(vertexProgram, fragmentProgram, geometryProgram, arrayFormat, Optional.empty());
+	}
+	
+	/**
+	 * Creates a new shader on the GPU from the fragment shader and vertex shader GLSL source codes.
+	 * The attributes of the instance format are bound to the locations directly behind the attributes of the vertex array format, matching {@link de.m_marvin.gframe.buffers.InstanceBuffer}.
+	 * 
+	 * @param vertexProgram The vertex shader source GLSL
+	 * @param fragmentProgram The fragment shader source GLSL
+	 * @param arrayFormat The vertex array format
+	 * @param instanceFormat The (optional) per-instance attribute format
+	 */
+	public ShaderInstance(String vertexProgram, String fragmentProgram, Optional<String> geometryProgram, VertexFormat arrayFormat, Optional<VertexFormat> instanceFormat) {
 		
 		GLStateManager.assertOnRenderThread();
 		
@@ -267,6 +294,8 @@ public class ShaderInstance {
 		
 		this.format = arrayFormat;
 		this.format.getElements().forEach((element) -> GLStateManager.bindVertexAttributeLocation(program, element.index(), element.name()));
+		this.instanceFormat = instanceFormat;
+		this.instanceFormat.ifPresent(format -> format.getElements().forEach((element) -> GLStateManager.bindVertexAttributeLocation(program, this.format.getElementCount() + element.index(), element.name())));
 		
 		GLStateManager.linkProgram(program);
 		if (!GLStateManager.checkProgramLink(program)) {
@@ -298,7 +327,7 @@ public class ShaderInstance {
 	 */
 	public void useShader() {
 		GLStateManager.assertOnRenderThread();
-		GLStateManager.useShader(this.program);
+		if (GLStateManager.useShader(this.program)) RenderStatistics.shaderSwitch();
 		this.uniforms.values().forEach(Uniform::setDefault);
 	}
 	
@@ -345,5 +374,9 @@ public class ShaderInstance {
 	public VertexFormat getFormat() {
 		return format;
 	}
+	
+	public Optional<VertexFormat> getInstanceFormat() {
+		return instanceFormat;
+	}
 
 }
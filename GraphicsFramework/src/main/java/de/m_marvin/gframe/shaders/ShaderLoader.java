@@ -188,28 +188,12 @@ public class ShaderLoader<R extends IResourceProvider<R>, FE extends ISourceFold
 			String fragmentShaderSource = loadGLSLFile(shaderLocation.getParent().locationOfFile(fragmentShaderFile + "." + FRAGMENT_SHADER_FORMAT));
 			Optional<String> geometryShaderSource = geometryShaderFile.isPresent() ? Optional.of(loadGLSLFile(shaderLocation.getParent().locationOfFile(geometryShaderFile.get() + "." + GEOMETRY_SHADER_FORMAT))) : Optional.empty();
 			
-			VertexFormat attributeFormat = vertexFormat.isPresent() ? vertexFormat.get() : null;
-			if (vertexFormat.isEmpty()) {
-
-				JsonArray defaultFormatArray = json.get("Attributes").getAsJsonArray();
-				attributeFormat = new VertexFormat();
-				
-				for (int i = 0; i < defaultFormatArray.size(); i++) {
-					JsonObject elementJson = defaultFormatArray.get(i).getAsJsonObject();
-					String name = elementJson.get("Name").getAsString();
-					NumberFormat format = NumberFormat.byName(elementJson.get("Type").getAsString());
-					int count = elementJson.get("Count").getAsInt();
-					if (count > 4) throw new IllegalArgumentException("Failed to parse shader json '" + shaderLocation.nameString() +"': A attribute can not be larger than 4. Larger attributes should be split up into multiple attributes directly behind each other.");
-					boolean normalize = elementJson.get("Normalize").getAsBoolean();
-					
-					attributeFormat.appand(name, format, count, normalize);
-				}
-				
-			}
+			VertexFormat attributeFormat = vertexFormat.isPresent() ? vertexFormat.get() : parseAttributes(json.get("Attributes").getAsJsonArray(), shaderLocation);
+			Optional<VertexFormat> instanceFormat = json.has("InstanceAttributes") ? Optional.of(parseAttributes(json.get("InstanceAttributes").getAsJsonArray(), shaderLocation)) : Optional.empty();
 			
 			try {
 				
-				ShaderInstance shaderInstance = new ShaderInstance(vertexShaderSource, fragmentShaderSource, geometryShaderSource, attributeFormat);
+				ShaderInstance shaderInstance = new ShaderInstance(vertexShaderSource, fragmentShaderSource, geometryShaderSource, attributeFormat, instanceFormat);
 				
 				JsonArray uniformArray = json.get("Uniforms").getAsJsonArray();
 				parseUniforms(uniformArray, shaderInstance, null);
@@ -228,6 +212,21 @@ public class ShaderLoader<R extends IResourceProvider<R>, FE extends ISourceFold
 		
 	}
 	
+	protected VertexFormat parseAttributes(JsonArray attributeArray, R shaderLocation) {
+		VertexFormat attributeFormat = VertexFormat.empty();
+		for (int i = 0; i < attributeArray.size(); i++) {
+			JsonObject elementJson = attributeArray.get(i).getAsJsonObject();
+			String name = elementJson.get("Name").getAsString();
+			NumberFormat format = NumberFormat.byName(elementJson.get("Type").getAsString());
+			int count = elementJson.get("Count").getAsInt();
+			if (count > 4) throw new IllegalArgumentException("Failed to parse shader json '" + shaderLocation.nameString() +"': A attribute can not be larger than 4. Larger attributes should be split up into multiple attributes directly behind each other.");
+			boolean normalize = elementJson.get("Normalize").getAsBoolean();
+			
+			attributeFormat = attributeFormat.with(name, format, count, normalize);
+		}
+		return attributeFormat;
+	}
+	
 	protected void parseUniforms(JsonArray uniformArray, ShaderInstance shaderInstance, String parentField) {
 		
 		for (int i = 0; i < uniformArray.size(); i++) {
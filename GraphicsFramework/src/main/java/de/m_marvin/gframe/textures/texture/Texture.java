@@ -3,6 +3,7 @@ package de.m_marvin.gframe.textures.texture;
 import org.lwjgl.opengl.GL33;
 
 import de.m_marvin.gframe.GLStateManager;
+import de.m_marvin.gframe.profiler.RenderStatistics;
 import de.m_marvin.gframe.textures.utility.TextureDataFormat;
 import de.m_marvin.gframe.textures.utility.TextureFilter;
 import de.m_marvin.gframe.textures.utility.TextureFormat;
@@ -112,7 +113,7 @@ public class Texture implements ITextureSampler {
 	public void bindSampler(int samplerId) {
 		GLStateManager.assertOnRenderThread();
 		GLStateManager.activeTexture(samplerId);
-		bind();
+		if (GLStateManager.bindTexture(GL33.GL_TEXTURE_2D, this.textureId)) RenderStatistics.textureBind();
 	}
 	
 	@Override
@@ -1,11 +1,9 @@
 package de.m_marvin.gframe.translation;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 import de.m_marvin.gframe.vertices.IVertexConsumer;
 import de.m_marvin.unimat.api.IQuaternionMath.EulerOrder;
-import de.m_marvin.unimat.impl.Matrix3f;
 import de.m_marvin.unimat.impl.Matrix4f;
 import de.m_marvin.unimat.impl.Quaternionf;
 import de.m_marvin.univec.api.IVector3;
@@ -13,59 +11,159 @@ import de.m_marvin.univec.impl.Vec3f;
 
 /**
  * Used to apply translations to draw calls of the {@link IVertexConsumer}.
- * 
+ *
+ * The poses are stored in a preallocated float array, one slot of {@link #SLOT_SIZE} floats per level of the stack.
+ * Each slot contains the 4x4 pose matrix followed by the 3x3 normal matrix, both in row major order.
+ * Pushing and popping only moves the index of the current slot and all transformations are multiplied in place, so no objects are allocated while traversing a scene.
+ *
+ * The matrices are no longer available as objects, {@code last().pose()} and {@code last().normal()} have been removed.
+ * The current pose is read from {@link #getStorage()} at {@link #poseOffset()} and {@link #normalOffset()} and modified using the transformation methods of the stack.
+ *
  * @author Marvin Köhler
  *
  */
 public class PoseStack {
 	
-	protected List<Pose> poseStack = new ArrayList<>();
-	public static record Pose(Matrix3f normal, Matrix4f pose) {}
+	/**
+	 * The number of floats used by one level of the stack, 16 for the pose matrix and 9 for the normal matrix.
+	 */
+	public static final int SLOT_SIZE = 25;
+	/**
+	 * The offset of the normal matrix in a slot.
+	 */
+	public static final int NORMAL_OFFSET = 16;
+	
+	protected float[] stack;
+	protected int depth;
+	protected final Vec3f eulerAngles = new Vec3f();
+	protected final Quaternionf eulerRotation = new Quaternionf();
 	
 	public PoseStack() {
-		this.poseStack.add(new Pose(new Matrix3f().identityI(), new Matrix4f().identityI()));
+		this(16);
 	}
 	
-	public Pose last() {
-		return poseStack.get(this.poseStack.size() - 1);
+	/**
+	 * Creates a new pose stack with storage for the given number of levels, the storage grows if more levels are pushed.
+	 * @param initialDepth The number of levels to preallocate
+	 */
+	public PoseStack(int initialDepth) {
+		this.stack = new float[Math.max(1, initialDepth) * SLOT_SIZE];
+		setIdentity();
+	}
+	
+	/**
+	 * Returns the array backing this stack.
+	 * The array is replaced when the stack grows, so it should not be kept across calls to {@link #push()}.
+	 * @return The array containing the matrices of all levels
+	 */
+	public float[] getStorage() {
+		return stack;
+	}
+	
+	/**
+	 * Returns the offset of the current 4x4 pose matrix in the {@link #getStorage()} array.
+	 * @return The index of the first element of the pose matrix
+	 */
+	public int poseOffset() {
+		return this.depth * SLOT_SIZE;
+	}
+	
+	/**
+	 * Returns the offset of the current 3x3 normal matrix in the {@link #getStorage()} array.
+	 * @return The index of the first element of the normal matrix
+	 */
+	public int normalOffset() {
+		return this.depth * SLOT_SIZE + NORMAL_OFFSET;
+	}
+	
+	public int depth() {
+		return depth;
 	}
 	
 	public void push() {
-		Matrix3f normal = last().normal().copy();
-		Matrix4f pose = last().pose().copy();
-		poseStack.add(new Pose(normal, pose));
+		int offset = poseOffset();
+		if (offset + SLOT_SIZE * 2 > this.stack.length) this.stack = Arrays.copyOf(this.stack, this.stack.length * 2);
+		System.arraycopy(this.stack, offset, this.stack, offset + SLOT_SIZE, SLOT_SIZE);
+		this.depth++;
 	}
 	
 	public void pop() {
 		if (cleared()) throw new IllegalStateException("Can't pop state, stack already cleared!");
-		poseStack.remove(poseStack.size() - 1);
+		this.depth--;
+	}
+	
+	/**
+	 * Resets the current pose to the identity.
+	 */
+	public void setIdentity() {
+		float[] s = this.stack;
+		int p = poseOffset();
+		Arrays.fill(s, p, p + SLOT_SIZE, 0F);
+		s[p + 0] = s[p + 5] = s[p + 10] = s[p + 15] = 1F;
+		int n = normalOffset();
+		s[n + 0] = s[n + 4] = s[n + 8] = 1F;
+	}
+	
+	/**
+	 * Multiplies the current pose with the matrix.
+	 * The normal matrix is not changed, transformations affecting normals should be applied using the specialized methods.
+	 * @param matrix The matrix to apply
+	 */
+	public void mulPose(Matrix4f matrix) {
+		float[] s = this.stack;
+		int p = poseOffset();
+		for (int r = 0; r < 4; r++) {
+			int i = p + r * 4;
+			float a0 = s[i], a1 = s[i + 1], a2 = s[i + 2], a3 = s[i + 3];
+			s[i + 0] = a0 * matrix.m00() + a1 * matrix.m10() + a2 * matrix.m20() + a3 * matrix.m30();
+			s[i + 1] = a0 * matrix.m01() + a1 * matrix.m11() + a2 * matrix.m21() + a3 * matrix.m31();
+			s[i + 2] = a0 * matrix.m02() + a1 * matrix.m12() + a2 * matrix.m22() + a3 * matrix.m32();
+			s[i + 3] = a0 * matrix.m03() + a1 * matrix.m13() + a2 * matrix.m23() + a3 * matrix.m33();
+		}
 	}
 	
 	public void translate(IVector3<?> vec) {
-		this.last().pose.mulI(Matrix4f.translate(vec));
+		translate(vec.x().floatValue(), vec.y().floatValue(), vec.z().floatValue());
+	}
+	public void translate(Vec3f vec) {
+		translate(vec.x, vec.y, vec.z);
 	}
 	public void translate(float x, float y, float z) {
-		translate(new Vec3f(x, y, z));
+		float[] s = this.stack;
+		int p = poseOffset();
+		for (int i = p; i < p + 16; i += 4) {
+			s[i + 3] += s[i] * x + s[i + 1] * y + s[i + 2] * z;
+		}
 	}
 	
 	public void scale(Vec3f scale) {
-		PoseStack.Pose posestack$pose = last();
-		posestack$pose.pose.mulI(Matrix4f.scale(scale));
-		if (scale.x == scale.y && scale.y == scale.z) {
-			if (scale.x > 0.0F)
-				return;
-			posestack$pose.normal.scalarMulI(-1.0F);
-		}
-
-		float f = 1.0F / scale.x;
-		float f1 = 1.0F / scale.y;
-		float f2 = 1.0F / scale.z;
-		float f3 = fastInvCubeRoot(f * f1 * f2);
-		posestack$pose.normal.mulI(Matrix3f.scale(new Vec3f(f3 * f, f3 * f1, f3 * f2)));
+		scale(scale.x, scale.y, scale.z);
 	}
 	
 	public void scale(float sx, float sy, float sz) {
-		scale(new Vec3f(sx, sy, sz));
+		float[] s = this.stack;
+		int p = poseOffset();
+		for (int i = p; i < p + 16; i += 4) {
+			s[i + 0] *= sx;
+			s[i + 1] *= sy;
+			s[i + 2] *= sz;
+		}
+		int n = normalOffset();
+		if (sx == sy && sy == sz) {
+			if (sx > 0.0F)
+				return;
+			for (int i = n; i < n + 9; i++) s[i] = -s[i];
+		}
+		
+		float f = 1.0F / sx;
+		float f1 = 1.0F / sy;
+		float f2 = 1.0F / sz;
+		float f3 = fastInvCubeRoot(f * f1 * f2);
+		for (int i = n; i < n + 9; i += 3) {
+			s[i + 0] *= f3 * f;
+			s[i + 1] *= f3 * f1;
+			s[i + 2] *= f3 * f2;
+		}
 	}
 	
 	private static float fastInvCubeRoot(float p_14200_) {
@@ -77,24 +175,57 @@ public class PoseStack {
 	}
 	
 	public void rotateRadians(float x, float y, float z) {
-		rotate(new Quaternionf().setEulerI(new Vec3f(x, y, z), EulerOrder.XYZ, false));
+		this.eulerAngles.x = x;
+		this.eulerAngles.y = y;
+		this.eulerAngles.z = z;
+		rotate(this.eulerRotation.setEulerI(this.eulerAngles, EulerOrder.XYZ, false));
 	}
 	public void rotateDegrees(float x, float y, float z) {
-		rotate(new Quaternionf().setEulerI(new Vec3f(x, y, z), EulerOrder.XYZ, true));
+		this.eulerAngles.x = x;
+		this.eulerAngles.y = y;
+		this.eulerAngles.z = z;
+		rotate(this.eulerRotation.setEulerI(this.eulerAngles, EulerOrder.XYZ, true));
 	}
 	public void rotate(Quaternionf quat) {
-		Pose pose = last();
-		pose.normal().mulI(Matrix3f.rotation(quat));
-		pose.pose().mulI(Matrix4f.rotation(quat));
+		rotate(quat.i, quat.j, quat.k, quat.r);
+	}
+	
+	/**
+	 * Applies the rotation described by the unit quaternion to the pose and normal matrix.
+	 * @param i The i component of the quaternion
+	 * @param j The j component of the quaternion
+	 * @param k The k component of the quaternion
+	 * @param r The real component of the quaternion
+	 */
+	public void rotate(float i, float j, float k, float r) {
+		float r00 = 1 - 2 * (j * j + k * k), r01 = 2 * (i * j - k * r), r02 = 2 * (i * k + j * r);
+		float r10 = 2 * (i * j + k * r), r11 = 1 - 2 * (i * i + k * k), r12 = 2 * (j * k - i * r);
+		float r20 = 2 * (i * k - j * r), r21 = 2 * (j * k + i * r), r22 = 1 - 2 * (i * i + j * j);
+		
+		float[] s = this.stack;
+		int p = poseOffset();
+		for (int n = p; n < p + 16; n += 4) {
+			float a0 = s[n], a1 = s[n + 1], a2 = s[n + 2];
+			s[n + 0] = a0 * r00 + a1 * r10 + a2 * r20;
+			s[n + 1] = a0 * r01 + a1 * r11 + a2 * r21;
+			s[n + 2] = a0 * r02 + a1 * r12 + a2 * r22;
+		}
+		int o = normalOffset();
+		for (int n = o; n < o + 9; n += 3) {
+			float a0 = s[n], a1 = s[n + 1], a2 = s[n + 2];
+			s[n + 0] = a0 * r00 + a1 * r10 + a2 * r20;
+			s[n + 1] = a0 * r01 + a1 * r11 + a2 * r21;
+			s[n + 2] = a0 * r02 + a1 * r12 + a2 * r22;
+		}
 	}
 	
 	public boolean cleared() {
-		return this.poseStack.size() == 1;
+		return this.depth == 0;
 	}
 	
 	public void assertCleared() {
 		if (!cleared())
 			throw new TranslationStackException("PoseStack not cleared!");
 	}
-	
+
 }
@@ -0,0 +1,190 @@
+package de.m_marvin.gframe.utility;
+
+import java.util.Arrays;
+
+import de.m_marvin.gframe.translation.PoseStack;
+import de.m_marvin.gframe.vertices.IVertexConsumer;
+import de.m_marvin.unimat.impl.Matrix3f;
+import de.m_marvin.unimat.impl.Matrix4f;
+
+/**
+ * Transforms the positions and normals of many vertices at once, intended for baking large static geometry under a pose.
+ * The vertices are either stored interleaved in one float array with a fixed stride, or as separate arrays for each component.
+ *
+ * If the module jdk.incubator.vector is available (the application has to be started with <code>--add-modules jdk.incubator.vector</code>) multiple vertices are transformed at once using the SIMD lanes of the CPU.
+ * Otherwise a scalar implementation is used, the results are the same.
+ * Interleaved vertices are transposed block wise into separate component arrays for the SIMD lanes, so storing the components separately avoids that copy.
+ */
+public class GeometryTransform {
+
+	private static final TransformKernel KERNEL = createKernel();
+
+	private GeometryTransform() {}
+
+	private static TransformKernel createKernel() {
+		if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+			try {
+				return (TransformKernel) Class.forName("de.m_marvin.gframe.utility.VectorTransformKernel").getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError e) {}
+		}
+		return new ScalarTransformKernel();
+	}
+
+	/**
+	 * Returns true if the transformations are executed using the vector API.
+	 * @return True if SIMD instructions are used
+	 */
+	public static boolean isVectorized() {
+		return !(KERNEL instanceof ScalarTransformKernel);
+	}
+
+	private static float[] rows(Matrix4f m) {
+		return new float[] {
+				m.m00(), m.m01(), m.m02(), m.m03(),
+				m.m10(), m.m11(), m.m12(), m.m13(),
+				m.m20(), m.m21(), m.m22(), m.m23()
+		};
+	}
+
+	private static float[] rows(Matrix3f m) {
+		return new float[] {
+				m.m00(), m.m01(), m.m02(), 0,
+				m.m10(), m.m11(), m.m12(), 0,
+				m.m20(), m.m21(), m.m22(), 0
+		};
+	}
+
+	private static float[] poseRows(PoseStack poseStack) {
+		return Arrays.copyOfRange(poseStack.getStorage(), poseStack.poseOffset(), poseStack.poseOffset() + 12);
+	}
+
+	private static float[] normalRows(PoseStack poseStack) {
+		float[] s = poseStack.getStorage();
+		int n = poseStack.normalOffset();
+		return new float[] {
+				s[n + 0], s[n + 1], s[n + 2], 0,
+				s[n + 3], s[n + 4], s[n + 5], 0,
+				s[n + 6], s[n + 7], s[n + 8], 0
+		};
+	}
+
+	private static void checkBounds(float[] array, int offset, int stride, int count) {
+		if (stride < 3) throw new IllegalArgumentException("The stride has to be at least three floats!");
+		if (count > 0 && (offset < 0 || offset + (long) (count - 1) * stride + 3 > array.length)) throw new IndexOutOfBoundsException("The vertex data exceeds the array bounds!");
+	}
+
+	/**
+	 * Transforms interleaved positions using the matrix.
+	 * The source and target array may be the same to transform the positions in place.
+	 *
+	 * @param matrix The transformation matrix
+	 * @param src The array containing the positions
+	 * @param srcOffset The index of the x component of the first position
+	 * @param dst The array receiving the transformed positions
+	 * @param dstOffset The index of the x component of the first transformed position
+	 * @param stride The number of floats between the first components of two positions
+	 * @param count The number of positions to transform
+	 */
+	public static void transformPositions(Matrix4f matrix, float[] src, int srcOffset, float[] dst, int dstOffset, int stride, int count) {
+		checkBounds(src, srcOffset, stride, count);
+		checkBounds(dst, dstOffset, stride, count);
+		KERNEL.transform(rows(matrix), src, srcOffset, dst, dstOffset, stride, count);
+	}
+
+	/**
+	 * Transforms interleaved normals using the normal matrix, the normals are not renormalized.
+	 * The source and target array may be the same to transform the normals in place.
+	 *
+	 * @see #transformPositions(Matrix4f, float[], int, float[], int, int, int)
+	 */
+	public static void transformNormals(Matrix3f matrix, float[] src, int srcOffset, float[] dst, int dstOffset, int stride, int count) {
+		checkBounds(src, srcOffset, stride, count);
+		checkBounds(dst, dstOffset, stride, count);
+		KERNEL.transform(rows(matrix), src, srcOffset, dst, dstOffset, stride, count);
+	}
+
+	/**
+	 * Transforms interleaved positions using the current pose of the stack.
+	 * @see #transformPositions(Matrix4f, float[], int, float[], int, int, int)
+	 */
+	public static void transformPositions(PoseStack poseStack, float[] src, int srcOffset, float[] dst, int dstOffset, int stride, int count) {
+		checkBounds(src, srcOffset, stride, count);
+		checkBounds(dst, dstOffset, stride, count);
+		KERNEL.transform(poseRows(poseStack), src, srcOffset, dst, dstOffset, stride, count);
+	}
+
+	/**
+	 * Transforms interleaved normals using the current normal matrix of the stack.
+	 * @see #transformNormals(Matrix3f, float[], int, float[], int, int, int)
+	 */
+	public static void transformNormals(PoseStack poseStack, float[] src, int srcOffset, float[] dst, int dstOffset, int stride, int count) {
+		checkBounds(src, srcOffset, stride, count);
+		checkBounds(dst, dstOffset, stride, count);
+		KERNEL.transform(normalRows(poseStack), src, srcOffset, dst, dstOffset, stride, count);
+	}
+
+	/**
+	 * Transforms positions stored as separate component arrays in place.
+	 *
+	 * @param matrix The transformation matrix
+	 * @param x The x components
+	 * @param y The y components
+	 * @param z The z components
+	 * @param offset The index of the first position
+	 * @param count The number of positions to transform
+	 */
+	public static void transformPositions(Matrix4f matrix, float[] x, float[] y, float[] z, int offset, int count) {
+		if (offset < 0 || offset + count > Math.min(x.length, Math.min(y.length, z.length))) throw new IndexOutOfBoundsException("The vertex data exceeds the array bounds!");
+		KERNEL.transform(rows(matrix), x, y, z, offset, count);
+	}
+
+	/**
+	 * Transforms normals stored as separate component arrays in place, the normals are not renormalized.
+	 * @see #transformPositions(Matrix4f, float[], float[], float[], int, int)
+	 */
+	public static void transformNormals(Matrix3f matrix, float[] x, float[] y, float[] z, int offset, int count) {
+		if (offset < 0 || offset + count > Math.min(x.length, Math.min(y.length, z.length))) throw new IndexOutOfBoundsException("The vertex data exceeds the array bounds!");
+		KERNEL.transform(rows(matrix), x, y, z, offset, count);
+	}
+
+	/**
+	 * Transforms positions stored as separate component arrays in place using the current pose of the stack.
+	 * @see #transformPositions(Matrix4f, float[], float[], float[], int, int)
+	 */
+	public static void transformPositions(PoseStack poseStack, float[] x, float[] y, float[] z, int offset, int count) {
+		if (offset < 0 || offset + count > Math.min(x.length, Math.min(y.length, z.length))) throw new IndexOutOfBoundsException("The vertex data exceeds the array bounds!");
+		KERNEL.transform(poseRows(poseStack), x, y, z, offset, count);
+	}
+
+	/**
+	 * Transforms normals stored as separate component arrays in place using the current normal matrix of the stack.
+	 * @see #transformNormals(Matrix3f, float[], float[], float[], int, int)
+	 */
+	public static void transformNormals(PoseStack poseStack, float[] x, float[] y, float[] z, int offset, int count) {
+		if (offset < 0 || offset + count > Math.min(x.length, Math.min(y.length, z.length))) throw new IndexOutOfBoundsException("The vertex data exceeds the array bounds!");
+		KERNEL.transform(normalRows(poseStack), x, y, z, offset, count);
+	}
+
+	/**
+	 * Transforms a block of interleaved vertices by the current pose of the stack and passes them to the consumer using {@link IVertexConsumer#vertices(float[], int, int)}.
+	 * The vertices have to be in the layout of the format the consumer is building, which only works for formats consisting of float elements.
+	 * The source array is not modified.
+	 *
+	 * @param consumer The consumer receiving the transformed vertices
+	 * @param poseStack The pose stack containing the transformation
+	 * @param vertices The array containing the vertices
+	 * @param offset The index of the first float of the first vertex
+	 * @param stride The size of one vertex in floats
+	 * @param count The number of vertices
+	 * @param positionOffset The offset of the position in a vertex in floats
+	 * @param normalOffset The offset of the normal in a vertex in floats, or -1 if the vertices have no normals
+	 * @return The consumer to apply more draw calls
+	 */
+	public static IVertexConsumer transformVertices(IVertexConsumer consumer, PoseStack poseStack, float[] vertices, int offset, int stride, int count, int positionOffset, int normalOffset) {
+		float[] transformed = Arrays.copyOfRange(vertices, offset, offset + stride * count);
+		transformPositions(poseStack, transformed, positionOffset, transformed, positionOffset, stride, count);
+		if (normalOffset >= 0) transformNormals(poseStack, transformed, normalOffset, transformed, normalOffset, stride, count);
+		return consumer.vertices(transformed, 0, transformed.length);
+	}
+
+}
@@ -9,12 +9,18 @@ import org.lwjgl.opengl.GL33;
  *
  */
 public enum NumberFormat {
-	UBYTE(Byte.BYTES, GL33.GL_UNSIGNED_BYTE),USHORT(Short.BYTES, GL33.GL_UNSIGNED_SHORT),UINT(Integer.BYTES, GL33.GL_UNSIGNED_INT),INT(Integer.BYTES, GL33.GL_INT),SHORT(Short.BYTES, GL33.GL_SHORT),FLOAT(Float.BYTES, GL33.GL_FLOAT),BYTE(Byte.BYTES, GL33.GL_BYTE);
+	UBYTE(Byte.BYTES, GL33.GL_UNSIGNED_BYTE),USHORT(Short.BYTES, GL33.GL_UNSIGNED_SHORT),UINT(Integer.BYTES, GL33.GL_UNSIGNED_INT),INT(Integer.BYTES, GL33.GL_INT),SHORT(Short.BYTES, GL33.GL_SHORT),FLOAT(Float.BYTES, GL33.GL_FLOAT),BYTE(Byte.BYTES, GL33.GL_BYTE),
+	HALF_FLOAT(Short.BYTES, GL33.GL_HALF_FLOAT),INT_2_10_10_10_REV(Integer.BYTES, GL33.GL_INT_2_10_10_10_REV, true),UINT_2_10_10_10_REV(Integer.BYTES, GL33.GL_UNSIGNED_INT_2_10_10_10_REV, true);
 	private final int bytes;
 	private final int glType;
+	private final boolean packed;
 	NumberFormat(int bytes, int glType) {
+		this(bytes, glType, false);
+	}
+	NumberFormat(int bytes, int glType, boolean packed) {
 		this.bytes = bytes;
 		this.glType = glType;
+		this.packed = packed;
 	}
 	public String getName() {
 		return name().toLowerCase();
@@ -26,6 +32,38 @@ public enum NumberFormat {
 		return this.glType;
 	}
 	
+	/**
+	 * Returns true if this format packs all components of an attribute into one value.
+	 * Packed formats always describe four components.
+	 * @return true if this is a packed format
+	 */
+	public boolean isPacked() {
+		return this.packed;
+	}
+	
+	/**
+	 * Returns the number of bytes of an attribute with the given number of components in this format.
+	 * @param count The number of components
+	 * @return The size of the attribute in bytes
+	 */
+	public int elementSize(int count) {
+		return this.packed ? this.bytes : this.bytes * count;
+	}
+	
+	/**
+	 * Returns the primitive restart index of index data in this format, which is the largest value the format can represent.
+	 * @return The restart index, as unsigned value
+	 * @throws IllegalStateException If this is not an index format
+	 */
+	public int restartIndex() {
+		switch (this) {
+		case UBYTE: return 0xFF;
+		case USHORT: return 0xFFFF;
+		case UINT: return 0xFFFFFFFF;
+		default: throw new IllegalStateException(this + " is not an index format!");
+		}
+	}
+	
 	public static NumberFormat byName(String name) {
 		return NumberFormat.valueOf(name.toUpperCase());
 	}
@@ -0,0 +1,30 @@
+package de.m_marvin.gframe.utility;
+
+/**
+ * Scalar implementation of the {@link TransformKernel}, used if the vector API is not available.
+ */
+class ScalarTransformKernel implements TransformKernel {
+
+	@Override
+	public void transform(float[] m, float[] src, int srcOffset, float[] dst, int dstOffset, int stride, int count) {
+		for (int i = 0; i < count; i++) {
+			int s = srcOffset + i * stride;
+			int d = dstOffset + i * stride;
+			float x = src[s], y = src[s + 1], z = src[s + 2];
+			dst[d + 0] = m[0] * x + m[1] * y + m[2] * z + m[3];
+			dst[d + 1] = m[4] * x + m[5] * y + m[6] * z + m[7];
+			dst[d + 2] = m[8] * x + m[9] * y + m[10] * z + m[11];
+		}
+	}
+
+	@Override
+	public void transform(float[] m, float[] x, float[] y, float[] z, int offset, int count) {
+		for (int i = offset; i < offset + count; i++) {
+			float vx = x[i], vy = y[i], vz = z[i];
+			x[i] = m[0] * vx + m[1] * vy + m[2] * vz + m[3];
+			y[i] = m[4] * vx + m[5] * vy + m[6] * vz + m[7];
+			z[i] = m[8] * vx + m[9] * vy + m[10] * vz + m[11];
+		}
+	}
+
+}
@@ -0,0 +1,19 @@
+package de.m_marvin.gframe.utility;
+
+/**
+ * Implementation of the bulk transformations of the {@link GeometryTransform}.
+ * The matrix is passed as the first three rows of a row major 4x4 matrix, normal matrices are passed with a zero translation column.
+ */
+interface TransformKernel {
+
+	/**
+	 * Transforms interleaved vectors, the source and target may be the same array.
+	 */
+	void transform(float[] m, float[] src, int srcOffset, float[] dst, int dstOffset, int stride, int count);
+
+	/**
+	 * Transforms vectors stored as separate component arrays in place.
+	 */
+	void transform(float[] m, float[] x, float[] y, float[] z, int offset, int count);
+
+}
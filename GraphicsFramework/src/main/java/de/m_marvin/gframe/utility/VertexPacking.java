@@ -0,0 +1,167 @@
+package de.m_marvin.gframe.utility;
+
+/**
+ * Conversion methods for the packed and normalized {@link NumberFormat}s used to compress vertex attributes.
+ */
+public class VertexPacking {
+
+	private VertexPacking() {}
+
+	/**
+	 * Converts a float to a 16 bit half float, rounding to the nearest value.
+	 * Values to large for the half float range are converted to infinity.
+	 *
+	 * @param value The float value
+	 * @return The bits of the half float
+	 */
+	public static short toHalfFloat(float value) {
+		int bits = Float.floatToRawIntBits(value);
+		int sign = (bits >>> 16) & 0x8000;
+		int val = (bits & 0x7FFFFFFF) + 0x1000;
+		if (val >= 0x47800000) {
+			if ((bits & 0x7FFFFFFF) >= 0x47800000) {
+				if (val < 0x7F800000) return (short) (sign | 0x7C00);
+				return (short) (sign | 0x7C00 | ((bits & 0x007FFFFF) >>> 13));
+			}
+			return (short) (sign | 0x7BFF);
+		}
+		if (val >= 0x38800000) return (short) (sign | ((val - 0x38000000) >>> 13));
+		if (val < 0x33000000) return (short) sign;
+		val = (bits & 0x7FFFFFFF) >>> 23;
+		return (short) (sign | ((((bits & 0x7FFFFF) | 0x800000) + (0x800000 >>> (val - 102))) >>> (126 - val)));
+	}
+
+	/**
+	 * Converts a 16 bit half float to a float.
+	 * @param half The bits of the half float
+	 * @return The float value
+	 */
+	public static float fromHalfFloat(short half) {
+		int bits = half & 0xFFFF;
+		int sign = (bits & 0x8000) << 16;
+		int exponent = (bits >>> 10) & 0x1F;
+		int mantissa = bits & 0x3FF;
+		if (exponent == 0x1F) return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+		if (exponent == 0) {
+			float value = mantissa * 0x1p-24F;
+			return sign != 0 ? -value : value;
+		}
+		return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+	}
+
+	public static int snorm(float value, int bits) {
+		int max = (1 << (bits - 1)) - 1;
+		return Math.round(Math.max(-1F, Math.min(1F, value)) * max);
+	}
+
+	public static int unorm(float value, int bits) {
+		int max = (1 << bits) - 1;
+		return Math.round(Math.max(0F, Math.min(1F, value)) * max);
+	}
+
+	public static byte snorm8(float value) {
+		return (byte) snorm(value, 8);
+	}
+
+	public static byte unorm8(float value) {
+		return (byte) unorm(value, 8);
+	}
+
+	public static short snorm16(float value) {
+		return (short) snorm(value, 16);
+	}
+
+	public static short unorm16(float value) {
+		return (short) unorm(value, 16);
+	}
+
+	/**
+	 * Packs four signed normalized values into the {@link NumberFormat#INT_2_10_10_10_REV} format.
+	 * @return The packed value
+	 */
+	public static int packSnorm2101010(float x, float y, float z, float w) {
+		return (snorm(x, 10) & 0x3FF) | (snorm(y, 10) & 0x3FF) << 10 | (snorm(z, 10) & 0x3FF) << 20 | (snorm(w, 2) & 0x3) << 30;
+	}
+
+	/**
+	 * Packs four unsigned normalized values into the {@link NumberFormat#UINT_2_10_10_10_REV} format.
+	 * @return The packed value
+	 */
+	public static int packUnorm2101010(float x, float y, float z, float w) {
+		return unorm(x, 10) | unorm(y, 10) << 10 | unorm(z, 10) << 20 | unorm(w, 2) << 30;
+	}
+
+	/**
+	 * Unpacks a value of the {@link NumberFormat#INT_2_10_10_10_REV} format into four signed normalized values.
+	 * @param packed The packed value
+	 * @param values The array receiving the four values
+	 */
+	public static void unpackSnorm2101010(int packed, float[] values) {
+		values[0] = Math.max(-1F, ((packed << 22) >> 22) / 511F);
+		values[1] = Math.max(-1F, ((packed << 12) >> 22) / 511F);
+		values[2] = Math.max(-1F, ((packed << 2) >> 22) / 511F);
+		values[3] = Math.max(-1F, (packed >> 30) / 1F);
+	}
+
+	/**
+	 * Unpacks a value of the {@link NumberFormat#UINT_2_10_10_10_REV} format into four unsigned normalized values.
+	 * @param packed The packed value
+	 * @param values The array receiving the four values
+	 */
+	public static void unpackUnorm2101010(int packed, float[] values) {
+		values[0] = (packed & 0x3FF) / 1023F;
+		values[1] = ((packed >>> 10) & 0x3FF) / 1023F;
+		values[2] = ((packed >>> 20) & 0x3FF) / 1023F;
+		values[3] = (packed >>> 30) / 3F;
+	}
+
+	/**
+	 * Encodes a unit vector into two components in the range of -1 to 1 using the octahedral mapping.
+	 * The vector is decoded in the shader by <code>n = vec3(e.xy, 1 - abs(e.x) - abs(e.y)); if (n.z < 0) n.xy = (1 - abs(n.yx)) * sign(n.xy); n = normalize(n);</code>
+	 *
+	 * @param x The vector x component
+	 * @param y The vector y component
+	 * @param z The vector z component
+	 * @param encoded The array receiving the two encoded components
+	 */
+	public static void octahedralEncode(float x, float y, float z, float[] encoded) {
+		float l1 = Math.abs(x) + Math.abs(y) + Math.abs(z);
+		if (l1 == 0) {
+			encoded[0] = 0;
+			encoded[1] = 0;
+			return;
+		}
+		float u = x / l1;
+		float v = y / l1;
+		if (z < 0) {
+			float nu = (1 - Math.abs(v)) * (u >= 0 ? 1 : -1);
+			float nv = (1 - Math.abs(u)) * (v >= 0 ? 1 : -1);
+			u = nu;
+			v = nv;
+		}
+		encoded[0] = u;
+		encoded[1] = v;
+	}
+
+	/**
+	 * Decodes a unit vector encoded using {@link #octahedralEncode(float, float, float, float[])}, the result is normalized.
+	 *
+	 * @param u The first encoded component
+	 * @param v The second encoded component
+	 * @param decoded The array receiving the three vector components
+	 */
+	public static void octahedralDecode(float u, float v, float[] decoded) {
+		float x = u;
+		float y = v;
+		float z = 1 - Math.abs(u) - Math.abs(v);
+		if (z < 0) {
+			x = (1 - Math.abs(v)) * (u >= 0 ? 1 : -1);
+			y = (1 - Math.abs(u)) * (v >= 0 ? 1 : -1);
+		}
+		float length = (float) Math.sqrt(x * x + y * y + z * z);
+		decoded[0] = x / length;
+		decoded[1] = y / length;
+		decoded[2] = z / length;
+	}
+
+}
@@ -0,0 +1,44 @@
+package de.m_marvin.gframe.vertices;
+
+/**
+ * Fast alternative to the {@link IVertexConsumer} for hot geometry generation paths.
+ * Instead of pushing every attribute through a checked call, memory for whole vertices is reserved with a single capacity check and filled using the {@link VertexWriter} compiled for the current format.
+ * The checked {@link IVertexConsumer} path stays available for validation and debugging.
+ *
+ * <pre>
+ * VertexWriter writer = consumer.writer();
+ * long vertex = consumer.nextVertex();
+ * writer.vec3f(vertex, 0, x, y, z).vec4f(vertex, 1, r, g, b, a);
+ * </pre>
+ */
+public interface IFastVertexConsumer {
+
+	/**
+	 * Returns the compiled writer for the vertex format of the currently building buffer.
+	 * @return The writer of the current vertex format
+	 */
+	public VertexWriter writer();
+
+	/**
+	 * Reserves the memory for one vertex and returns its native address.
+	 * The address is only valid until the next call to this consumer.
+	 *
+	 * @return The native address of the reserved vertex
+	 * @throws IllegalStateException If no buffer is building or indices have already been written
+	 */
+	public default long nextVertex() {
+		return nextVertices(1);
+	}
+
+	/**
+	 * Reserves the memory for multiple vertices behind each other and returns the native address of the first one.
+	 * The following vertices are located at <code>address + n * writer().stride()</code>.
+	 * The address is only valid until the next call to this consumer.
+	 *
+	 * @param count The number of vertices to reserve
+	 * @return The native address of the first reserved vertex
+	 * @throws IllegalStateException If no buffer is building or indices have already been written
+	 */
+	public long nextVertices(int count);
+
+}
@@ -1,19 +1,22 @@
 package de.m_marvin.gframe.vertices;
 
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
 import de.m_marvin.gframe.buffers.BufferBuilder;
 import de.m_marvin.gframe.textures.maps.IUVModifyer;
 import de.m_marvin.gframe.translation.PoseStack;
+import de.m_marvin.gframe.vertices.VertexFormat.VertexElement;
 import de.m_marvin.unimat.api.IQuaternion;
 import de.m_marvin.unimat.impl.Matrix3f;
 import de.m_marvin.unimat.impl.Matrix4f;
-import de.m_marvin.univec.impl.Vec3f;
-import de.m_marvin.univec.impl.Vec4f;
 
 /**
  * Contains all drawing methods required to fill a {@link BufferBuilder} with the neccessary data for the geometry to draw.
  * For some important attributes are predefined layout available (vertex, normal, color, uv).
  * Other attribute layouts have the be implemented or build manually with the {@link #nextElement()} and primitive put methods.
  * Its important to strictly follow the attribute order of the used vertex format.
+ * Implementations may pack the values of the {@link #normal(float, float, float)}, {@link #color(float, float, float, float)} and {@link #uv(float, float)} layouts into the number format declared by the element, like the {@link BufferBuilder} does.
  * 
  * @author Marvin Köhler
  *
@@ -31,8 +34,12 @@ public interface IVertexConsumer {
 	 * @return This consumer to apply more draw calls
 	 */
 	public default IVertexConsumer vertex(PoseStack poseStack, float x, float y, float z) {
-		Vec4f vec = poseStack.last().pose().transformVec4(new Vec4f(x, y, z, 1));
-		return vertex(vec.x(), vec.y(), vec.z());
+		float[] m = poseStack.getStorage();
+		int p = poseStack.poseOffset();
+		return vertex(
+				m[p + 0] * x + m[p + 1] * y + m[p + 2] * z + m[p + 3],
+				m[p + 4] * x + m[p + 5] * y + m[p + 6] * z + m[p + 7],
+				m[p + 8] * x + m[p + 9] * y + m[p + 10] * z + m[p + 11]);
 	}
 
 	/**
@@ -43,8 +50,11 @@ public interface IVertexConsumer {
 	 * @return This consumer to apply more draw calls
 	 */
 	public default IVertexConsumer vertex(PoseStack poseStack, float x, float y) {
-		Vec4f vec = poseStack.last().pose().transformVec4(new Vec4f(x, y, 0, 1));
-		return vec2f(vec.x(), vec.y());
+		float[] m = poseStack.getStorage();
+		int p = poseStack.poseOffset();
+		return vec2f(
+				m[p + 0] * x + m[p + 1] * y + m[p + 3],
+				m[p + 4] * x + m[p + 5] * y + m[p + 7]);
 	}
 	
 	/**
@@ -77,8 +87,12 @@ public interface IVertexConsumer {
 	 * @return This consumer to apply more draw calls
 	 */
 	public default IVertexConsumer normal(PoseStack poseStack, float x, float y, float z) {
-		Vec3f vec = poseStack.last().normal().transformVec3(new Vec3f(x, y, z));
-		return normal(vec.x(), vec.y(), vec.z());
+		float[] m = poseStack.getStorage();
+		int n = poseStack.normalOffset();
+		return normal(
+				m[n + 0] * x + m[n + 1] * y + m[n + 2] * z,
+				m[n + 3] * x + m[n + 4] * y + m[n + 5] * z,
+				m[n + 6] * x + m[n + 7] * y + m[n + 8] * z);
 	}
 	
 	/**
@@ -308,7 +322,7 @@ public interface IVertexConsumer {
 	/**
 	 * Accepts an index value.
 	 * Index values are stored after all vertex values are accepted.
-	 * Index values always have the integer format in this implementation.
+	 * Index values are stored in the smallest format able to address all vertices written before the first index.
 	 * 
 	 * @param i The index value
 	 * @return This consumer to apply more draw calls
@@ -318,12 +332,141 @@ public interface IVertexConsumer {
 	/**
 	 * Accepts multiple index values.
 	 * Index values are stored after all vertex values are accepted.
-	 * Index values always have the integer format in this implementation.
+	 * Index values are stored in the smallest format able to address all vertices written before the first index.
 	 * 
 	 * @param i The index value
 	 * @return This consumer to apply more draw calls
 	 */
-	public IVertexConsumer indecies(int... i);
+	public default IVertexConsumer indecies(int... i) {
+		for (int index : i) index(index);
+		return this;
+	}
+	
+	/**
+	 * Returns the format of the vertices currently accepted.
+	 * The default implementations of the bulk methods use it to split the data into the elements of the vertices.
+	 * 
+	 * @return The current vertex format, or null if not known
+	 */
+	public default VertexFormat vertexFormat() {
+		return null;
+	}
+	
+	/**
+	 * Returns the current vertex format for the default implementations of the bulk methods and checks that the data contains whole vertices.
+	 */
+	private VertexFormat bulkFormat(long size) {
+		VertexFormat format = vertexFormat();
+		if (format == null) throw new UnsupportedOperationException("The consumer does not provide its vertex format, bulk vertex data can not be split into vertices!");
+		if (size % format.getSize() != 0) throw new IllegalArgumentException("Vertex data of " + size + " bytes does not match the vertex size of " + format.getSize() + " bytes!");
+		return format;
+	}
+	
+	/**
+	 * Accepts the remaining content of the buffer as whole vertices in the layout of the current vertex format.
+	 * The content is copied as it is, the position of the buffer is not changed.
+	 * The default implementation passes the bytes of each element using {@link #putByte(byte)}.
+	 * 
+	 * @param vertexData The interleaved vertex data
+	 * @return This consumer to apply more draw calls
+	 * @throws IllegalArgumentException If the size of the data is not a multiple of the vertex size
+	 */
+	public default IVertexConsumer vertices(ByteBuffer vertexData) {
+		VertexFormat format = bulkFormat(vertexData.remaining());
+		int position = vertexData.position();
+		int end = vertexData.limit();
+		while (position < end) {
+			for (VertexElement element : format.getElements()) {
+				nextElement();
+				int size = element.format().elementSize(element.count());
+				for (int i = 0; i < size; i++) putByte(vertexData.get(position++));
+			}
+			endVertex();
+		}
+		return this;
+	}
+	
+	/**
+	 * Accepts the remaining content of the buffer as whole vertices in the layout of the current vertex format.
+	 * The content is copied as it is, the position of the buffer is not changed.
+	 * The default implementation passes the values of each element using {@link #putFloat(float)}, which requires all elements to have a size of a multiple of four bytes.
+	 * 
+	 * @param vertexData The interleaved vertex data
+	 * @return This consumer to apply more draw calls
+	 * @throws IllegalArgumentException If the size of the data is not a multiple of the vertex size
+	 */
+	public default IVertexConsumer vertices(FloatBuffer vertexData) {
+		VertexFormat format = bulkFormat((long) vertexData.remaining() * Float.BYTES);
+		int position = vertexData.position();
+		int end = vertexData.limit();
+		while (position < end) {
+			for (VertexElement element : format.getElements()) {
+				nextElement();
+				int values = floatsOf(element);
+				for (int i = 0; i < values; i++) putFloat(vertexData.get(position++));
+			}
+			endVertex();
+		}
+		return this;
+	}
+	
+	/**
+	 * Accepts a range of the array as whole vertices in the layout of the current vertex format.
+	 * The default implementation passes the values of each element using {@link #putFloat(float)}, which requires all elements to have a size of a multiple of four bytes.
+	 * 
+	 * @param vertexData The interleaved vertex data
+	 * @param offset The first value of the range
+	 * @param length The number of values of the range
+	 * @return This consumer to apply more draw calls
+	 * @throws IllegalArgumentException If the size of the data is not a multiple of the vertex size
+	 */
+	public default IVertexConsumer vertices(float[] vertexData, int offset, int length) {
+		VertexFormat format = bulkFormat((long) length * Float.BYTES);
+		int position = offset;
+		int end = offset + length;
+		while (position < end) {
+			for (VertexElement element : format.getElements()) {
+				nextElement();
+				int values = floatsOf(element);
+				for (int i = 0; i < values; i++) putFloat(vertexData[position++]);
+			}
+			endVertex();
+		}
+		return this;
+	}
+	
+	/**
+	 * Returns the number of floats occupied by the element in float vertex data.
+	 */
+	private static int floatsOf(VertexElement element) {
+		int size = element.format().elementSize(element.count());
+		if (size % Float.BYTES != 0) throw new IllegalArgumentException("The element " + element.name() + " can not be passed as float values, its size is not a multiple of four bytes!");
+		return size / Float.BYTES;
+	}
+	
+	/**
+	 * Accepts the array as whole vertices in the layout of the current vertex format.
+	 * 
+	 * @param vertexData The interleaved vertex data
+	 * @return This consumer to apply more draw calls
+	 * @throws IllegalArgumentException If the size of the data is not a multiple of the vertex size
+	 */
+	public default IVertexConsumer vertices(float[] vertexData) {
+		return vertices(vertexData, 0, vertexData.length);
+	}
+	
+	/**
+	 * Accepts multiple index values relative to a base vertex.
+	 * The base vertex is added to all values, which allows appending pre-indexed geometry behind already written vertices.
+	 * 
+	 * @param baseVertex The value added to all indices
+	 * @param i The index values
+	 * @return This consumer to apply more draw calls
+	 */
+	public default IVertexConsumer indecies(int baseVertex, int[] i) {
+		for (int index : i) index(baseVertex + index);
+		return this;
+	}
 	
 	/**
 	 * Completes a vertex with its attributes.
@@ -0,0 +1,81 @@
+package de.m_marvin.gframe.vertices;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Represents the patterns of the default indecies generated for the different {@link RenderPrimitive}s.
+ * The index values of a pattern only depend on their position, so the same index data can be shared between all draws using the same pattern.
+ */
+public enum IndexPattern {
+
+	/**
+	 * One index per vertex in the order of the vertices.
+	 */
+	IDENTITY(1, 1) {
+		@Override
+		public int index(int n) {
+			return n;
+		}
+	},
+	/**
+	 * Two triangles per four vertices, 0 1 2 2 3 0.
+	 */
+	QUADS(4, 6) {
+		@Override
+		public int index(int n) {
+			int quad = n / 6;
+			switch (n - quad * 6) {
+			case 1: return quad * 4 + 1;
+			case 2: case 3: return quad * 4 + 2;
+			case 4: return quad * 4 + 3;
+			default: return quad * 4;
+			}
+		}
+	};
+
+	private final int vertexGroup;
+	private final int indexGroup;
+
+	private IndexPattern(int vertexGroup, int indexGroup) {
+		this.vertexGroup = vertexGroup;
+		this.indexGroup = indexGroup;
+	}
+
+	/**
+	 * Returns the number of vertices that form one repetition of the pattern.
+	 * @return The number of vertices of one repetition
+	 */
+	public int vertexGroup() {
+		return vertexGroup;
+	}
+
+	/**
+	 * Returns the number of indecies required to draw the given number of vertices with this pattern.
+	 * Incomplete repetitions at the end are not drawn.
+	 *
+	 * @param vertexCount The number of vertices to draw
+	 * @return The number of indecies
+	 */
+	public int indexCount(int vertexCount) {
+		return vertexCount / this.vertexGroup * this.indexGroup;
+	}
+
+	/**
+	 * Returns the value of the index with the given number.
+	 * @param n The number of the index
+	 * @return The index value
+	 */
+	public abstract int index(int n);
+
+	/**
+	 * Generates the indecies required to draw the given number of vertices with this pattern.
+	 *
+	 * @param vertexCount The number of vertices to draw
+	 * @param indexconsumer An consumer to receive the index values
+	 */
+	public void build(int vertexCount, IntConsumer indexconsumer) {
+		int indecies = indexCount(vertexCount);
+		for (int i = 0; i < indecies; i++) indexconsumer.accept(index(i));
+	}
+
+}
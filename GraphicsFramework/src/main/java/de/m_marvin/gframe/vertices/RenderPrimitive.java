@@ -1,6 +1,5 @@
 package de.m_marvin.gframe.vertices;
 
-import java.util.function.BiConsumer;
 import java.util.function.IntConsumer;
 
 import org.lwjgl.opengl.GL33;
@@ -16,50 +15,55 @@ import de.m_marvin.gframe.buffers.VertexBuffer;
  */
 public enum RenderPrimitive {
 	
-	POINTS(GL33.GL_POINTS, (vertices, indexconsumer) -> {
-		for (int i = 0; i < vertices; i++) indexconsumer.accept(i);
-	}),
-	LINES_LOOP(GL33.GL_LINE_LOOP, (vertices, indexconsumer) -> {
-		for (int i = 0; i < vertices; i++) indexconsumer.accept(i);
-	}),
-	LINES_STRIP(GL33.GL_LINE_STRIP, (vertices, indexconsumer) -> {
-		for (int i = 0; i < vertices; i++) indexconsumer.accept(i);
-	}),
-	LINES(GL33.GL_LINES, (vertices, indexconsumer) -> {
-		for (int i = 0; i < vertices; i++) indexconsumer.accept(i);
-	}),
-	TRIANGLES(GL33.GL_TRIANGLES, (vertices, indexconsumer) -> {
-		for (int i = 0; i < vertices; i++) indexconsumer.accept(i);
-	}),
-	TRIANGLES_STRIP(GL33.GL_TRIANGLE_STRIP, (vertices, indexconsumer) -> {
-		for (int i = 0; i < vertices; i++) indexconsumer.accept(i);
-	}),
-	TRIANGLES_FAN(GL33.GL_TRIANGLE_FAN, (vertices, indexconsumer) -> {
-		for (int i = 0; i < vertices; i++) indexconsumer.accept(i);
-	}),
-	QUADS(GL33.GL_TRIANGLES, (vertices, indexconsumer) -> {
-		for (int i = 0; i < vertices; i += 4) {
-			indexconsumer.accept(i + 0);
-			indexconsumer.accept(i + 1);
-			indexconsumer.accept(i + 2);
-			indexconsumer.accept(i + 2);
-			indexconsumer.accept(i + 3);
-			indexconsumer.accept(i + 0);
-		}
-	});
+	POINTS(GL33.GL_POINTS, IndexPattern.IDENTITY, false),
+	LINES_LOOP(GL33.GL_LINE_LOOP, IndexPattern.IDENTITY, true),
+	LINES_STRIP(GL33.GL_LINE_STRIP, IndexPattern.IDENTITY, true),
+	LINES(GL33.GL_LINES, IndexPattern.IDENTITY, false),
+	TRIANGLES(GL33.GL_TRIANGLES, IndexPattern.IDENTITY, false),
+	TRIANGLES_STRIP(GL33.GL_TRIANGLE_STRIP, IndexPattern.IDENTITY, true),
+	TRIANGLES_FAN(GL33.GL_TRIANGLE_FAN, IndexPattern.IDENTITY, true),
+	QUADS(GL33.GL_TRIANGLES, IndexPattern.QUADS, false);
 	
 	private final int glType;
-	private final BiConsumer<Integer, IntConsumer> defaultIndexBuilder;
+	private final IndexPattern defaultIndexPattern;
+	private final boolean strip;
 	
-	private RenderPrimitive(int glType, BiConsumer<Integer, IntConsumer> defaultIndexBuilder) {
+	private RenderPrimitive(int glType, IndexPattern defaultIndexPattern, boolean strip) {
 		this.glType = glType;
-		this.defaultIndexBuilder = defaultIndexBuilder;
+		this.defaultIndexPattern = defaultIndexPattern;
+		this.strip = strip;
 	}
 	
 	public int getgltype() {
 		return glType;
 	}
 	
+	/**
+	 * Returns true if consecutive primitives share their vertices, which is the case for strips, fans and loops.
+	 * Draws of these primitives can not be merged by appending the vertices, but can be split into multiple strips by a primitive restart index.
+	 * @return True if this is a strip primitive
+	 */
+	public boolean isStrip() {
+		return strip;
+	}
+	
+	/**
+	 * Returns the pattern of the default indecies of this primitive type.
+	 * @return The default index pattern
+	 */
+	public IndexPattern defaultIndexPattern() {
+		return defaultIndexPattern;
+	}
+	
+	/**
+	 * Returns the number of default indecies required for rendering the given number of vertices with this primitive type.
+	 * @param vertexCount The number of vertices to draw
+	 * @return The number of default indecies
+	 */
+	public int defaultIndexCount(int vertexCount) {
+		return this.defaultIndexPattern.indexCount(vertexCount);
+	}
+	
 	/**
 	 * Builds the default indecies required for rendering geometry with this primitive type.
 	 * This method can be used to auto generate the indecies if the used vertex data is in the correct standard order for this primitive.
@@ -68,7 +72,7 @@ public enum RenderPrimitive {
 	 * @param indexconsumer An consumer to receive the index values
 	 */
 	public void buildDefaultIndecies(int vertexCount, IntConsumer indexconsumer) {
-		this.defaultIndexBuilder.accept(vertexCount, indexconsumer);
+		this.defaultIndexPattern.build(vertexCount, indexconsumer);
 	}
 	
 }
@@ -1,19 +1,33 @@
 package de.m_marvin.gframe.vertices;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import de.m_marvin.gframe.utility.NumberFormat;
 
 /**
  * Describes the order and format of the vertex attributes in some sort of buffer and the configuration of the in-values of the vertex shader program.
+ * Vertex formats are immutable and interned, two formats with the same elements are always the same instance.
+ * This allows them to be compared by identity and used as keys in caches.
+ * 
+ * Formats are no longer created using the constructor and filled by {@code appand(...)}, code like
+ * {@code new VertexFormat().appand("position", NumberFormat.FLOAT, 3, false).appand(...)}
+ * has to be replaced by {@code VertexFormat.empty().with("position", NumberFormat.FLOAT, 3, false).with(...)} and use the returned format.
  * 
  * @author Marvin Köhler
  */
 public class VertexFormat {
 	
-	protected List<VertexElement> elements = new ArrayList<>();
-	protected int size;
+	protected static final Map<VertexFormat, VertexFormat> INTERNED = new ConcurrentHashMap<>();
+	protected static final VertexFormat EMPTY = new VertexFormat(Collections.emptyList(), 0).intern();
+	
+	protected final List<VertexElement> elements;
+	protected final int size;
+	protected final int hash;
+	protected VertexWriter writer;
 	
 	/**
 	 * Represents one attribute in the format.
@@ -22,24 +36,78 @@ public class VertexFormat {
 	 */
 	public record VertexElement(int index, int offset, boolean normalize, String name, NumberFormat format, int count) {}
 	
+	protected VertexFormat(List<VertexElement> elements, int size) {
+		this.elements = elements;
+		this.size = size;
+		this.hash = elements.hashCode();
+	}
+	
+	/**
+	 * Returns the interned empty format, attributes are added using {@link #with(String, NumberFormat, int, boolean)}.
+	 * @return The format without any attributes
+	 */
+	public static VertexFormat empty() {
+		return EMPTY;
+	}
+	
 	/**
-	 * Append a new attribute element to this format.
+	 * Returns the interned instance of this format.
+	 * @return The format instance shared by all equal formats
+	 */
+	public VertexFormat intern() {
+		VertexFormat interned = INTERNED.putIfAbsent(this, this);
+		return interned != null ? interned : this;
+	}
+	
+	/**
+	 * Returns the format with a new attribute element appended to the elements of this format.
+	 * This format is not changed.
 	 * 
 	 * @param name The name of the element in the vertex shader program
 	 * @param format The number format used for this attribute
-	 * @param count The number of values required for this attribute
+	 * @param count The number of values required for this attribute, packed formats require four values
 	 * @param normalize If the values should be normalized
-	 * @return This vertex format to add more attributes
+	 * @return The interned format containing the new attribute
 	 */
-	public VertexFormat appand(String name, NumberFormat format, int count, boolean normalize) {
+	public VertexFormat with(String name, NumberFormat format, int count, boolean normalize) {
+		if (format.isPacked() && count != 4) throw new IllegalArgumentException("Packed number formats require four values!");
+		List<VertexElement> elements = new ArrayList<>(this.elements);
 		elements.add(new VertexElement(elements.size(), this.size, normalize, name, format, count));
-		this.size += count * format.size();
-		return this;
+		return new VertexFormat(Collections.unmodifiableList(elements), this.size + format.elementSize(count)).intern();
+	}
+	
+	/**
+	 * Formats are immutable, appending to an existing format is no longer supported.
+	 * Calls that ignored the return value, like {@code format.appand(...);}, would silently have no effect, so this method always fails.
+	 * 
+	 * @throws UnsupportedOperationException Always, use {@link #with(String, NumberFormat, int, boolean)} and the returned format instead
+	 * @deprecated Formats are immutable, use {@link #with(String, NumberFormat, int, boolean)} which makes the returned instance explicit
+	 */
+	@Deprecated
+	public VertexFormat appand(String name, NumberFormat format, int count, boolean normalize) {
+		throw new UnsupportedOperationException("Vertex formats are immutable, use VertexFormat.empty().with(...) and the returned format instead of appand(...)!");
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj instanceof VertexFormat other) return this.hash == other.hash && this.elements.equals(other.elements);
+		return false;
+	}
+	
+	@Override
+	public int hashCode() {
+		return this.hash;
+	}
+	
+	@Override
+	public String toString() {
+		return "VertexFormat" + this.elements;
 	}
 	
 	/**
 	 * Returns a list containing all attributes in the correct order of this format.
-	 * @return A {@link List} containg all elements in correct order
+	 * @return A unmodifiable {@link List} containg all elements in correct order
 	 */
 	public List<VertexElement> getElements() {
 		return elements;
@@ -63,6 +131,16 @@ public class VertexFormat {
 		return this.size;
 	}
 	
+	/**
+	 * Returns the {@link VertexWriter} compiled for this format.
+	 * The writer is compiled on the first call and cached.
+	 * @return The compiled writer of this format
+	 */
+	public VertexWriter compileWriter() {
+		if (this.writer == null) this.writer = new VertexWriter(this);
+		return this.writer;
+	}
+	
 	/**
 	 * Returns the number of attributes that are required to describe one vertex.
 	 * @return The number of attribute elements for one vertex
@@ -0,0 +1,292 @@
+package de.m_marvin.gframe.vertices;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.lwjgl.system.MemoryUtil;
+
+import de.m_marvin.gframe.buffers.IBufferBuilder.BufferPair;
+import de.m_marvin.gframe.buffers.IBufferBuilder.DrawState;
+import de.m_marvin.gframe.utility.VertexPacking;
+import de.m_marvin.gframe.vertices.VertexFormat.VertexElement;
+
+/**
+ * Converts vertex data from one {@link VertexFormat} into another, matching the elements by their names.
+ * This allows geometry to be built once and reused for shaders expecting a different format, for example a depth pass only requiring the positions.
+ *
+ * The conversion of each element of the target format is resolved once on creation:
+ * <ul>
+ * <li>Elements with the same number format, count and normalization are copied as raw bytes, consecutive copies are merged into one</li>
+ * <li>Elements with a different layout are decoded to floats and encoded into the target layout, following the OpenGL rules for normalized and integer values</li>
+ * <li>Directions (the elements named in {@link #DIRECTION_ELEMENTS}) converted between three and two components are octahedral encoded or decoded using {@link VertexPacking}, instead of dropping or filling the z component</li>
+ * <li>Elements missing in the source format are filled with a default value, which is (0, 0, 0, 1) unless specified otherwise</li>
+ * </ul>
+ * Elements of the source format not present in the target format are dropped.
+ * The conversion itself is done in a single pass over native memory without allocating objects per vertex.
+ * Converters are immutable and can be used from multiple threads at once.
+ */
+public class VertexFormatConverter {
+
+	protected static final Map<Conversion, VertexFormatConverter> CACHE = new ConcurrentHashMap<>();
+	protected static final float[] DEFAULT_VALUE = new float[] {0, 0, 0, 1};
+	/**
+	 * The names of the elements containing unit vectors, which are octahedral encoded when stored in two components.
+	 */
+	public static final Set<String> DIRECTION_ELEMENTS = Set.of("normal", "tangent", "bitangent");
+
+	protected static record Conversion(VertexFormat source, VertexFormat target) {}
+
+	protected static final int COPY = 0;
+	protected static final int CONVERT = 1;
+	protected static final int FILL = 2;
+	protected static final int OCTAHEDRAL_ENCODE = 3;
+	protected static final int OCTAHEDRAL_DECODE = 4;
+
+	protected final VertexFormat source;
+	protected final VertexFormat target;
+	protected final int sourceStride;
+	protected final int targetStride;
+
+	protected final int[] operations;
+	protected final int[] sourceOffsets;
+	protected final int[] targetOffsets;
+	protected final int[] lengths;
+	protected final VertexElement[] sourceElements;
+	protected final VertexElement[] targetElements;
+	protected final float[][] defaults;
+
+	/**
+	 * Returns the cached converter between the two formats, using the default values for missing elements.
+	 *
+	 * @param source The format of the vertex data to convert
+	 * @param target The format to convert to
+	 * @return The converter between the formats
+	 */
+	public static VertexFormatConverter get(VertexFormat source, VertexFormat target) {
+		return CACHE.computeIfAbsent(new Conversion(source, target), c -> new VertexFormatConverter(c.source(), c.target()));
+	}
+
+	/**
+	 * Creates a new converter using the default value (0, 0, 0, 1) for elements missing in the source format.
+	 * @param source The format of the vertex data to convert
+	 * @param target The format to convert to
+	 */
+	public VertexFormatConverter(VertexFormat source, VertexFormat target) {
+		this(source, target, Collections.emptyMap());
+	}
+
+	/**
+	 * Creates a new converter.
+	 *
+	 * @param source The format of the vertex data to convert
+	 * @param target The format to convert to
+	 * @param defaults The values of elements missing in the source format by their name, missing components are taken from (0, 0, 0, 1)
+	 */
+	public VertexFormatConverter(VertexFormat source, VertexFormat target, Map<String, float[]> defaults) {
+		this.source = source;
+		this.target = target;
+		this.sourceStride = source.getSize();
+		this.targetStride = target.getSize();
+
+		List<int[]> operations = new ArrayList<>();
+		List<VertexElement> sourceElements = new ArrayList<>();
+		List<VertexElement> targetElements = new ArrayList<>();
+		List<float[]> values = new ArrayList<>();
+		for (VertexElement element : target.getElements()) {
+			VertexElement sourceElement = source.getElements().stream().filter(e -> e.name().equals(element.name())).findFirst().orElse(null);
+			int length = element.format().elementSize(element.count());
+			if (sourceElement == null) {
+				float[] value = DEFAULT_VALUE.clone();
+				float[] specified = defaults.get(element.name());
+				if (specified != null) System.arraycopy(specified, 0, value, 0, Math.min(4, specified.length));
+				operations.add(new int[] {FILL, 0, element.offset(), length});
+				values.add(value);
+			} else if (sourceElement.format() == element.format() && sourceElement.count() == element.count() && sourceElement.normalize() == element.normalize()) {
+				int[] last = operations.isEmpty() ? null : operations.get(operations.size() - 1);
+				if (last != null && last[0] == COPY && last[1] + last[3] == sourceElement.offset() && last[2] + last[3] == element.offset()) {
+					last[3] += length;
+					continue;
+				}
+				operations.add(new int[] {COPY, sourceElement.offset(), element.offset(), length});
+				values.add(null);
+			} else if (DIRECTION_ELEMENTS.contains(element.name()) && sourceElement.count() == 3 && element.count() == 2) {
+				operations.add(new int[] {OCTAHEDRAL_ENCODE, sourceElement.offset(), element.offset(), length});
+				values.add(null);
+			} else if (DIRECTION_ELEMENTS.contains(element.name()) && sourceElement.count() == 2 && element.count() == 3) {
+				operations.add(new int[] {OCTAHEDRAL_DECODE, sourceElement.offset(), element.offset(), length});
+				values.add(null);
+			} else {
+				operations.add(new int[] {CONVERT, sourceElement.offset(), element.offset(), length});
+				values.add(null);
+			}
+			sourceElements.add(sourceElement);
+			targetElements.add(element);
+		}
+
+		int count = operations.size();
+		this.operations = new int[count];
+		this.sourceOffsets = new int[count];
+		this.targetOffsets = new int[count];
+		this.lengths = new int[count];
+		for (int i = 0; i < count; i++) {
+			int[] operation = operations.get(i);
+			this.operations[i] = operation[0];
+			this.sourceOffsets[i] = operation[1];
+			this.targetOffsets[i] = operation[2];
+			this.lengths[i] = operation[3];
+		}
+		this.sourceElements = sourceElements.toArray(VertexElement[]::new);
+		this.targetElements = targetElements.toArray(VertexElement[]::new);
+		this.defaults = values.toArray(float[][]::new);
+	}
+
+	public VertexFormat getSource() {
+		return source;
+	}
+
+	public VertexFormat getTarget() {
+		return target;
+	}
+
+	/**
+	 * Converts the vertices at the source address and writes them to the target address.
+	 * The memory areas must not overlap.
+	 *
+	 * @param sourceAddress The address of the first source vertex
+	 * @param targetAddress The address of the first target vertex
+	 * @param vertexCount The number of vertices to convert
+	 */
+	public void convert(long sourceAddress, long targetAddress, int vertexCount) {
+		if (this.source == this.target) {
+			MemoryUtil.memCopy(sourceAddress, targetAddress, (long) vertexCount * this.sourceStride);
+			return;
+		}
+		float[] components = new float[4];
+		for (int v = 0; v < vertexCount; v++) {
+			long src = sourceAddress + (long) v * this.sourceStride;
+			long dst = targetAddress + (long) v * this.targetStride;
+			for (int i = 0; i < this.operations.length; i++) {
+				switch (this.operations[i]) {
+				case COPY:
+					MemoryUtil.memCopy(src + this.sourceOffsets[i], dst + this.targetOffsets[i], this.lengths[i]);
+					break;
+				case CONVERT:
+					decode(this.sourceElements[i], src + this.sourceOffsets[i], components);
+					encode(this.targetElements[i], dst + this.targetOffsets[i], components);
+					break;
+				case OCTAHEDRAL_ENCODE:
+					decode(this.sourceElements[i], src + this.sourceOffsets[i], components);
+					VertexPacking.octahedralEncode(components[0], components[1], components[2], components);
+					encode(this.targetElements[i], dst + this.targetOffsets[i], components);
+					break;
+				case OCTAHEDRAL_DECODE:
+					decode(this.sourceElements[i], src + this.sourceOffsets[i], components);
+					VertexPacking.octahedralDecode(components[0], components[1], components);
+					encode(this.targetElements[i], dst + this.targetOffsets[i], components);
+					break;
+				default:
+					encode(this.targetElements[i], dst + this.targetOffsets[i], this.defaults[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Converts the vertices starting at the current positions of the buffers, the positions are not changed.
+	 *
+	 * @param source The buffer containing the source vertices
+	 * @param target The buffer receiving the converted vertices
+	 * @param vertexCount The number of vertices to convert
+	 * @throws IllegalArgumentException If the buffers are not direct or to small
+	 */
+	public void convert(ByteBuffer source, ByteBuffer target, int vertexCount) {
+		if (!source.isDirect() || !target.isDirect()) throw new IllegalArgumentException("Only direct buffers can be converted!");
+		if (source.remaining() < vertexCount * this.sourceStride || target.remaining() < vertexCount * this.targetStride) throw new IllegalArgumentException("The buffer is to small for the vertex data!");
+		convert(MemoryUtil.memAddress(source), MemoryUtil.memAddress(target), vertexCount);
+	}
+
+	/**
+	 * Creates a copy of the completed draw with the vertex data converted to the target format.
+	 * The index data is copied unchanged.
+	 *
+	 * @param pair The draw to convert, its buffer has to be direct
+	 * @return The converted draw
+	 * @throws IllegalArgumentException If the draw is not in the source format of this converter
+	 */
+	public BufferPair convert(BufferPair pair) {
+		DrawState drawState = pair.drawState();
+		if (!drawState.format().equals(this.source)) throw new IllegalArgumentException("The draw does not match the source format!");
+		if (!pair.buffer().isDirect()) throw new IllegalArgumentException("Only direct buffers can be converted!");
+		DrawState convertedState = new DrawState(drawState.vertices(), drawState.indecies(), this.target, drawState.type(), drawState.indexFormat(), drawState.sharedIndecies());
+		ByteBuffer buffer = ByteBuffer.allocateDirect(convertedState.vertexBytes() + convertedState.indexBytes()).order(ByteOrder.nativeOrder());
+		long sourceAddress = MemoryUtil.memAddress0(pair.buffer());
+		long targetAddress = MemoryUtil.memAddress0(buffer);
+		convert(sourceAddress, targetAddress, drawState.vertices());
+		MemoryUtil.memCopy(sourceAddress + drawState.vertexBytes(), targetAddress + convertedState.vertexBytes(), drawState.indexBytes());
+		return new BufferPair(buffer, convertedState);
+	}
+
+	/**
+	 * Reads the components of the element into the array, missing components are taken from (0, 0, 0, 1).
+	 */
+	protected static void decode(VertexElement element, long address, float[] values) {
+		values[0] = 0;
+		values[1] = 0;
+		values[2] = 0;
+		values[3] = 1;
+		switch (element.format()) {
+		case INT_2_10_10_10_REV: VertexPacking.unpackSnorm2101010(MemoryUtil.memGetInt(address), values); return;
+		case UINT_2_10_10_10_REV: VertexPacking.unpackUnorm2101010(MemoryUtil.memGetInt(address), values); return;
+		default:
+		}
+		boolean normalize = element.normalize();
+		int count = Math.min(4, element.count());
+		for (int i = 0; i < count; i++) {
+			switch (element.format()) {
+			case FLOAT: values[i] = MemoryUtil.memGetFloat(address + i * 4); break;
+			case HALF_FLOAT: values[i] = VertexPacking.fromHalfFloat(MemoryUtil.memGetShort(address + i * 2)); break;
+			case UBYTE: values[i] = normalize ? Byte.toUnsignedInt(MemoryUtil.memGetByte(address + i)) / 255F : Byte.toUnsignedInt(MemoryUtil.memGetByte(address + i)); break;
+			case BYTE: values[i] = normalize ? Math.max(-1F, MemoryUtil.memGetByte(address + i) / 127F) : MemoryUtil.memGetByte(address + i); break;
+			case USHORT: values[i] = normalize ? Short.toUnsignedInt(MemoryUtil.memGetShort(address + i * 2)) / 65535F : Short.toUnsignedInt(MemoryUtil.memGetShort(address + i * 2)); break;
+			case SHORT: values[i] = normalize ? Math.max(-1F, MemoryUtil.memGetShort(address + i * 2) / 32767F) : MemoryUtil.memGetShort(address + i * 2); break;
+			case UINT: values[i] = normalize ? Integer.toUnsignedLong(MemoryUtil.memGetInt(address + i * 4)) / 4294967295F : Integer.toUnsignedLong(MemoryUtil.memGetInt(address + i * 4)); break;
+			case INT: values[i] = normalize ? Math.max(-1F, MemoryUtil.memGetInt(address + i * 4) / 2147483647F) : MemoryUtil.memGetInt(address + i * 4); break;
+			default: throw new IllegalStateException("Unsupported number format " + element.format());
+			}
+		}
+	}
+
+	/**
+	 * Writes the components to the element, additional components are dropped.
+	 */
+	protected static void encode(VertexElement element, long address, float[] values) {
+		switch (element.format()) {
+		case INT_2_10_10_10_REV: MemoryUtil.memPutInt(address, VertexPacking.packSnorm2101010(values[0], values[1], values[2], values[3])); return;
+		case UINT_2_10_10_10_REV: MemoryUtil.memPutInt(address, VertexPacking.packUnorm2101010(values[0], values[1], values[2], values[3])); return;
+		default:
+		}
+		boolean normalize = element.normalize();
+		int count = Math.min(4, element.count());
+		for (int i = 0; i < count; i++) {
+			float value = values[i];
+			switch (element.format()) {
+			case FLOAT: MemoryUtil.memPutFloat(address + i * 4, value); break;
+			case HALF_FLOAT: MemoryUtil.memPutShort(address + i * 2, VertexPacking.toHalfFloat(value)); break;
+			case UBYTE: MemoryUtil.memPutByte(address + i, normalize ? VertexPacking.unorm8(value) : (byte) Math.round(value)); break;
+			case BYTE: MemoryUtil.memPutByte(address + i, normalize ? VertexPacking.snorm8(value) : (byte) Math.round(value)); break;
+			case USHORT: MemoryUtil.memPutShort(address + i * 2, normalize ? VertexPacking.unorm16(value) : (short) Math.round(value)); break;
+			case SHORT: MemoryUtil.memPutShort(address + i * 2, normalize ? VertexPacking.snorm16(value) : (short) Math.round(value)); break;
+			case UINT: MemoryUtil.memPutInt(address + i * 4, normalize ? (int) Math.round(Math.max(0.0, Math.min(1.0, value)) * 4294967295.0) : (int) (long) value); break;
+			case INT: MemoryUtil.memPutInt(address + i * 4, normalize ? (int) Math.round(Math.max(-1.0, Math.min(1.0, value)) * 2147483647.0) : Math.round(value)); break;
+			default: throw new IllegalStateException("Unsupported number format " + element.format());
+			}
+		}
+	}
+
+}
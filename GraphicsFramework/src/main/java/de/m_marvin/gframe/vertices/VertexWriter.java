@@ -0,0 +1,180 @@
+package de.m_marvin.gframe.vertices;
+
+import org.lwjgl.system.MemoryUtil;
+
+import de.m_marvin.gframe.utility.NumberFormat;
+import de.m_marvin.gframe.vertices.VertexFormat.VertexElement;
+
+/**
+ * A writer compiled for one specific {@link VertexFormat}.
+ * The offsets, stride and number formats of all elements are resolved once on creation, all write methods store their values with absolute writes relative to the address of a vertex.
+ * No checks are performed when writing, the caller is responsible for writing the correct number format for each element.
+ * Packed and half float values can be produced using the {@link de.m_marvin.gframe.utility.VertexPacking} methods.
+ * The vertex addresses are obtained from an {@link IFastVertexConsumer}, for a checked alternative see {@link IVertexConsumer}.
+ */
+public class VertexWriter {
+
+	protected final VertexFormat format;
+	protected final int stride;
+	protected final int[] offsets;
+	protected final NumberFormat[] formats;
+
+	/**
+	 * Compiles a new writer for the given format.
+	 * Normally {@link VertexFormat#compileWriter()} should be used to get the cached writer of the format.
+	 *
+	 * @param format The vertex format to compile the writer for
+	 */
+	public VertexWriter(VertexFormat format) {
+		this.format = format;
+		this.stride = format.getSize();
+		this.offsets = new int[format.getElementCount()];
+		this.formats = new NumberFormat[format.getElementCount()];
+		for (int i = 0; i < this.offsets.length; i++) {
+			VertexElement element = format.elementWithIndex(i);
+			this.offsets[i] = element.offset();
+			this.formats[i] = element.format();
+		}
+	}
+
+	/**
+	 * Returns the format this writer was compiled for.
+	 * @return The vertex format of this writer
+	 */
+	public VertexFormat getFormat() {
+		return format;
+	}
+
+	/**
+	 * Returns the size of one vertex in bytes.
+	 * @return The number of bytes of one vertex
+	 */
+	public int stride() {
+		return stride;
+	}
+
+	/**
+	 * Returns the byte offset of the element with the given index inside of an vertex.
+	 * @param element The index of the element
+	 * @return The offset of the element in bytes
+	 */
+	public int offset(int element) {
+		return this.offsets[element];
+	}
+
+	/**
+	 * Returns the number format of the element with the given index.
+	 * @param element The index of the element
+	 * @return The number format of the element
+	 */
+	public NumberFormat numberFormat(int element) {
+		return this.formats[element];
+	}
+
+	public VertexWriter float1(long vertex, int element, float x) {
+		MemoryUtil.memPutFloat(vertex + this.offsets[element], x);
+		return this;
+	}
+
+	public VertexWriter vec2f(long vertex, int element, float x, float y) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutFloat(address, x);
+		MemoryUtil.memPutFloat(address + 4, y);
+		return this;
+	}
+
+	public VertexWriter vec3f(long vertex, int element, float x, float y, float z) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutFloat(address, x);
+		MemoryUtil.memPutFloat(address + 4, y);
+		MemoryUtil.memPutFloat(address + 8, z);
+		return this;
+	}
+
+	public VertexWriter vec4f(long vertex, int element, float x, float y, float z, float w) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutFloat(address, x);
+		MemoryUtil.memPutFloat(address + 4, y);
+		MemoryUtil.memPutFloat(address + 8, z);
+		MemoryUtil.memPutFloat(address + 12, w);
+		return this;
+	}
+
+	public VertexWriter int1(long vertex, int element, int x) {
+		MemoryUtil.memPutInt(vertex + this.offsets[element], x);
+		return this;
+	}
+
+	public VertexWriter vec2i(long vertex, int element, int x, int y) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutInt(address, x);
+		MemoryUtil.memPutInt(address + 4, y);
+		return this;
+	}
+
+	public VertexWriter vec3i(long vertex, int element, int x, int y, int z) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutInt(address, x);
+		MemoryUtil.memPutInt(address + 4, y);
+		MemoryUtil.memPutInt(address + 8, z);
+		return this;
+	}
+
+	public VertexWriter vec4i(long vertex, int element, int x, int y, int z, int w) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutInt(address, x);
+		MemoryUtil.memPutInt(address + 4, y);
+		MemoryUtil.memPutInt(address + 8, z);
+		MemoryUtil.memPutInt(address + 12, w);
+		return this;
+	}
+
+	public VertexWriter vec2s(long vertex, int element, short x, short y) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutShort(address, x);
+		MemoryUtil.memPutShort(address + 2, y);
+		return this;
+	}
+
+	public VertexWriter vec3s(long vertex, int element, short x, short y, short z) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutShort(address, x);
+		MemoryUtil.memPutShort(address + 2, y);
+		MemoryUtil.memPutShort(address + 4, z);
+		return this;
+	}
+
+	public VertexWriter vec4s(long vertex, int element, short x, short y, short z, short w) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutShort(address, x);
+		MemoryUtil.memPutShort(address + 2, y);
+		MemoryUtil.memPutShort(address + 4, z);
+		MemoryUtil.memPutShort(address + 6, w);
+		return this;
+	}
+
+	public VertexWriter vec2b(long vertex, int element, byte x, byte y) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutByte(address, x);
+		MemoryUtil.memPutByte(address + 1, y);
+		return this;
+	}
+
+	public VertexWriter vec3b(long vertex, int element, byte x, byte y, byte z) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutByte(address, x);
+		MemoryUtil.memPutByte(address + 1, y);
+		MemoryUtil.memPutByte(address + 2, z);
+		return this;
+	}
+
+	public VertexWriter vec4b(long vertex, int element, byte x, byte y, byte z, byte w) {
+		long address = vertex + this.offsets[element];
+		MemoryUtil.memPutByte(address, x);
+		MemoryUtil.memPutByte(address + 1, y);
+		MemoryUtil.memPutByte(address + 2, z);
+		MemoryUtil.memPutByte(address + 3, w);
+		return this;
+	}
+
+}
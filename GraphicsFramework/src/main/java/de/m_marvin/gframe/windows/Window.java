@@ -13,6 +13,7 @@ import org.lwjgl.opengl.GLCapabilities;
 
 import de.m_marvin.gframe.GLFWStateManager;
 import de.m_marvin.gframe.GLStateManager;
+import de.m_marvin.gframe.profiler.RenderStatistics;
 import de.m_marvin.univec.impl.Vec2d;
 import de.m_marvin.univec.impl.Vec2f;
 import de.m_marvin.univec.impl.Vec2i;
@@ -189,6 +190,7 @@ public class Window {
 		GLStateManager.assertOnRenderThread();
 		GLStateManager.flush();
 		GLFW.glfwSwapBuffers(glWindow);
+		RenderStatistics.swapFrames();
 	}
 	
 	/**
@@ -259,6 +261,7 @@ public class Window {
 		} else {
 			GL.setCapabilities(glCapabilities);
 		}
+		GLStateManager.invalidateState();
 	}
 
 	/**
@@ -5,7 +5,10 @@ import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -13,6 +16,7 @@ import javax.imageio.ImageIO;
 
 import org.lwjgl.glfw.GLFW;
 import org.lwjgl.opengl.GL33;
+import org.lwjgl.system.MemoryUtil;
 
 import de.m_marvin.enginetest.physicengine.d3.physic.RigidPhysicWorld;
 import de.m_marvin.enginetest.physicengine.d3.util.BroadphaseAlgorithm;
@@ -25,6 +29,7 @@ import de.m_marvin.gframe.GLFWStateManager;
 import de.m_marvin.gframe.GLStateManager;
 import de.m_marvin.gframe.buffers.BufferBuilder;
 import de.m_marvin.gframe.buffers.BufferUsage;
+import de.m_marvin.gframe.buffers.InstanceBuffer;
 import de.m_marvin.gframe.buffers.VertexBuffer;
 import de.m_marvin.gframe.framebuffers.Framebuffer;
 import de.m_marvin.gframe.inputbinding.UserInput;
@@ -87,7 +92,10 @@ public class EngineExample {
 	
 	protected RigidPhysicWorld<WorldObject> physicWorld;
 	protected Map<ResourceLocation, VertexBuffer> name2vertexMap = new HashMap<>();
-	protected final VertexFormat objectFormat = new VertexFormat().appand("position", NumberFormat.FLOAT, 3, false).appand("normal", NumberFormat.FLOAT, 3, true).appand("color", NumberFormat.FLOAT, 4, false).appand("uv", NumberFormat.FLOAT, 2, false);
+	protected Map<ResourceLocation, InstanceBuffer> name2instanceMap = new HashMap<>();
+	protected ByteBuffer instanceData;
+	protected final VertexFormat objectFormat = VertexFormat.empty().with("position", NumberFormat.FLOAT, 3, false).with("normal", NumberFormat.INT_2_10_10_10_REV, 4, true).with("color", NumberFormat.UBYTE, 4, true).with("uv", NumberFormat.HALF_FLOAT, 2, false);
+	protected final VertexFormat instanceFormat = VertexFormat.empty().with("ObjectMat", NumberFormat.FLOAT, 4, false).with("ObjectMat1", NumberFormat.FLOAT, 4, false).with("ObjectMat2", NumberFormat.FLOAT, 4, false).with("ObjectMat3", NumberFormat.FLOAT, 4, false);
 	
 	private Window mainWindow;
 	private long timeMillis;
@@ -131,6 +139,8 @@ public class EngineExample {
 		shaderLoader.clearCached();
 		textureLoader.clearCached();
 		modelLoader.clearCached();
+		name2instanceMap.values().forEach(InstanceBuffer::discard);
+		if (instanceData != null) MemoryUtil.memFree(instanceData);
 		
 		// Destroy main window
 		mainWindow.destroy();
@@ -295,13 +305,28 @@ public class EngineExample {
 		GLStateManager.enable(GL33.GL_BLEND);
 		GLStateManager.enable(GL33.GL_CULL_FACE);
 		
-		this.physicWorld.getObjectList().forEach((worldObject) -> {
+		// Collect the object matrices per model and draw all objects of a model in one instanced draw
+		Map<ResourceLocation, List<WorldObject>> model2objectMap = new HashMap<>();
+		this.physicWorld.getObjectList().forEach((worldObject) -> model2objectMap.computeIfAbsent(worldObject.getModel(), model -> new ArrayList<>()).add(worldObject));
+		
+		model2objectMap.forEach((model, objects) -> {
+			
+			int instanceBytes = objects.size() * instanceFormat.getSize();
+			if (instanceData == null || instanceData.capacity() < instanceBytes) instanceData = MemoryUtil.memRealloc(instanceData, instanceBytes);
+			instanceData.clear();
+			for (WorldObject worldObject : objects) {
+				// The matrix is stored row major, the shader expects the columns of the matrix
+				float[] matrix = worldObject.getModelTranslation().getArray();
+				for (int c = 0; c < 4; c++) for (int r = 0; r < 4; r++) instanceData.putFloat(matrix[r * 4 + c]);
+			}
+			instanceData.flip();
 			
-			shader.getUniform("ObjectMat").setMatrix4f(worldObject.getModelTranslation());
+			InstanceBuffer instances = name2instanceMap.computeIfAbsent(model, name -> new InstanceBuffer(instanceFormat));
+			instances.upload(instanceData, BufferUsage.STREAM);
 			
-			VertexBuffer objectModel = name2vertexMap.get(worldObject.getModel());
+			VertexBuffer objectModel = name2vertexMap.get(model);
 			objectModel.bind();
-			objectModel.drawAll(RenderPrimitive.TRIANGLES);
+			objectModel.drawInstanced(RenderPrimitive.TRIANGLES, instances);
 			objectModel.unbind();
 			
 		});
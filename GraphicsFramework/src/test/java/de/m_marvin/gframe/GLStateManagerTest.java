@@ -0,0 +1,94 @@
+package de.m_marvin.gframe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.opengl.GL33;
+
+import de.m_marvin.gframe.backend.HeadlessGLBackend;
+
+/**
+ * Checks that redundant state changes are elided by the shadow state of the {@link GLStateManager}, by counting the calls reaching the backend.
+ */
+public class GLStateManagerTest {
+	
+	protected HeadlessGLBackend backend;
+	
+	@BeforeEach
+	public void setup() {
+		this.backend = new HeadlessGLBackend();
+		GLStateManager.setBackend(this.backend);
+		GLStateManager.resetStateCounters();
+	}
+	
+	@Test
+	public void redundantCapabilityChangesAreElided() {
+		GLStateManager.enable(GL33.GL_BLEND);
+		GLStateManager.enable(GL33.GL_BLEND);
+		GLStateManager.enable(GL33.GL_BLEND);
+		GLStateManager.disable(GL33.GL_BLEND);
+		GLStateManager.disable(GL33.GL_BLEND);
+		
+		assertEquals(1, this.backend.count("enable"));
+		assertEquals(1, this.backend.count("disable"));
+		assertEquals(2, GLStateManager.issuedStateChanges());
+		assertEquals(3, GLStateManager.elidedStateChanges());
+	}
+	
+	@Test
+	public void redundantProgramChangesAreElided() {
+		assertTrue(GLStateManager.useShader(3));
+		assertFalse(GLStateManager.useShader(3));
+		assertTrue(GLStateManager.useShader(4));
+		assertTrue(GLStateManager.useShader(3));
+		
+		assertEquals(3, this.backend.count("useProgram"));
+		assertEquals(1, GLStateManager.elidedStateChanges());
+	}
+	
+	@Test
+	public void textureBindingsAreTrackedPerUnit() {
+		GLStateManager.activeTexture(0);
+		assertTrue(GLStateManager.bindTexture(GL33.GL_TEXTURE_2D, 5));
+		assertFalse(GLStateManager.bindTexture(GL33.GL_TEXTURE_2D, 5));
+		GLStateManager.activeTexture(1);
+		assertTrue(GLStateManager.bindTexture(GL33.GL_TEXTURE_2D, 5));
+		GLStateManager.activeTexture(0);
+		assertFalse(GLStateManager.bindTexture(GL33.GL_TEXTURE_2D, 5));
+		
+		assertEquals(2, this.backend.count("bindTexture"));
+		assertEquals(3, this.backend.count("activeTexture"));
+	}
+	
+	@Test
+	public void fixedFunctionStateChangesAreElided() {
+		GLStateManager.blendFunc(GL33.GL_SRC_ALPHA, GL33.GL_ONE_MINUS_SRC_ALPHA);
+		GLStateManager.blendFunc(GL33.GL_SRC_ALPHA, GL33.GL_ONE_MINUS_SRC_ALPHA);
+		GLStateManager.depthFunc(GL33.GL_LESS);
+		GLStateManager.depthFunc(GL33.GL_LESS);
+		GLStateManager.depthMask(false);
+		GLStateManager.depthMask(false);
+		
+		assertEquals(1, this.backend.count("blendFunc"));
+		assertEquals(1, this.backend.count("depthFunc"));
+		assertEquals(1, this.backend.count("depthMask"));
+		assertEquals(3, GLStateManager.elidedStateChanges());
+	}
+	
+	@Test
+	public void invalidatedStateIsIssuedAgain() {
+		GLStateManager.enable(GL33.GL_DEPTH_TEST);
+		GLStateManager.useShader(2);
+		GLStateManager.invalidateState();
+		GLStateManager.enable(GL33.GL_DEPTH_TEST);
+		GLStateManager.useShader(2);
+		
+		assertEquals(2, this.backend.count("enable"));
+		assertEquals(2, this.backend.count("useProgram"));
+		assertEquals(0, GLStateManager.elidedStateChanges());
+	}
+	
+}
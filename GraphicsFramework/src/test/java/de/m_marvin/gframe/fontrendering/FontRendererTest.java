@@ -0,0 +1,108 @@
+package de.m_marvin.gframe.fontrendering;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.m_marvin.gframe.GLStateManager;
+import de.m_marvin.gframe.backend.HeadlessGLBackend;
+import de.m_marvin.gframe.buffers.BufferBuilder;
+import de.m_marvin.gframe.buffers.BufferUsage;
+import de.m_marvin.gframe.buffers.IBufferBuilder.BufferPair;
+import de.m_marvin.gframe.buffers.SharedIndexBuffers;
+import de.m_marvin.gframe.buffers.VertexBuffer;
+import de.m_marvin.gframe.buffers.defimpl.IRenderMode;
+import de.m_marvin.gframe.buffers.defimpl.SimpleBufferSource;
+import de.m_marvin.gframe.resources.defimpl.ResourceLocation;
+import de.m_marvin.gframe.translation.PoseStack;
+import de.m_marvin.gframe.utility.NumberFormat;
+import de.m_marvin.gframe.vertices.RenderPrimitive;
+import de.m_marvin.gframe.vertices.VertexFormat;
+
+/**
+ * Checks that strings appended to the same batch of the {@link FontRenderer} are drawn with a single draw call.
+ */
+public class FontRendererTest {
+	
+	protected static record TextMode(RenderPrimitive primitive, VertexFormat vertexFormat) implements IRenderMode {}
+	
+	protected static final TextMode TEXT = new TextMode(RenderPrimitive.QUADS, VertexFormat.empty()
+			.with("position", NumberFormat.FLOAT, 3, false)
+			.with("uv", NumberFormat.FLOAT, 2, false)
+			.with("color", NumberFormat.FLOAT, 4, false));
+	
+	protected HeadlessGLBackend backend;
+	protected FontAtlasMap<ResourceLocation> fontAtlas;
+	protected SimpleBufferSource<TextMode> bufferSource;
+	
+	@BeforeEach
+	public void setup() {
+		this.backend = new HeadlessGLBackend();
+		GLStateManager.setBackend(this.backend);
+		this.fontAtlas = new FontAtlasMap<>(new ResourceLocation("test", "font"));
+		for (char c = 'a'; c <= 'e'; c++) this.fontAtlas.addCharacter(c, 3 + c - 'a', 8, new int[(3 + c - 'a') * 8]);
+		this.fontAtlas.buildAtlas(false);
+		this.bufferSource = new SimpleBufferSource<>(1024);
+	}
+	
+	@AfterEach
+	public void cleanup() {
+		// The shared index buffers belong to the backend of this test
+		SharedIndexBuffers.discard();
+		this.bufferSource.freeAllMemory();
+	}
+	
+	protected int drawCompleted(BufferBuilder buffer) {
+		int draws = 0;
+		VertexBuffer vertexBuffer = new VertexBuffer();
+		while (buffer.completedBuffers() > 0) {
+			vertexBuffer.upload(buffer.popNext(), BufferUsage.STREAM);
+			vertexBuffer.bind();
+			vertexBuffer.drawAll(TEXT.primitive());
+			draws++;
+		}
+		vertexBuffer.discard();
+		return draws;
+	}
+	
+	@Test
+	public void appendedStringsAreDrawnAsOneBatch() {
+		PoseStack poseStack = new PoseStack();
+		FontRenderer.appendString("abc", Color.WHITE, this.fontAtlas, l -> TEXT, this.bufferSource, poseStack);
+		poseStack.translate(0, 10, 0);
+		FontRenderer.appendString("de", Color.RED, this.fontAtlas, l -> TEXT, this.bufferSource, poseStack);
+		poseStack.translate(0, 10, 0);
+		FontRenderer.renderString("a", Color.BLUE, this.fontAtlas, l -> TEXT, this.bufferSource, poseStack);
+		
+		BufferBuilder buffer = this.bufferSource.getBuffer(TEXT);
+		assertEquals(1, buffer.completedBuffers());
+		
+		BufferPair pair = buffer.popNext();
+		assertEquals(6 * 4, pair.drawState().vertices());
+		assertEquals(6 * 6, pair.drawState().indecies());
+		
+		this.backend.clearLog();
+		VertexBuffer vertexBuffer = new VertexBuffer();
+		vertexBuffer.upload(pair, BufferUsage.STREAM);
+		vertexBuffer.bind();
+		vertexBuffer.drawAll(TEXT.primitive());
+		vertexBuffer.discard();
+		assertEquals(1, this.backend.count("drawElements"));
+	}
+	
+	@Test
+	public void renderedStringsAreDrawnSeparately() {
+		PoseStack poseStack = new PoseStack();
+		FontRenderer.renderString("abc", Color.WHITE, this.fontAtlas, l -> TEXT, this.bufferSource, poseStack);
+		FontRenderer.renderString("de", Color.WHITE, this.fontAtlas, l -> TEXT, this.bufferSource, poseStack);
+		
+		this.backend.clearLog();
+		assertEquals(2, drawCompleted(this.bufferSource.getBuffer(TEXT)));
+		assertEquals(2, this.backend.count("drawElements"));
+	}
+	
+}
@@ -0,0 +1,103 @@
+package de.m_marvin.gframe.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the {@link MeshOptimizer} keeps the triangles of a mesh and does not increase its ACMR.
+ */
+public class MeshOptimizerTest {
+	
+	protected static final int WIDTH = 32;
+	protected static final int HEIGHT = 32;
+	protected static final int VERTICES = (WIDTH + 1) * (HEIGHT + 1);
+	
+	/**
+	 * Creates a grid of quads with the triangles in random order.
+	 */
+	protected static int[] shuffledGrid(long seed) {
+		int[] indecies = TriangleStripifierTest.grid(WIDTH, HEIGHT);
+		Random random = new Random(seed);
+		for (int t = indecies.length / 3 - 1; t > 0; t--) {
+			int o = random.nextInt(t + 1);
+			for (int c = 0; c < 3; c++) {
+				int swap = indecies[t * 3 + c];
+				indecies[t * 3 + c] = indecies[o * 3 + c];
+				indecies[o * 3 + c] = swap;
+			}
+		}
+		return indecies;
+	}
+	
+	protected static float[] gridPositions() {
+		float[] positions = new float[VERTICES * 3];
+		for (int v = 0; v < VERTICES; v++) {
+			positions[v * 3 + 0] = v % (WIDTH + 1);
+			positions[v * 3 + 1] = v / (WIDTH + 1);
+		}
+		return positions;
+	}
+	
+	/**
+	 * Maps the optimized indecies back to the original vertices using the remap table.
+	 */
+	protected static int[] unmap(int[] indecies, int[] remap) {
+		int[] inverse = new int[remap.length];
+		for (int v = 0; v < remap.length; v++) inverse[remap[v]] = v;
+		int[] original = new int[indecies.length];
+		for (int i = 0; i < indecies.length; i++) original[i] = inverse[indecies[i]];
+		return original;
+	}
+	
+	@Test
+	public void acmrOfSingleTriangle() {
+		assertEquals(3F, MeshOptimizer.acmr(new int[] {0, 1, 2}, 3, MeshOptimizer.DEFAULT_CACHE_SIZE));
+		assertEquals(0F, MeshOptimizer.acmr(new int[0], 0, MeshOptimizer.DEFAULT_CACHE_SIZE));
+	}
+	
+	@Test
+	public void vertexCacheOptimizationLowersAcmr() {
+		int[] indecies = shuffledGrid(5);
+		float before = MeshOptimizer.acmr(indecies, VERTICES, MeshOptimizer.DEFAULT_CACHE_SIZE);
+		int[] optimized = MeshOptimizer.optimizeVertexCache(indecies, VERTICES);
+		float after = MeshOptimizer.acmr(optimized, VERTICES, MeshOptimizer.DEFAULT_CACHE_SIZE);
+		
+		assertTrue(after < before, "ACMR increased from " + before + " to " + after);
+		assertEquals(TriangleStripifierTest.listTriangles(indecies), TriangleStripifierTest.listTriangles(optimized));
+	}
+	
+	@Test
+	public void optimizeKeepsTrianglesAndDoesNotIncreaseAcmr() {
+		int[] original = shuffledGrid(6);
+		float before = MeshOptimizer.acmr(original, VERTICES, MeshOptimizer.DEFAULT_CACHE_SIZE);
+		
+		for (float[] positions : new float[][] {null, gridPositions()}) {
+			int[] indecies = original.clone();
+			int[] remap = MeshOptimizer.optimize(indecies, positions, VERTICES);
+			float after = MeshOptimizer.acmr(indecies, VERTICES, MeshOptimizer.DEFAULT_CACHE_SIZE);
+			
+			assertTrue(after <= before, "ACMR increased from " + before + " to " + after);
+			assertEquals(TriangleStripifierTest.listTriangles(original), TriangleStripifierTest.listTriangles(unmap(indecies, remap)));
+		}
+	}
+	
+	@Test
+	public void vertexFetchOrderFollowsFirstReference() {
+		int[] indecies = new int[] {4, 2, 0, 2, 4, 5};
+		int[] remap = MeshOptimizer.optimizeVertexFetch(indecies, 7);
+		
+		assertEquals(0, indecies[0]);
+		assertEquals(1, indecies[1]);
+		assertEquals(2, indecies[2]);
+		assertEquals(3, indecies[5]);
+		// Unreferenced vertices are moved to the end
+		assertEquals(4, remap[1]);
+		assertEquals(5, remap[3]);
+		assertEquals(6, remap[6]);
+	}
+	
+}
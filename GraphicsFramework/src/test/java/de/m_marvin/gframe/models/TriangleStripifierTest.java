@@ -0,0 +1,127 @@
+package de.m_marvin.gframe.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link TriangleStripifier#stripify(int[], int)} keeps the triangles and their winding order.
+ */
+public class TriangleStripifierTest {
+	
+	protected static final int RESTART = 0xFFFF;
+	
+	/**
+	 * Creates a grid of quads with consistent winding, two triangles per quad.
+	 */
+	protected static int[] grid(int width, int height) {
+		int[] indecies = new int[width * height * 6];
+		int i = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int v = y * (width + 1) + x;
+				int above = v + width + 1;
+				indecies[i++] = v;
+				indecies[i++] = v + 1;
+				indecies[i++] = above;
+				indecies[i++] = above;
+				indecies[i++] = v + 1;
+				indecies[i++] = above + 1;
+			}
+		}
+		return indecies;
+	}
+	
+	/**
+	 * Returns the triangles of the list, each rotated to start with its smallest index so that the winding is kept.
+	 */
+	protected static List<List<Integer>> listTriangles(int[] indecies) {
+		List<List<Integer>> triangles = new ArrayList<>();
+		for (int i = 0; i + 2 < indecies.length; i += 3) triangles.add(triangle(indecies[i], indecies[i + 1], indecies[i + 2]));
+		Collections.sort(triangles, TriangleStripifierTest::compare);
+		return triangles;
+	}
+	
+	/**
+	 * Returns the non degenerated triangles of the strips, following the winding rules of OpenGL.
+	 */
+	protected static List<List<Integer>> stripTriangles(int[] strips, int restartIndex) {
+		List<List<Integer>> triangles = new ArrayList<>();
+		int start = 0;
+		for (int i = 0; i <= strips.length; i++) {
+			if (i < strips.length && strips[i] != restartIndex) continue;
+			for (int t = start; t + 2 < i; t++) {
+				int a = strips[t], b = strips[t + 1], c = strips[t + 2];
+				if (a == b || b == c || a == c) continue;
+				triangles.add((t - start) % 2 == 0 ? triangle(a, b, c) : triangle(b, a, c));
+			}
+			start = i + 1;
+		}
+		Collections.sort(triangles, TriangleStripifierTest::compare);
+		return triangles;
+	}
+	
+	protected static List<Integer> triangle(int a, int b, int c) {
+		if (a <= b && a <= c) return List.of(a, b, c);
+		if (b <= a && b <= c) return List.of(b, c, a);
+		return List.of(c, a, b);
+	}
+	
+	protected static int compare(List<Integer> a, List<Integer> b) {
+		for (int i = 0; i < 3; i++) {
+			int c = Integer.compare(a.get(i), b.get(i));
+			if (c != 0) return c;
+		}
+		return 0;
+	}
+	
+	@Test
+	public void gridKeepsTrianglesAndWinding() {
+		int[] indecies = grid(8, 8);
+		int[] strips = TriangleStripifier.stripify(indecies, RESTART);
+		
+		assertEquals(listTriangles(indecies), stripTriangles(strips, RESTART));
+		assertTrue(strips.length < indecies.length, "The strips should need less indecies than the triangle list");
+	}
+	
+	@Test
+	public void shuffledTrianglesKeepTrianglesAndWinding() {
+		int[] indecies = grid(16, 4);
+		Random random = new Random(4);
+		for (int t = indecies.length / 3 - 1; t > 0; t--) {
+			int o = random.nextInt(t + 1);
+			for (int c = 0; c < 3; c++) {
+				int swap = indecies[t * 3 + c];
+				indecies[t * 3 + c] = indecies[o * 3 + c];
+				indecies[o * 3 + c] = swap;
+			}
+		}
+		int[] strips = TriangleStripifier.stripify(indecies, RESTART);
+		
+		assertEquals(listTriangles(indecies), stripTriangles(strips, RESTART));
+	}
+	
+	@Test
+	public void disconnectedTrianglesAreSeparatedByRestartIndex() {
+		int[] indecies = new int[] {0, 1, 2, 3, 4, 5};
+		int[] strips = TriangleStripifier.stripify(indecies, RESTART);
+		
+		int restarts = 0;
+		for (int index : strips) if (index == RESTART) restarts++;
+		assertEquals(1, restarts);
+		assertTrue(strips[0] != RESTART && strips[strips.length - 1] != RESTART);
+		assertEquals(listTriangles(indecies), stripTriangles(strips, RESTART));
+	}
+	
+	@Test
+	public void emptyListGivesEmptyStrips() {
+		assertEquals(0, TriangleStripifier.stripify(new int[0], RESTART).length);
+	}
+	
+}
@@ -0,0 +1,114 @@
+package de.m_marvin.gframe.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Round trip tests of the packing methods of {@link VertexPacking}.
+ */
+public class VertexPackingTest {
+	
+	@Test
+	public void halfFloatRoundTrip() {
+		float[] exact = new float[] {0, -0F, 1, -2, 0.5F, 1024, 65504, -65504, 0x1p-24F, 0x1p-14F};
+		for (float value : exact) {
+			assertEquals(Float.floatToIntBits(value), Float.floatToIntBits(VertexPacking.fromHalfFloat(VertexPacking.toHalfFloat(value))));
+		}
+		
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; i++) {
+			float value = (random.nextFloat() * 2 - 1) * 60000;
+			float decoded = VertexPacking.fromHalfFloat(VertexPacking.toHalfFloat(value));
+			assertEquals(value, decoded, Math.max(Math.abs(value) * 0x1p-11F, 0x1p-25F));
+		}
+		
+		assertEquals(Float.POSITIVE_INFINITY, VertexPacking.fromHalfFloat(VertexPacking.toHalfFloat(1e6F)));
+		assertEquals(Float.NEGATIVE_INFINITY, VertexPacking.fromHalfFloat(VertexPacking.toHalfFloat(-1e6F)));
+		assertTrue(Float.isNaN(VertexPacking.fromHalfFloat(VertexPacking.toHalfFloat(Float.NaN))));
+	}
+	
+	@Test
+	public void normalizedIntegerRoundTrip() {
+		for (int i = 0; i <= 100; i++) {
+			float unsigned = i / 100F;
+			float signed = unsigned * 2 - 1;
+			// At most half a step away, with some slack for values exactly between two steps
+			assertEquals(unsigned, Byte.toUnsignedInt(VertexPacking.unorm8(unsigned)) / 255F, 0.51F / 255F);
+			assertEquals(signed, VertexPacking.snorm8(signed) / 127F, 0.51F / 127F);
+			assertEquals(unsigned, Short.toUnsignedInt(VertexPacking.unorm16(unsigned)) / 65535F, 0.51F / 65535F);
+			assertEquals(signed, VertexPacking.snorm16(signed) / 32767F, 0.51F / 32767F);
+		}
+		
+		assertEquals(127, VertexPacking.snorm8(2));
+		assertEquals(-127, VertexPacking.snorm8(-2));
+		assertEquals(0, VertexPacking.unorm8(-1));
+	}
+	
+	@Test
+	public void packed2101010RoundTrip() {
+		Random random = new Random(2);
+		float[] values = new float[4];
+		for (int i = 0; i < 1000; i++) {
+			float x = random.nextFloat() * 2 - 1;
+			float y = random.nextFloat() * 2 - 1;
+			float z = random.nextFloat() * 2 - 1;
+			float w = random.nextInt(3) - 1;
+			VertexPacking.unpackSnorm2101010(VertexPacking.packSnorm2101010(x, y, z, w), values);
+			assertEquals(x, values[0], 0.5F / 511F);
+			assertEquals(y, values[1], 0.5F / 511F);
+			assertEquals(z, values[2], 0.5F / 511F);
+			assertEquals(w, values[3], 0);
+			
+			float ux = random.nextFloat();
+			float uy = random.nextFloat();
+			float uz = random.nextFloat();
+			float uw = random.nextInt(4) / 3F;
+			VertexPacking.unpackUnorm2101010(VertexPacking.packUnorm2101010(ux, uy, uz, uw), values);
+			assertEquals(ux, values[0], 0.5F / 1023F);
+			assertEquals(uy, values[1], 0.5F / 1023F);
+			assertEquals(uz, values[2], 0.5F / 1023F);
+			assertEquals(uw, values[3], 1e-6F);
+		}
+	}
+	
+	@Test
+	public void octahedralRoundTrip() {
+		Random random = new Random(3);
+		float[] encoded = new float[2];
+		float[] decoded = new float[3];
+		float[][] axes = new float[][] {{1, 0, 0}, {-1, 0, 0}, {0, 1, 0}, {0, -1, 0}, {0, 0, 1}, {0, 0, -1}};
+		for (float[] axis : axes) {
+			VertexPacking.octahedralEncode(axis[0], axis[1], axis[2], encoded);
+			VertexPacking.octahedralDecode(encoded[0], encoded[1], decoded);
+			for (int c = 0; c < 3; c++) assertEquals(axis[c], decoded[c], 1e-6F);
+		}
+		
+		float minDot = 1;
+		for (int i = 0; i < 10000; i++) {
+			float x = (float) random.nextGaussian();
+			float y = (float) random.nextGaussian();
+			float z = (float) random.nextGaussian();
+			float length = (float) Math.sqrt(x * x + y * y + z * z);
+			x /= length;
+			y /= length;
+			z /= length;
+			
+			VertexPacking.octahedralEncode(x, y, z, encoded);
+			assertTrue(Math.abs(encoded[0]) <= 1 && Math.abs(encoded[1]) <= 1);
+			VertexPacking.octahedralDecode(encoded[0], encoded[1], decoded);
+			assertEquals(x, decoded[0], 1e-5F);
+			assertEquals(y, decoded[1], 1e-5F);
+			assertEquals(z, decoded[2], 1e-5F);
+			
+			// Quantized to two 16 bit components, as stored in vertex buffers
+			VertexPacking.octahedralDecode(VertexPacking.snorm16(encoded[0]) / 32767F, VertexPacking.snorm16(encoded[1]) / 32767F, decoded);
+			minDot = Math.min(minDot, x * decoded[0] + y * decoded[1] + z * decoded[2]);
+		}
+		assertTrue(minDot > Math.cos(Math.toRadians(0.1)), "The quantized normals deviate more than 0.1 degrees");
+	}
+	
+}
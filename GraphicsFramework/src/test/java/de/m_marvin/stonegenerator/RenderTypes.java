@@ -10,7 +10,7 @@ public class RenderTypes {
 	
 	private static final RenderMode<ResourceLocation> stone = new RenderMode<ResourceLocation>(
 			RenderPrimitive.TRIANGLES, 
-			new VertexFormat().appand("position", NumberFormat.FLOAT, 3, false).appand("color", NumberFormat.FLOAT, 4, false), 
+			VertexFormat.empty().with("position", NumberFormat.FLOAT, 3, false).with("color", NumberFormat.FLOAT, 4, false), 
 			new ResourceLocation("stonegen:draw_stone"), 
 			(shader, texloader) -> {});
 	public static RenderMode<ResourceLocation> stone() {
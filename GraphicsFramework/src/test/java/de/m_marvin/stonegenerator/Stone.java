@@ -15,6 +15,9 @@ import de.m_marvin.gframe.buffers.IBufferSource;
 import de.m_marvin.gframe.buffers.defimpl.RenderMode;
 import de.m_marvin.gframe.resources.defimpl.ResourceLocation;
 import de.m_marvin.gframe.translation.PoseStack;
+import de.m_marvin.gframe.utility.GeometryTransform;
+import de.m_marvin.gframe.vertices.IVertexConsumer;
+import de.m_marvin.unimat.impl.Matrix4f;
 import de.m_marvin.univec.impl.Vec3f;
 
 public class Stone {
@@ -90,13 +93,53 @@ public class Stone {
 		matrix.translate(this.pos.x, this.pos.y, this.pos.z);
 		matrix.rotateDegrees(this.rotation.x, this.rotation.y, this.rotation.z);
 		
+		float[] data = new float[this.vertecies.size() * 7];
 		for (int i = 0; i < this.vertecies.size(); i++) {
-			buffer.vertex(matrix, vertecies.get(i).x, vertecies.get(i).y, vertecies.get(i).z).color(r, g, b, 1).endVertex();
+			Vec3f vertex = this.vertecies.get(i);
+			int o = i * 7;
+			data[o + 0] = vertex.x;
+			data[o + 1] = vertex.y;
+			data[o + 2] = vertex.z;
+			data[o + 3] = r;
+			data[o + 4] = g;
+			data[o + 5] = b;
+			data[o + 6] = 1;
 		}
+		GeometryTransform.transformVertices(buffer, matrix, data, 0, 7, this.vertecies.size(), 0, -1);
 		buffer.indecies(this.indecies);
 		buffer.end();
 		matrix.pop();
 		
 	}
 	
+	public void drawGeometry(IVertexConsumer buffer) {
+		
+		float r = this.color.getRed() / 255F;
+		float g = this.color.getGreen() / 255F;
+		float b = this.color.getBlue() / 255F;
+		
+		for (int i = 0; i < this.vertecies.size(); i++) {
+			buffer.vertex(vertecies.get(i).x, vertecies.get(i).y, vertecies.get(i).z).color(r, g, b, 1).endVertex();
+		}
+		buffer.indecies(this.indecies);
+		
+	}
+	
+	public Matrix4f getTransform(PoseStack matrix) {
+		
+		matrix.push();
+		matrix.translate(this.pos.x, this.pos.y, this.pos.z);
+		matrix.rotateDegrees(this.rotation.x, this.rotation.y, this.rotation.z);
+		float[] m = matrix.getStorage();
+		int p = matrix.poseOffset();
+		Matrix4f transform = new Matrix4f(
+				m[p + 0], m[p + 1], m[p + 2], m[p + 3],
+				m[p + 4], m[p + 5], m[p + 6], m[p + 7],
+				m[p + 8], m[p + 9], m[p + 10], m[p + 11],
+				m[p + 12], m[p + 13], m[p + 14], m[p + 15]);
+		matrix.pop();
+		return transform;
+		
+	}
+	
 }
@@ -14,6 +14,7 @@ import de.m_marvin.gframe.buffers.BufferBuilder;
 import de.m_marvin.gframe.buffers.BufferUsage;
 import de.m_marvin.gframe.buffers.IBufferSource;
 import de.m_marvin.gframe.buffers.VertexBuffer;
+import de.m_marvin.gframe.buffers.defimpl.GeometryCache;
 import de.m_marvin.gframe.buffers.defimpl.RenderMode;
 import de.m_marvin.gframe.buffers.defimpl.SimpleBufferSource;
 import de.m_marvin.gframe.framebuffers.Framebuffer;
@@ -95,6 +96,7 @@ public class StoneGenerator {
 		startLoop();
 		
 		// Unload all shaders, textures and models
+		stoneCache.freeAllMemory();
 		shaderLoader.clearCached();
 		
 		// Destroy main window
@@ -219,6 +221,7 @@ public class StoneGenerator {
 	IBufferSource<RenderMode<ResourceLocation>> bufferSource = new SimpleBufferSource<>(36000);
 	PoseStack matrix = new PoseStack();
 	VertexBuffer renderBuffer = new VertexBuffer();
+	GeometryCache<Stone, RenderMode<ResourceLocation>> stoneCache = new GeometryCache<>(36000, BufferUsage.STATIC);
 	
 	int fbt = 0;
 	
@@ -248,21 +251,17 @@ public class StoneGenerator {
 		
 		matrix.push();
 		
+		// Stones never change their shape, only their transformation
 		for (Stone stone : stones) {
-			stone.drawStone(this.bufferSource, this.matrix);
+			stoneCache.update(stone, RenderTypes.stone(), 0, stone::drawGeometry);
+			stoneCache.setTransform(stone, stone.getTransform(this.matrix));
 		}
 		
 		matrix.pop();
 		matrix.assertCleared();
 		
-		
-		BufferBuilder b = this.bufferSource.getBuffer(RenderTypes.stone());
-		while (b.completedBuffers() > 0) {
-			renderBuffer.upload(b, BufferUsage.DYNAMIC);
-			renderBuffer.bind();
-			renderBuffer.drawAll(RenderTypes.stone().primitive());
-		}
-		b.discardStored();
+		stoneCache.draw(RenderTypes.stone(), shader.getUniform("ModelMat"));
+		shader.getUniform("ModelMat").setDefault();
 		
 //		if (fbt == 100) {
 //
@@ -0,0 +1,69 @@
+package de.m_marvin.gframe.utility;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementation of the {@link TransformKernel} using the SIMD lanes of the incubating vector API.
+ * Interleaved data is transposed block wise into separate component arrays, which can be loaded into the lanes without gathering.
+ * This class must only be loaded if the module jdk.incubator.vector is available, see {@link GeometryTransform}.
+ */
+class VectorTransformKernel implements TransformKernel {
+
+	protected static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+	/**
+	 * The number of interleaved vectors transposed at once, small enough for the component arrays to stay in the cache.
+	 */
+	protected static final int BLOCK_SIZE = 256;
+
+	protected final ScalarTransformKernel tail = new ScalarTransformKernel();
+
+	@Override
+	public void transform(float[] m, float[] src, int srcOffset, float[] dst, int dstOffset, int stride, int count) {
+		if (count < SPECIES.length()) {
+			this.tail.transform(m, src, srcOffset, dst, dstOffset, stride, count);
+			return;
+		}
+		int blockSize = Math.min(count, BLOCK_SIZE);
+		float[] x = new float[blockSize];
+		float[] y = new float[blockSize];
+		float[] z = new float[blockSize];
+		for (int block = 0; block < count; block += blockSize) {
+			int size = Math.min(blockSize, count - block);
+			int s = srcOffset + block * stride;
+			for (int i = 0; i < size; i++, s += stride) {
+				x[i] = src[s];
+				y[i] = src[s + 1];
+				z[i] = src[s + 2];
+			}
+			transform(m, x, y, z, 0, size);
+			int d = dstOffset + block * stride;
+			for (int i = 0; i < size; i++, d += stride) {
+				dst[d] = x[i];
+				dst[d + 1] = y[i];
+				dst[d + 2] = z[i];
+			}
+		}
+	}
+
+	@Override
+	public void transform(float[] m, float[] x, float[] y, float[] z, int offset, int count) {
+		int lanes = SPECIES.length();
+		int bound = SPECIES.loopBound(count);
+
+		for (int i = offset; i < offset + bound; i += lanes) {
+			FloatVector vx = FloatVector.fromArray(SPECIES, x, i);
+			FloatVector vy = FloatVector.fromArray(SPECIES, y, i);
+			FloatVector vz = FloatVector.fromArray(SPECIES, z, i);
+			row(m, 0, vx, vy, vz).intoArray(x, i);
+			row(m, 4, vx, vy, vz).intoArray(y, i);
+			row(m, 8, vx, vy, vz).intoArray(z, i);
+		}
+		this.tail.transform(m, x, y, z, offset + bound, count - bound);
+	}
+
+	protected static FloatVector row(float[] m, int row, FloatVector x, FloatVector y, FloatVector z) {
+		return x.mul(m[row]).add(y.mul(m[row + 1])).add(z.mul(m[row + 2])).add(m[row + 3]);
+	}
+
+}